@@ -0,0 +1,100 @@
+package com.vinay.app;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Statement binding against a stub JDBC connection that prepares statements which ignore every call,
+ * so that only the work done by SQLParser is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindBenchmark {
+
+	@Param({ "EQUALS", "MIXED", "IN_1K" })
+	public Queries query;
+
+	private Connection connection;
+	private SQLParser.ParsedQuery parsedQuery;
+	private SQLParser sqlParser;
+	private QueryTemplate template;
+	private Object[] values;
+
+	@Setup
+	public void setUp() {
+		connection = stubConnection();
+		parsedQuery = SQLParser.parseSQLQuery(query.sql());
+		sqlParser = new SQLParser();
+		template = QueryTemplate.compile(query.sql());
+		values = parsedQuery.getParameters().toArray();
+	}
+
+	@Benchmark
+	public PreparedStatement createPreparedStatement() throws SQLException {
+		return SQLParser.createPreparedStatement(connection, parsedQuery);
+	}
+
+	@Benchmark
+	public PreparedStatement prepareStatement() throws SQLException {
+		return sqlParser.prepareStatement(connection, parsedQuery);
+	}
+
+	/**
+	 * Baseline for templateBind: the query text is parsed on every call.
+	 */
+	@Benchmark
+	public PreparedStatement parseAndBind() throws SQLException {
+		return SQLParser.createPreparedStatement(connection, SQLParser.parseSQLQuery(query.sql()));
+	}
+
+	@Benchmark
+	public PreparedStatement templateBind() throws SQLException {
+		return SQLParser.createPreparedStatement(connection, template.bind(values));
+	}
+
+	static Connection stubConnection() {
+		PreparedStatement preparedStatement = stub(PreparedStatement.class, null);
+		return stub(Connection.class, preparedStatement);
+	}
+
+	/**
+	 * Proxy answering every call with the default value of its return type,
+	 * or with the given statement for prepareStatement.
+	 */
+	private static <T> T stub(Class<T> type, PreparedStatement preparedStatement) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+			Class<?> returnType = method.getReturnType();
+			if (method.getName().equals("prepareStatement")) {
+				return preparedStatement;
+			} else if (returnType == boolean.class) {
+				return false;
+			} else if (returnType == int.class) {
+				return 0;
+			} else if (returnType == long.class) {
+				return 0L;
+			} else if (returnType.isPrimitive() && returnType != void.class) {
+				throw new UnsupportedOperationException(method.getName());
+			}
+			return null;
+		}));
+	}
+}
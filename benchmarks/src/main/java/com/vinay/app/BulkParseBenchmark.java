@@ -0,0 +1,58 @@
+package com.vinay.app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BulkParser over 100k queries with a growing fork/join pool, to check that parsing scales with cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkParseBenchmark {
+
+	@Param({ "1", "2", "4", "8" })
+	public int parallelism;
+
+	private ForkJoinPool pool;
+	private BulkParser bulkParser;
+	private List<String> queries;
+
+	@Setup
+	public void setUp() {
+		pool = new ForkJoinPool(parallelism);
+		bulkParser = new BulkParser(pool, SQLParser.Engine.REGEX);
+		queries = new ArrayList<>();
+		for (int i = 0; i < 100_000; i++) {
+			queries.add(i % 2 == 0 ? Queries.MIXED.sql() : Queries.IN_10.sql());
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public List<BulkParser.Result> parseAll() {
+		return bulkParser.parseAll(queries);
+	}
+}
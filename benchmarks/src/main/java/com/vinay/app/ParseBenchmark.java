@@ -0,0 +1,56 @@
+package com.vinay.app;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SQLParser.parseSQLQuery over each query shape and engine, parseLazily when only the parameters are read,
+ * and QueryFingerprint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+	@Param
+	public Queries query;
+
+	@Param
+	public SQLParser.Engine engine;
+
+	private String sql;
+
+	@Setup
+	public void setUp() {
+		sql = query.sql();
+	}
+
+	@Benchmark
+	public SQLParser.ParsedQuery parseSQLQuery() {
+		return SQLParser.parseSQLQuery(sql, engine);
+	}
+
+	@Benchmark
+	public ParameterBuffer parseLazilyParametersOnly() {
+		return SQLParser.parseLazily(sql, engine, InListStrategy.EXPAND).getParameterBuffer();
+	}
+
+	@Benchmark
+	public long fingerprint() {
+		return QueryFingerprint.fingerprint(sql, engine);
+	}
+}
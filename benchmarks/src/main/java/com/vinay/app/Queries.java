@@ -0,0 +1,35 @@
+package com.vinay.app;
+
+/**
+ * Query shapes shared by the benchmarks.
+ */
+public enum Queries {
+
+	EQUALS("SELECT * FROM orders WHERE order_id = 5"),
+	MIXED("SELECT * FROM orders WHERE order_id=5 AND user_name='abc' AND status IN ('complete', 'incomplete') "
+			+ "AND req_time >= '12/01/2022 08:00:00' AND req_status <= 5 AND req_count < 5 AND temp > 3.2 AND bit != 8"),
+	BETWEEN("SELECT * FROM orders WHERE req_date BETWEEN '11/01/2022 08:00:00' AND '10/01/2022 08:00:00'"),
+	NESTED("SELECT * FROM orders WHERE (status = 'open' OR (priority > 3 AND NOT owner LIKE 'sys%')) "
+			+ "AND deleted_at IS NULL AND lower(region) = 'eu' AND total * 1.2 BETWEEN 10 AND 500"),
+	IN_10(inList(10)),
+	IN_1K(inList(1_000)),
+	IN_100K(inList(100_000));
+
+	private final String sql;
+
+	Queries(String sql) {
+		this.sql = sql;
+	}
+
+	public String sql() {
+		return sql;
+	}
+
+	private static String inList(int size) {
+		StringBuilder sql = new StringBuilder("SELECT * FROM orders WHERE order_id IN (");
+		for (int i = 0; i < size; i++) {
+			sql.append(i == 0 ? "" : ", ").append(1_000_000 + i);
+		}
+		return sql.append(")").toString();
+	}
+}
@@ -0,0 +1,127 @@
+package com.vinay.app;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Values of an IN list bound as a single array parameter, see {@link InListStrategy.Mode#ARRAY}.
+ *
+ * The element type name passed to {@link Connection#createArrayOf(String, Object[])} is the narrowest
+ * that holds every value: integer, bigint, float8 or numeric for numbers, boolean, and varchar for
+ * anything else. float8 is only used when every number is a double; whole numbers mixed with doubles
+ * make a numeric array, so that a 64-bit id is not rounded. NULL values do not count.
+ */
+public final class ArrayParameter {
+
+	private final String typeName;
+	private final Object[] elements;
+
+	public ArrayParameter(String typeName, Object[] elements) {
+		this.typeName = typeName;
+		this.elements = elements;
+	}
+
+	/**
+	 * @param values decoded list values
+	 * @return the values as an array of the narrowest type that holds them all
+	 */
+	static ArrayParameter of(ParameterBuffer values) {
+
+		// Widest type seen, in the order integer < bigint < float8 < numeric; booleans and others apart.
+		// Whole numbers next to doubles go to numeric instead of float8, which rounds them past 2^53
+
+		ParameterBuffer.Type widest = null;
+		boolean nonNull = false;
+		boolean booleans = true;
+		boolean numbers = true;
+		boolean doubles = true;
+		Object[] elements = new Object[values.size()];
+		for (int i = 0; i < elements.length; i++) {
+			ParameterBuffer.Type type = values.type(i);
+			elements[i] = values.get(i);
+			if (type == ParameterBuffer.Type.NULL) {
+				continue;
+			}
+			nonNull = true;
+			booleans &= type == ParameterBuffer.Type.BOOLEAN;
+			doubles &= type == ParameterBuffer.Type.DOUBLE;
+			numbers &= type == ParameterBuffer.Type.INTEGER || type == ParameterBuffer.Type.LONG
+					|| type == ParameterBuffer.Type.DOUBLE || type == ParameterBuffer.Type.DECIMAL;
+			if (numbers && (widest == null || type.ordinal() > widest.ordinal())) {
+				widest = type; // INTEGER, LONG, DOUBLE and DECIMAL are declared in that order
+			}
+		}
+		if (numbers && widest == ParameterBuffer.Type.DOUBLE && !doubles) {
+			widest = ParameterBuffer.Type.DECIMAL;
+		}
+
+		if (!nonNull) {
+			return new ArrayParameter("varchar", elements);
+		} else if (booleans) {
+			return new ArrayParameter("boolean", elements);
+		} else if (!numbers) {
+			for (int i = 0; i < elements.length; i++) {
+				elements[i] = elements[i] != null ? String.valueOf(elements[i]) : null;
+			}
+			return new ArrayParameter("varchar", elements);
+		}
+		for (int i = 0; i < elements.length; i++) {
+			Number number = (Number) elements[i];
+			if (number == null) {
+				continue;
+			} else if (widest == ParameterBuffer.Type.LONG) {
+				elements[i] = number.longValue();
+			} else if (widest == ParameterBuffer.Type.DOUBLE) {
+				elements[i] = number.doubleValue();
+			} else if (widest == ParameterBuffer.Type.DECIMAL && !(number instanceof BigDecimal)) {
+				elements[i] = new BigDecimal(number.toString());
+			}
+		}
+		switch (widest) {
+		case LONG:
+			return new ArrayParameter("bigint", elements);
+		case DOUBLE:
+			return new ArrayParameter("float8", elements);
+		case DECIMAL:
+			return new ArrayParameter("numeric", elements);
+		default:
+			return new ArrayParameter("integer", elements);
+		}
+	}
+
+	public String getTypeName() {
+		return typeName;
+	}
+
+	public Object[] getElements() {
+		return elements.clone();
+	}
+
+	/**
+	 * @param connection connection of the statement the array is bound to
+	 * @return
+	 * @throws SQLException
+	 */
+	public Array toSQLArray(Connection connection) throws SQLException {
+		return connection.createArrayOf(typeName, elements);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof ArrayParameter && typeName.equals(((ArrayParameter) other).typeName)
+				&& Arrays.equals(elements, ((ArrayParameter) other).elements);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * typeName.hashCode() + Arrays.hashCode(elements);
+	}
+
+	@Override
+	public String toString() {
+		return typeName + Arrays.toString(elements);
+	}
+}
@@ -0,0 +1,207 @@
+package com.vinay.app;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import javax.sql.DataSource;
+
+import com.vinay.app.SQLParser.Engine;
+import com.vinay.app.SQLParser.ParsedQuery;
+
+/**
+ * Parses, binds and executes raw queries asynchronously.
+ *
+ * Each query is parsed with {@link SQLParser#parseSQLQuery(String, Engine)}, run on a connection
+ * taken from the DataSource (usually a pool) with
+ * {@link SQLParser#createPreparedStatement(Connection, ParsedQuery)}, and its result completes the
+ * returned CompletableFuture. Work runs on virtual threads when the JVM has them, on a fixed pool of
+ * maxConcurrency platform threads otherwise, or on a caller supplied executor.
+ *
+ * At most maxConcurrency queries hold a connection at a time. At most maxPending queries are
+ * submitted and not yet finished; past that the submitting thread blocks until one finishes, so a
+ * fast producer cannot queue up unbounded work.
+ */
+public class AsyncQueryExecutor implements AutoCloseable {
+
+	/**
+	 * Reads the result set of a query into the value the future completes with.
+	 */
+	@FunctionalInterface
+	public interface ResultSetHandler<T> {
+		T handle(ResultSet resultSet) throws SQLException;
+	}
+
+	@FunctionalInterface
+	private interface Work<T> {
+		T execute(PreparedStatement preparedStatement) throws SQLException;
+	}
+
+	private final DataSource dataSource;
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	private final Engine engine;
+	private final int maxConcurrency;
+	private final int maxPending;
+	private final Semaphore running;
+	private final Semaphore pending;
+
+	/**
+	 * Runs on virtual threads, or a fixed pool of maxConcurrency threads before Java 21, with the
+	 * default engine and room for 16 waiting queries per running one.
+	 *
+	 * @param dataSource source of the connections, closed after every query
+	 * @param maxConcurrency number of queries executed at the same time
+	 */
+	public AsyncQueryExecutor(DataSource dataSource, int maxConcurrency) {
+		this(dataSource, maxConcurrency, maxConcurrency * 16, defaultExecutor(maxConcurrency), true, Engine.REGEX);
+	}
+
+	/**
+	 * @param dataSource source of the connections, closed after every query
+	 * @param maxConcurrency number of queries executed at the same time
+	 * @param maxPending number of submitted queries not yet finished before submitting blocks, at least maxConcurrency
+	 * @param executor executor the queries run on; not shut down by this class
+	 * @param engine engine every query is parsed with
+	 */
+	public AsyncQueryExecutor(DataSource dataSource, int maxConcurrency, int maxPending, ExecutorService executor,
+			Engine engine) {
+		this(dataSource, maxConcurrency, maxPending, executor, false, engine);
+	}
+
+	private AsyncQueryExecutor(DataSource dataSource, int maxConcurrency, int maxPending, ExecutorService executor,
+			boolean ownsExecutor, Engine engine) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+		}
+		if (maxPending < maxConcurrency) {
+			throw new IllegalArgumentException("maxPending must be at least maxConcurrency: " + maxPending);
+		}
+		this.dataSource = dataSource;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		this.engine = engine;
+		this.maxConcurrency = maxConcurrency;
+		this.maxPending = maxPending;
+		this.running = new Semaphore(maxConcurrency);
+		this.pending = new Semaphore(maxPending);
+	}
+
+	private static ExecutorService defaultExecutor(int maxConcurrency) {
+		return VirtualThreads.isSupported() ? VirtualThreads.newExecutor() : Executors.newFixedThreadPool(maxConcurrency);
+	}
+
+	/**
+	 * Executes a query returning rows.
+	 *
+	 * @param query raw SQL
+	 * @param handler reads the rows; called on the executing thread, before the connection is closed
+	 * @return future completed with the handler's value, or exceptionally with the SQLException or
+	 *         RuntimeException that occurred
+	 */
+	public <T> CompletableFuture<T> query(String query, ResultSetHandler<T> handler) {
+		return submit(query, preparedStatement -> {
+			try (ResultSet resultSet = preparedStatement.executeQuery()) {
+				return handler.handle(resultSet);
+			}
+		});
+	}
+
+	/**
+	 * Executes an INSERT, UPDATE or DELETE.
+	 *
+	 * @param query raw SQL
+	 * @return future completed with the update count
+	 */
+	public CompletableFuture<Integer> update(String query) {
+		return submit(query, PreparedStatement::executeUpdate);
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	public int getMaxPending() {
+		return maxPending;
+	}
+
+	/**
+	 * @return number of submitted queries that have not finished yet
+	 */
+	public int pendingCount() {
+		return maxPending - pending.availablePermits();
+	}
+
+	/**
+	 * Shuts down the executor created by this class; queries already submitted still complete.
+	 * A caller supplied executor is left running.
+	 */
+	@Override
+	public void close() {
+		if (ownsExecutor) {
+			executor.shutdown();
+		}
+	}
+
+	private <T> CompletableFuture<T> submit(String query, Work<T> work) {
+
+		CompletableFuture<T> future = new CompletableFuture<>();
+		try {
+			pending.acquire(); // backpressure
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.completeExceptionally(new CancellationException("Interrupted while waiting to submit"));
+			return future;
+		}
+		try {
+			executor.execute(() -> run(query, work, future));
+		} catch (RejectedExecutionException e) {
+			pending.release();
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	private <T> void run(String query, Work<T> work, CompletableFuture<T> future) {
+
+		T result = null;
+		Throwable failure = null;
+		try {
+			running.acquire();
+			try {
+				ParsedQuery parsedQuery = SQLParser.parseSQLQuery(query, engine);
+				try (Connection connection = dataSource.getConnection();
+						PreparedStatement preparedStatement = SQLParser.createPreparedStatement(connection, parsedQuery)) {
+					result = work.execute(preparedStatement);
+				}
+			} finally {
+				running.release();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failure = new CancellationException("Interrupted while waiting for a connection slot");
+		} catch (SQLException | RuntimeException | Error e) {
+			failure = e;
+		} finally {
+			pending.release();
+		}
+
+		// Completed after the permits are released: dependent stages run here and may submit again
+
+		if (failure != null) {
+			future.completeExceptionally(failure);
+		} else {
+			future.complete(result);
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+	}
+}
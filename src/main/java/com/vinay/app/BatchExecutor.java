@@ -0,0 +1,232 @@
+package com.vinay.app;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.vinay.app.DmlParser.RowBatch;
+import com.vinay.app.SQLParser.ParsedQuery;
+
+/**
+ * Executes many raw UPDATE / DELETE / INSERT statements with JDBC batching.
+ *
+ * Every statement is parsed with {@link DmlParser#parseRows(String)}, so that the values of INSERT
+ * and SET are parameters too and a multi-row INSERT is split into its rows; statements and rows with
+ * the same parameterized query share one PreparedStatement and are added to its batch. A batch is
+ * executed once it holds batchSize rows, and whatever is left when the input ends. The update count
+ * of a multi-row INSERT is the sum over its rows.
+ *
+ * Statements of different shapes are not executed in input order, only statements of the same
+ * shape are. Use it for streams where that does not matter, e.g. independent row updates.
+ */
+public class BatchExecutor {
+
+	/**
+	 * Statement for one parameterized query and the inputs waiting in its batch.
+	 */
+	private static final class Group {
+
+		final PreparedStatement preparedStatement;
+		int[] pending;
+		int pendingCount;
+
+		Group(PreparedStatement preparedStatement, int batchSize) {
+			this.preparedStatement = preparedStatement;
+			this.pending = new int[Math.min(batchSize, 64)];
+		}
+
+		void add(int input) {
+			if (pendingCount == pending.length) {
+				pending = Arrays.copyOf(pending, pendingCount * 2);
+			}
+			pending[pendingCount++] = input;
+		}
+	}
+
+	private final Connection connection;
+	private final int batchSize;
+	private final StatementCache statementCache;
+
+	/**
+	 * @param connection connection the statements are executed on
+	 * @param batchSize number of statements of one shape executed together
+	 */
+	public BatchExecutor(Connection connection, int batchSize) {
+		this(connection, batchSize, null);
+	}
+
+	/**
+	 * @param connection connection the statements are executed on
+	 * @param batchSize number of statements of one shape executed together
+	 * @param statementCache cache the PreparedStatements are taken from, null to prepare and close them per call.
+	 *            They are pinned while execute runs, and their batch is cleared if it fails.
+	 */
+	public BatchExecutor(Connection connection, int batchSize, StatementCache statementCache) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+		}
+		this.connection = connection;
+		this.batchSize = batchSize;
+		this.statementCache = statementCache;
+	}
+
+	/**
+	 * @param queries raw SQL statements
+	 * @return update count of every statement, in input order
+	 * @throws SQLException
+	 */
+	public int[] execute(Iterable<String> queries) throws SQLException {
+		return execute(queries.iterator());
+	}
+
+	/**
+	 * @param queries raw SQL statements
+	 * @return update count of every statement, in input order
+	 * @throws SQLException
+	 */
+	public int[] execute(Iterator<String> queries) throws SQLException {
+
+		Map<String, Group> groups = new LinkedHashMap<>();
+		int[] updateCounts = new int[64];
+		int inputCount = 0;
+
+		try {
+			while (queries.hasNext()) {
+
+				RowBatch rows = DmlParser.parseRows(queries.next());
+
+				Group group = groups.get(rows.getParameterizedQuery());
+				if (group == null) {
+					group = new Group(prepare(rows.getParameterizedQuery()), batchSize);
+					groups.put(rows.getParameterizedQuery(), group);
+				}
+
+				if (inputCount == updateCounts.length) {
+					updateCounts = Arrays.copyOf(updateCounts, updateCounts.length * 2);
+				}
+				for (ParsedQuery row : rows.getRows()) {
+					SQLParser.setParameters(group.preparedStatement, row);
+					group.preparedStatement.addBatch();
+					group.add(inputCount);
+					if (group.pendingCount == batchSize) {
+						flush(group, updateCounts);
+					}
+				}
+				inputCount++;
+			}
+
+			for (Group group : groups.values()) {
+				if (group.pendingCount > 0) {
+					flush(group, updateCounts);
+				}
+			}
+		} catch (SQLException | RuntimeException e) {
+			if (statementCache == null) {
+				close(groups, e);
+			} else {
+				release(groups, e);
+			}
+			throw e;
+		}
+		if (statementCache == null) {
+			close(groups, null);
+		} else {
+			release(groups, null);
+		}
+
+		return Arrays.copyOf(updateCounts, inputCount);
+	}
+
+	/**
+	 * Prepares the statement of a new group; a cached one stays pinned until the groups are released,
+	 * so that preparing other shapes cannot evict and close it while it holds rows.
+	 */
+	private PreparedStatement prepare(String parameterizedQuery) throws SQLException {
+		return statementCache != null
+				? statementCache.preparePinned(connection, parameterizedQuery)
+				: connection.prepareStatement(parameterizedQuery);
+	}
+
+	/**
+	 * Hands the cached statements back: drops the rows a failure left in their batches, so that the
+	 * next user of the statement does not execute them, and unpins them.
+	 */
+	private void release(Map<String, Group> groups, Exception pending) throws SQLException {
+
+		SQLException failure = null;
+		for (Group group : groups.values()) {
+			if (pending != null) {
+				try {
+					group.preparedStatement.clearBatch();
+				} catch (SQLException e) {
+					pending.addSuppressed(e);
+				}
+			}
+			try {
+				statementCache.unpin(connection, group.preparedStatement);
+			} catch (SQLException e) {
+				if (pending != null) {
+					pending.addSuppressed(e);
+				} else if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Executes the pending batch of the group and adds its update counts at the inputs' positions.
+	 */
+	private static void flush(Group group, int[] updateCounts) throws SQLException {
+
+		int[] batchCounts = group.preparedStatement.executeBatch();
+		for (int i = 0; i < group.pendingCount; i++) {
+			int input = group.pending[i];
+			updateCounts[input] = add(updateCounts[input], i < batchCounts.length ? batchCounts[i] : Statement.EXECUTE_FAILED);
+		}
+		group.pendingCount = 0;
+	}
+
+	/**
+	 * Adds the count of one more row of an input; a failed row fails the input, a row without a count leaves it unknown.
+	 */
+	private static int add(int inputCount, int rowCount) {
+		if (inputCount == Statement.EXECUTE_FAILED || rowCount == Statement.EXECUTE_FAILED) {
+			return Statement.EXECUTE_FAILED;
+		}
+		if (inputCount == Statement.SUCCESS_NO_INFO || rowCount == Statement.SUCCESS_NO_INFO) {
+			return Statement.SUCCESS_NO_INFO;
+		}
+		return inputCount + rowCount;
+	}
+
+	/**
+	 * Closes the statements; failures are added to the exception already being thrown, if any.
+	 */
+	private static void close(Map<String, Group> groups, Exception pending) throws SQLException {
+
+		SQLException failure = null;
+		for (Group group : groups.values()) {
+			try {
+				group.preparedStatement.close();
+			} catch (SQLException e) {
+				if (pending != null) {
+					pending.addSuppressed(e);
+				} else if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package com.vinay.app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.vinay.app.SQLParser.Engine;
+import com.vinay.app.SQLParser.ParsedQuery;
+
+/**
+ * Parses many queries in parallel with {@link SQLParser#parseSQLQuery(String, Engine)}.
+ *
+ * SQLParser keeps no state between calls, so the queries are cut into contiguous ranges that are
+ * parsed on a fork/join pool (the common pool by default), on a caller supplied executor, or on
+ * virtual threads. Results come back in input order. A query that fails to parse does not fail the
+ * others; its Result carries the exception instead of a ParsedQuery.
+ *
+ * A parser from {@link #virtualThreads(Engine)} owns its executor and must be closed; closing the
+ * others does nothing.
+ */
+public class BulkParser implements AutoCloseable {
+
+	/**
+	 * Outcome of parsing one query of the input.
+	 */
+	public static final class Result {
+
+		private final String query;
+		private final ParsedQuery parsedQuery;
+		private final RuntimeException error;
+
+		Result(String query, ParsedQuery parsedQuery, RuntimeException error) {
+			this.query = query;
+			this.parsedQuery = parsedQuery;
+			this.error = error;
+		}
+
+		public String getQuery() {
+			return query;
+		}
+
+		/**
+		 * @return the parsed query, null if parsing failed
+		 */
+		public ParsedQuery getParsedQuery() {
+			return parsedQuery;
+		}
+
+		/**
+		 * @return the exception thrown while parsing, null if parsing succeeded
+		 */
+		public RuntimeException getError() {
+			return error;
+		}
+
+		public boolean isSuccess() {
+			return error == null;
+		}
+	}
+
+	private static final int MIN_RANGE = 64;	// queries parsed by one task at least
+	private static final int RANGES_PER_THREAD = 4;
+
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	private final int parallelism;
+	private final Engine engine;
+
+	/**
+	 * Parses on the common fork/join pool with the default engine.
+	 */
+	public BulkParser() {
+		this(ForkJoinPool.commonPool(), Engine.REGEX);
+	}
+
+	/**
+	 * @param executor executor the ranges are parsed on; a ForkJoinPool is used with fork/join tasks.
+	 *            Not shut down by this class.
+	 * @param engine engine every query is parsed with
+	 */
+	public BulkParser(ExecutorService executor, Engine engine) {
+		this(executor, executor instanceof ForkJoinPool ? ((ForkJoinPool) executor).getParallelism()
+				: Runtime.getRuntime().availableProcessors(), false, engine);
+	}
+
+	private BulkParser(ExecutorService executor, int parallelism, boolean ownsExecutor, Engine engine) {
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		this.parallelism = parallelism;
+		this.engine = engine;
+	}
+
+	/**
+	 * Parses every range on its own virtual thread. Close the parser to shut its executor down.
+	 *
+	 * @param engine engine every query is parsed with
+	 * @return
+	 * @throws UnsupportedOperationException on JVMs older than Java 21
+	 */
+	public static BulkParser virtualThreads(Engine engine) {
+		return new BulkParser(VirtualThreads.newExecutor(), Runtime.getRuntime().availableProcessors(), true, engine);
+	}
+
+	/**
+	 * @param queries
+	 * @return one Result per query, in input order
+	 */
+	public List<Result> parseAll(List<String> queries) {
+
+		Result[] results = new Result[queries.size()];
+		int rangeSize = Math.max(MIN_RANGE, queries.size() / (parallelism * RANGES_PER_THREAD) + 1);
+
+		if (queries.size() <= rangeSize) {
+			parseRange(queries, results, 0, queries.size());
+		} else if (executor instanceof ForkJoinPool) {
+			((ForkJoinPool) executor).invoke(new ParseTask(queries, results, 0, queries.size(), rangeSize));
+		} else {
+			submitRanges(queries, results, rangeSize);
+		}
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Collects the stream, then parses it like a list.
+	 *
+	 * @param queries
+	 * @return one Result per query, in encounter order
+	 */
+	public List<Result> parseAll(Stream<String> queries) {
+		return parseAll(queries.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Shuts down the executor created by {@link #virtualThreads(Engine)}; parses already running still complete.
+	 */
+	@Override
+	public void close() {
+		if (ownsExecutor) {
+			executor.shutdown();
+		}
+	}
+
+	private void submitRanges(List<String> queries, Result[] results, int rangeSize) {
+
+		List<Future<?>> futures = new ArrayList<>(queries.size() / rangeSize + 1);
+		try {
+			for (int start = 0; start < queries.size(); start += rangeSize) {
+				int from = start;
+				int to = Math.min(start + rangeSize, queries.size());
+				futures.add(executor.submit(() -> parseRange(queries, results, from, to)));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			futures.forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while parsing");
+		} catch (ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause(); // parse failures are captured per query, only errors get here
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private void parseRange(List<String> queries, Result[] results, int from, int to) {
+		for (int i = from; i < to; i++) {
+			String query = queries.get(i);
+			try {
+				results[i] = new Result(query, SQLParser.parseSQLQuery(query, engine), null);
+			} catch (RuntimeException e) {
+				results[i] = new Result(query, null, e);
+			}
+		}
+	}
+
+	/**
+	 * Splits its range in halves until it is small enough to parse directly.
+	 */
+	private final class ParseTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<String> queries;
+		private final Result[] results;
+		private final int from;
+		private final int to;
+		private final int rangeSize;
+
+		ParseTask(List<String> queries, Result[] results, int from, int to, int rangeSize) {
+			this.queries = queries;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.rangeSize = rangeSize;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= rangeSize) {
+				parseRange(queries, results, from, to);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ParseTask(queries, results, from, middle, rangeSize),
+						new ParseTask(queries, results, middle, to, rangeSize));
+			}
+		}
+	}
+}
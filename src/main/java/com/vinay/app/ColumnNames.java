@@ -0,0 +1,126 @@
+package com.vinay.app;
+
+import java.util.Arrays;
+
+/**
+ * Column and qualifier each parameter of a ParsedQuery is compared with, copied out of the query
+ * text when it is parsed so that the text itself need not be kept. Consecutive parameters compared
+ * with the same column (an IN list, BETWEEN) share one run. Immutable, so a QueryCache template can
+ * hand the same instance to every hit.
+ */
+final class ColumnNames {
+
+	private final int[] firstParameters;	// first parameter of each run, ascending
+	private final String[] names;			// null where the column is unknown
+	private final String[] qualifiers;		// null where the column is not qualified
+	private final int parameterCount;
+
+	ColumnNames(int[] firstParameters, String[] names, String[] qualifiers, int parameterCount) {
+		this.firstParameters = firstParameters;
+		this.names = names;
+		this.qualifiers = qualifiers;
+		this.parameterCount = parameterCount;
+	}
+
+	/**
+	 * @return the columns of the recorded values, null if none was recorded
+	 */
+	static ColumnNames of(CharSequence query, LiteralRanges literals) {
+		if (!literals.hasColumns()) {
+			return null;
+		}
+		int parameterCount = literals.parameterCount();
+		int[] firstParameters = new int[4];
+		String[] names = new String[4];
+		String[] qualifiers = new String[4];
+		int runs = 0;
+		int previousStart = -2;
+		int previousEnd = -2;
+		for (int parameter = 0; parameter < parameterCount; parameter++) {
+			int value = literals.valueOfParameter(parameter);
+			int start = literals.columnStart(value);
+			int end = literals.columnEnd(value);
+			if (start == previousStart && end == previousEnd) {
+				continue;
+			}
+			if (runs == firstParameters.length) {
+				firstParameters = Arrays.copyOf(firstParameters, runs * 2);
+				names = Arrays.copyOf(names, runs * 2);
+				qualifiers = Arrays.copyOf(qualifiers, runs * 2);
+			}
+			firstParameters[runs] = parameter;
+			names[runs] = start != -1 ? query.subSequence(start, end).toString() : null;
+			qualifiers[runs] = start != -1 ? qualifierBefore(query, start) : null;
+			runs++;
+			previousStart = start;
+			previousEnd = end;
+		}
+		return new ColumnNames(Arrays.copyOf(firstParameters, runs), Arrays.copyOf(names, runs),
+				Arrays.copyOf(qualifiers, runs), parameterCount);
+	}
+
+	/**
+	 * @return table name or alias in front of the column starting at start, quotes removed, null if none
+	 */
+	private static String qualifierBefore(CharSequence query, int start) {
+		int dot = start - 1;
+		if (dot < 1 || query.charAt(dot) != '.') {
+			return null;
+		}
+		char last = query.charAt(dot - 1);
+		if (last == '"' || last == '`' || last == ']') {
+			char open = last == ']' ? '[' : last;
+			int from = dot - 2;
+			while (from >= 0 && query.charAt(from) != open) {
+				from--;
+			}
+			return from >= 0 ? query.subSequence(from + 1, dot - 1).toString() : null;
+		}
+		int from = dot;
+		while (from > 0 && SQLLexer.isWordChar(query.charAt(from - 1))) {
+			from--;
+		}
+		return from < dot ? query.subSequence(from, dot).toString() : null;
+	}
+
+	String name(int parameter) {
+		int run = runOf(parameter);
+		return run >= 0 ? names[run] : null;
+	}
+
+	String qualifier(int parameter) {
+		int run = runOf(parameter);
+		return run >= 0 ? qualifiers[run] : null;
+	}
+
+	int parameterCount() {
+		return parameterCount;
+	}
+
+	int runCount() {
+		return firstParameters.length;
+	}
+
+	int runFirstParameter(int run) {
+		return firstParameters[run];
+	}
+
+	String runName(int run) {
+		return names[run];
+	}
+
+	String runQualifier(int run) {
+		return qualifiers[run];
+	}
+
+	/**
+	 * @return index of the run holding the parameter, -1 if there is none
+	 */
+	private int runOf(int parameter) {
+		if (parameter < 0 || parameter >= parameterCount) {
+			return -1;
+		}
+		int run = Arrays.binarySearch(firstParameters, parameter);
+		return run >= 0 ? run : -run - 2;
+	}
+}
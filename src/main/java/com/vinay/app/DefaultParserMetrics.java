@@ -0,0 +1,241 @@
+package com.vinay.app;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * ParserMetrics keeping counters in LongAdders and distributions in {@link Histogram}s, so that
+ * recording from many threads costs a few uncontended atomic adds. Exposed over JMX with
+ * {@link #registerMBean()}.
+ *
+ * <pre>
+ * DefaultParserMetrics metrics = new DefaultParserMetrics();
+ * metrics.registerMBean();
+ * SQLParser.setMetrics(metrics);
+ * </pre>
+ */
+public class DefaultParserMetrics implements ParserMetrics, ParserMetricsMXBean {
+
+	public static final String DEFAULT_OBJECT_NAME = "com.vinay.app:type=ParserMetrics";
+
+	private final Histogram parseLatency = new Histogram();
+	private final Histogram bindLatency = new Histogram();
+	private final Histogram parameterCounts = new Histogram();
+	private final Histogram inListSizes = new Histogram();
+	private final LongAdder[] conditions = new LongAdder[Condition.values().length];
+	private final LongAdder cacheHits = new LongAdder();
+	private final LongAdder cacheMisses = new LongAdder();
+	private final LongAdder unmatchedLiterals = new LongAdder();
+
+	public DefaultParserMetrics() {
+		for (int i = 0; i < conditions.length; i++) {
+			conditions[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Registers this instance with the platform MBean server under {@link #DEFAULT_OBJECT_NAME}.
+	 *
+	 * @return the name it was registered under
+	 * @throws JMException if the name is already taken
+	 */
+	public ObjectName registerMBean() throws JMException {
+		return registerMBean(DEFAULT_OBJECT_NAME);
+	}
+
+	/**
+	 * @param name object name to register this instance under in the platform MBean server
+	 * @return
+	 * @throws JMException if the name is invalid or already taken
+	 */
+	public ObjectName registerMBean(String name) throws JMException {
+		ObjectName objectName = new ObjectName(name);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		return objectName;
+	}
+
+	// ParserMetrics
+
+	@Override
+	public void parsed(long nanos, int parameterCount) {
+		parseLatency.record(nanos);
+		parameterCounts.record(parameterCount);
+	}
+
+	@Override
+	public void bound(long nanos, int parameterCount) {
+		bindLatency.record(nanos);
+	}
+
+	@Override
+	public void condition(Condition condition) {
+		conditions[condition.ordinal()].increment();
+	}
+
+	@Override
+	public void inList(int size) {
+		inListSizes.record(size);
+	}
+
+	@Override
+	public void cacheHit() {
+		cacheHits.increment();
+	}
+
+	@Override
+	public void cacheMiss() {
+		cacheMisses.increment();
+	}
+
+	@Override
+	public void unmatchedLiterals(int count) {
+		unmatchedLiterals.add(count);
+	}
+
+	// Histograms for callers wanting other percentiles than the MXBean exposes
+
+	public Histogram getParseLatency() {
+		return parseLatency;
+	}
+
+	public Histogram getBindLatency() {
+		return bindLatency;
+	}
+
+	public Histogram getParameterCounts() {
+		return parameterCounts;
+	}
+
+	public Histogram getInListSizes() {
+		return inListSizes;
+	}
+
+	// ParserMetricsMXBean
+
+	@Override
+	public long getParseCount() {
+		return parseLatency.count();
+	}
+
+	@Override
+	public double getParseLatencyMeanNanos() {
+		return parseLatency.mean();
+	}
+
+	@Override
+	public long getParseLatencyP50Nanos() {
+		return parseLatency.percentile(50);
+	}
+
+	@Override
+	public long getParseLatencyP99Nanos() {
+		return parseLatency.percentile(99);
+	}
+
+	@Override
+	public long getParseLatencyMaxNanos() {
+		return parseLatency.max();
+	}
+
+	@Override
+	public long getBindCount() {
+		return bindLatency.count();
+	}
+
+	@Override
+	public double getBindLatencyMeanNanos() {
+		return bindLatency.mean();
+	}
+
+	@Override
+	public long getBindLatencyP50Nanos() {
+		return bindLatency.percentile(50);
+	}
+
+	@Override
+	public long getBindLatencyP99Nanos() {
+		return bindLatency.percentile(99);
+	}
+
+	@Override
+	public long getBindLatencyMaxNanos() {
+		return bindLatency.max();
+	}
+
+	@Override
+	public double getParameterCountMean() {
+		return parameterCounts.mean();
+	}
+
+	@Override
+	public long getParameterCountP99() {
+		return parameterCounts.percentile(99);
+	}
+
+	@Override
+	public long getParameterCountMax() {
+		return parameterCounts.max();
+	}
+
+	@Override
+	public long getComparisonConditionCount() {
+		return conditions[Condition.COMPARISON.ordinal()].sum();
+	}
+
+	@Override
+	public long getInConditionCount() {
+		return conditions[Condition.IN.ordinal()].sum();
+	}
+
+	@Override
+	public long getBetweenConditionCount() {
+		return conditions[Condition.BETWEEN.ordinal()].sum();
+	}
+
+	@Override
+	public double getInListSizeMean() {
+		return inListSizes.mean();
+	}
+
+	@Override
+	public long getInListSizeP99() {
+		return inListSizes.percentile(99);
+	}
+
+	@Override
+	public long getInListSizeMax() {
+		return inListSizes.max();
+	}
+
+	@Override
+	public long getCacheHitCount() {
+		return cacheHits.sum();
+	}
+
+	@Override
+	public long getCacheMissCount() {
+		return cacheMisses.sum();
+	}
+
+	@Override
+	public long getUnmatchedLiteralCount() {
+		return unmatchedLiterals.sum();
+	}
+
+	@Override
+	public void reset() {
+		parseLatency.reset();
+		bindLatency.reset();
+		parameterCounts.reset();
+		inListSizes.reset();
+		for (LongAdder condition : conditions) {
+			condition.reset();
+		}
+		cacheHits.reset();
+		cacheMisses.reset();
+		unmatchedLiterals.reset();
+	}
+}
@@ -0,0 +1,521 @@
+package com.vinay.app;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.vinay.app.SQLLexer.Token;
+import com.vinay.app.SQLParser.Engine;
+import com.vinay.app.SQLParser.ParsedQuery;
+
+/**
+ * Statement-aware literal extraction for INSERT ... VALUES and UPDATE ... SET.
+ *
+ * {@link SQLParser#parseSQLQuery(String, Engine)} parameterizes the literals of conditions. This
+ * parser also parameterizes every plain value of the VALUES tuples of an INSERT or REPLACE, all
+ * rows of a multi-row list included, and every plain value assigned by UPDATE ... SET,
+ * INSERT ... SET, ON DUPLICATE KEY UPDATE and ON CONFLICT ... DO UPDATE SET. Values that are
+ * expressions (NOW(), DEFAULT, price * 2, sub-queries) are left as they are. The conditions of
+ * the statement are parameterized by the engine as usual, and other statements come out exactly
+ * as parseSQLQuery returns them.
+ *
+ * Each value is tied to its column for {@link ParsedQuery#getColumnName(int)}: the assigned column,
+ * or the column at the same position in the column list of the INSERT.
+ *
+ * {@link #parseRows(String)} turns a multi-row INSERT into a single-row query and one row of
+ * parameters per tuple, to be executed as a JDBC batch.
+ */
+public final class DmlParser {
+
+	// Words ending an assigned expression when not inside parentheses
+
+	private static final String[] ASSIGNMENT_ENDS = { "WHERE", "FROM", "RETURNING", "OUTPUT", "ORDER", "LIMIT" };
+
+	/**
+	 * The rows of a multi-row INSERT, bound one by one to the same parameterized query.
+	 */
+	public static final class RowBatch {
+
+		private final String parameterizedQuery;
+		private final List<ParsedQuery> rows;
+
+		RowBatch(String parameterizedQuery, List<ParsedQuery> rows) {
+			this.parameterizedQuery = parameterizedQuery;
+			this.rows = rows;
+		}
+
+		/**
+		 * @return the INSERT with a single tuple when the rows could be split, else the whole statement
+		 */
+		public String getParameterizedQuery() {
+			return parameterizedQuery;
+		}
+
+		/**
+		 * @return the parameters of each row, as ParsedQuerys sharing the parameterized query
+		 */
+		public List<ParsedQuery> getRows() {
+			return rows;
+		}
+
+		/**
+		 * Binds every row and adds it to the batch of the statement; run it with executeBatch().
+		 *
+		 * @param preparedStatement statement prepared with {@link #getParameterizedQuery()}
+		 * @throws SQLException
+		 */
+		public void addBatch(PreparedStatement preparedStatement) throws SQLException {
+			for (ParsedQuery row : rows) {
+				SQLParser.setParameters(preparedStatement, row);
+				preparedStatement.addBatch();
+			}
+		}
+	}
+
+	private final CharSequence query;
+	private final SQLLexer lexer;
+	private final LiteralRanges literals;
+
+	private int[] columns = new int[2 * 8];		// start, end of each name in the column list of an INSERT
+	private int columnCount;
+
+	private int[] tuples = new int[3 * 4];		// start, end (past the closing parenthesis), first element
+	private int tupleCount;
+
+	private int[] elements = new int[3 * 8];	// start, end, 1 if the element is a parameterized value
+	private int elementCount;
+
+	private DmlParser(CharSequence query, SqlDialect dialect) {
+		this.query = query;
+		this.lexer = new SQLLexer(query, dialect);
+		this.literals = new LiteralRanges(InListStrategy.EXPAND, dialect);
+	}
+
+	/**
+	 * Parses with the default engine, IN lists expanded and ANSI lexing.
+	 *
+	 * @param query
+	 * @return
+	 */
+	public static ParsedQuery parse(String query) {
+		return parse(query, Engine.REGEX, InListStrategy.EXPAND, SqlDialect.ANSI);
+	}
+
+	/**
+	 * Same as {@link SQLParser#parseSQLQuery(String, Engine, InListStrategy, SqlDialect)}, with the
+	 * values of VALUES tuples and SET assignments parameterized too.
+	 *
+	 * @param query
+	 * @param engine engine parameterizing the conditions
+	 * @param inLists
+	 * @param dialect
+	 * @return
+	 */
+	public static ParsedQuery parse(String query, Engine engine, InListStrategy inLists, SqlDialect dialect) {
+
+		ParserMetrics metrics = SQLParser.getMetrics();
+		if (metrics == ParserMetrics.NOOP) {
+			return SQLParser.toParsedQuery(query, findLiterals(query, engine, inLists, dialect, metrics));
+		}
+		long start = System.nanoTime();
+		return SQLParser.toParsedQuery(query, findLiterals(query, engine, inLists, dialect, metrics), start, metrics);
+	}
+
+	/**
+	 * Parses with the default engine and ANSI lexing, see {@link #parseRows(String, Engine, SqlDialect)}.
+	 *
+	 * @param query
+	 * @return
+	 */
+	public static RowBatch parseRows(String query) {
+		return parseRows(query, Engine.REGEX, SqlDialect.ANSI);
+	}
+
+	/**
+	 * Parses like {@link #parse(String, Engine, InListStrategy, SqlDialect)}, IN lists expanded, and splits a multi-row
+	 * INSERT into its rows: the parameterized query keeps only the first tuple, and each row holds
+	 * the parameters of its own tuple together with those before and after the VALUES list.
+	 *
+	 * The rows must have the same shape: the same number of values, and the same text wherever a
+	 * value is not parameterized. Otherwise, and for statements other than INSERT ... VALUES, the
+	 * batch has a single row holding the whole statement.
+	 *
+	 * @param query
+	 * @param engine engine parameterizing the conditions
+	 * @param dialect
+	 * @return
+	 */
+	public static RowBatch parseRows(String query, Engine engine, SqlDialect dialect) {
+
+		ParserMetrics metrics = SQLParser.getMetrics();
+		long start = metrics != ParserMetrics.NOOP ? System.nanoTime() : 0;
+
+		DmlParser parser = new DmlParser(query, dialect);
+		parser.parse();
+		LiteralRanges literals = parser.literals.mergedWith(SQLParser.findLiterals(parser.withoutValues(), engine, InListStrategy.EXPAND, dialect, metrics));
+
+		if (!parser.hasUniformRows()) {
+			ParsedQuery parsedQuery = metrics == ParserMetrics.NOOP ? SQLParser.toParsedQuery(query, literals)
+					: SQLParser.toParsedQuery(query, literals, start, metrics);
+			return new RowBatch(parsedQuery.getParameterizedQuery(), Collections.singletonList(parsedQuery));
+		}
+
+		int valuesStart = parser.tupleStart(0);
+		int valuesEnd = parser.tupleEnd(parser.tupleCount - 1);
+		StringBuilder template = new StringBuilder(query.length() - (valuesEnd - parser.tupleEnd(0)));
+		literals.appendRewritten(query, 0, parser.tupleEnd(0), template);
+		literals.appendRewritten(query, valuesEnd, query.length(), template);
+		String parameterizedQuery = template.toString();
+
+		int headValues = literals.firstValueAt(valuesStart);
+		int tailValues = literals.firstValueAt(valuesEnd);
+		List<ParsedQuery> rows = new ArrayList<>(parser.tupleCount);
+		for (int row = 0; row < parser.tupleCount; row++) {
+			int from = literals.firstValueAt(parser.tupleStart(row));
+			int to = row + 1 < parser.tupleCount ? literals.firstValueAt(parser.tupleStart(row + 1)) : tailValues;
+			ParameterBuffer parameters = new ParameterBuffer(headValues + to - from + literals.valueCount() - tailValues);
+			SQLParser.decodeParameters(query, literals, 0, headValues, parameters);
+			SQLParser.decodeParameters(query, literals, from, to, parameters);
+			SQLParser.decodeParameters(query, literals, tailValues, literals.valueCount(), parameters);
+			rows.add(new ParsedQuery(parameterizedQuery, parameters));
+		}
+
+		if (metrics != ParserMetrics.NOOP) {
+			metrics.parsed(System.nanoTime() - start, literals.parameterCount());
+		}
+		return new RowBatch(parameterizedQuery, Collections.unmodifiableList(rows));
+	}
+
+	/**
+	 * Records the literals of the tuples and assignments merged with those the engine finds.
+	 */
+	static LiteralRanges findLiterals(CharSequence query, Engine engine, InListStrategy inLists, SqlDialect dialect,
+			ParserMetrics metrics) {
+		DmlParser parser = new DmlParser(query, dialect);
+		parser.parse();
+		return parser.literals.mergedWith(SQLParser.findLiterals(parser.withoutValues(), engine, inLists, dialect, metrics));
+	}
+
+	/**
+	 * @return the query with the values taken by this parser blanked out, offsets unchanged, so the
+	 *         engine neither matches an assignment like SET status = 'x' as a condition nor reports it
+	 */
+	private CharSequence withoutValues() {
+
+		if (literals.spanCount() == 0) {
+			return query;
+		}
+		char[] chars = query.toString().toCharArray();
+		for (int i = 0; i < literals.spanCount(); i++) {
+			Arrays.fill(chars, literals.spanStart(i), literals.spanEnd(i), ' ');
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Walks the top level of the statement for VALUES lists and SET assignments.
+	 */
+	private void parse() {
+
+		lexer.next();
+		boolean insert = lexer.isKeyword("INSERT") || lexer.isKeyword("REPLACE");
+		if (!insert && !lexer.isKeyword("UPDATE")) {
+			return;
+		}
+		lexer.next();
+		if (insert) {
+			columnList();
+		}
+
+		int depth = 0;
+		boolean afterKey = false;	// ON DUPLICATE KEY UPDATE
+		while (lexer.token() != Token.END) {
+			if (depth == 0 && insert && tupleCount == 0 && (lexer.isKeyword("VALUES") || lexer.isKeyword("VALUE"))) {
+				lexer.next();
+				tuples();
+				afterKey = false;
+			} else if (depth == 0 && (lexer.isKeyword("SET") || afterKey && lexer.isKeyword("UPDATE"))) {
+				lexer.next();
+				assignments();
+				afterKey = false;
+			} else {
+				if (lexer.token() == Token.LEFT_PAREN) {
+					depth++;
+				} else if (lexer.token() == Token.RIGHT_PAREN) {
+					depth = Math.max(depth - 1, 0);
+				}
+				afterKey = lexer.isKeyword("KEY");
+				lexer.next();
+			}
+		}
+	}
+
+	/**
+	 * Reads [IGNORE] [INTO] table [(column, ...)] and remembers the columns.
+	 */
+	private void columnList() {
+
+		if (lexer.isKeyword("IGNORE")) {
+			lexer.next();
+		}
+		if (lexer.isKeyword("INTO")) {
+			lexer.next();
+		}
+		if (!isName()) {
+			return;
+		}
+		name();
+		if (lexer.token() != Token.LEFT_PAREN) {
+			return;
+		}
+		int mark = lexer.start();
+		lexer.next();
+		while (isName()) {
+			if (2 * columnCount + 2 > columns.length) {
+				columns = Arrays.copyOf(columns, columns.length * 2);
+			}
+			columns[2 * columnCount] = lexer.start();
+			columns[2 * columnCount + 1] = lexer.end();
+			columnCount++;
+			if (lexer.next() != Token.COMMA) {
+				break;
+			}
+			lexer.next();
+		}
+		if (lexer.token() == Token.RIGHT_PAREN && columnCount > 0) {
+			lexer.next();
+			return;
+		}
+		columnCount = 0; // a sub-query, INSERT INTO t (SELECT ...)
+		lexer.reset(mark);
+		lexer.next();
+	}
+
+	/**
+	 * Reads (element, ...) [, (element, ...)]* from the opening parenthesis of the first tuple.
+	 */
+	private void tuples() {
+
+		while (lexer.token() == Token.LEFT_PAREN) {
+			int start = lexer.start();
+			int firstElement = elementCount;
+			tuple();
+			if (lexer.token() != Token.RIGHT_PAREN) {
+				tupleCount = 0; // not a list of tuples to split
+				return;
+			}
+			if (3 * tupleCount + 3 > tuples.length) {
+				tuples = Arrays.copyOf(tuples, tuples.length * 2);
+			}
+			tuples[3 * tupleCount] = start;
+			tuples[3 * tupleCount + 1] = lexer.end();
+			tuples[3 * tupleCount + 2] = firstElement;
+			tupleCount++;
+			if (lexer.next() != Token.COMMA) {
+				return;
+			}
+			lexer.next();
+		}
+	}
+
+	/**
+	 * Reads the elements of one tuple, leaving the lexer on its closing parenthesis.
+	 */
+	private void tuple() {
+
+		for (int index = 0; ; index++) {
+			int mark = lexer.end();
+			int start = -1;
+			int end = -1;
+			boolean value = false;
+			if (lexer.nextValue()) {
+				start = lexer.start();
+				end = lexer.end();
+				Token next = lexer.next();
+				value = next == Token.COMMA || next == Token.RIGHT_PAREN;
+			}
+			if (value) {
+				literals.addLiteral(start, end);
+				if (index < columnCount) {
+					literals.setColumn(literals.valueCount() - 1, columns[2 * index], columns[2 * index + 1]);
+				}
+			} else {
+				lexer.reset(mark);
+				if (lexer.next() == Token.RIGHT_PAREN && index == 0) {
+					return; // ()
+				}
+				start = lexer.start();
+				end = skipExpression();
+			}
+			addElement(start, end, value);
+			if (lexer.token() != Token.COMMA) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Reads column = value [, column = value]* from the first column.
+	 */
+	private void assignments() {
+
+		while (isName()) {
+			int columnStart = lexer.start();
+			int columnEnd = name();
+			if (lexer.token() != Token.OPERATOR || lexer.end() - lexer.start() != 1 || query.charAt(lexer.start()) != '=') {
+				return;
+			}
+			int mark = lexer.end();
+			if (lexer.nextValue()) {
+				int start = lexer.start();
+				int end = lexer.end();
+				lexer.next();
+				if (isAssignmentEnd()) {
+					literals.addLiteral(start, end);
+					literals.setColumn(literals.valueCount() - 1, columnStart, columnEnd);
+					if (lexer.token() != Token.COMMA) {
+						return;
+					}
+					lexer.next();
+					continue;
+				}
+			}
+			lexer.reset(mark);
+			lexer.next();
+			skipExpression();
+			if (lexer.token() != Token.COMMA) {
+				return;
+			}
+			lexer.next();
+		}
+	}
+
+	private boolean isAssignmentEnd() {
+		switch (lexer.token()) {
+		case COMMA:
+		case RIGHT_PAREN:
+		case END:
+			return true;
+		case OTHER:
+			return query.charAt(lexer.start()) == ';';
+		case WORD:
+			for (String keyword : ASSIGNMENT_ENDS) {
+				if (lexer.isKeyword(keyword)) {
+					return true;
+				}
+			}
+			return false;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Skips an expression up to the comma, closing parenthesis or clause that ends it.
+	 *
+	 * @return end of its last token
+	 */
+	private int skipExpression() {
+
+		int depth = 0;
+		int end = lexer.start();
+		while (lexer.token() != Token.END) {
+			if (lexer.token() == Token.LEFT_PAREN) {
+				depth++;
+			} else if (depth > 0) {
+				if (lexer.token() == Token.RIGHT_PAREN) {
+					depth--;
+				}
+			} else if (isAssignmentEnd()) {
+				break;
+			}
+			end = lexer.end();
+			lexer.next();
+		}
+		return end;
+	}
+
+	private boolean isName() {
+		return lexer.token() == Token.WORD || lexer.token() == Token.QUOTED_IDENTIFIER;
+	}
+
+	/**
+	 * Reads name[.name]*, leaving the lexer on the token after it.
+	 *
+	 * @return end of the last part
+	 */
+	private int name() {
+		int end = lexer.end();
+		while (lexer.next() == Token.OTHER && query.charAt(lexer.start()) == '.') {
+			lexer.next();
+			if (!isName()) {
+				break;
+			}
+			end = lexer.end();
+		}
+		return end;
+	}
+
+	private void addElement(int start, int end, boolean value) {
+		if (3 * elementCount + 3 > elements.length) {
+			elements = Arrays.copyOf(elements, elements.length * 2);
+		}
+		elements[3 * elementCount] = start;
+		elements[3 * elementCount + 1] = end;
+		elements[3 * elementCount + 2] = value ? 1 : 0;
+		elementCount++;
+	}
+
+	private int tupleStart(int tuple) {
+		return tuples[3 * tuple];
+	}
+
+	private int tupleEnd(int tuple) {
+		return tuples[3 * tuple + 1];
+	}
+
+	private int elementCount(int tuple) {
+		int next = tuple + 1 < tupleCount ? tuples[3 * tuple + 5] : elementCount;
+		return next - tuples[3 * tuple + 2];
+	}
+
+	/**
+	 * @return true if there are tuples and every one has the shape of the first
+	 */
+	private boolean hasUniformRows() {
+
+		if (tupleCount == 0) {
+			return false;
+		}
+		int size = elementCount(0);
+		for (int tuple = 1; tuple < tupleCount; tuple++) {
+			if (elementCount(tuple) != size) {
+				return false;
+			}
+			for (int i = 0; i < size; i++) {
+				int first = 3 * i;
+				int other = 3 * (tuples[3 * tuple + 2] + i);
+				if (elements[first + 2] != elements[other + 2]
+						|| elements[first + 2] == 0 && !regionEquals(elements[first], elements[first + 1], elements[other], elements[other + 1])) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private boolean regionEquals(int start, int end, int otherStart, int otherEnd) {
+		if (end - start != otherEnd - otherStart) {
+			return false;
+		}
+		for (int i = 0; i < end - start; i++) {
+			if (query.charAt(start + i) != query.charAt(otherStart + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
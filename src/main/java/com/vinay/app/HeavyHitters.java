@@ -0,0 +1,223 @@
+package com.vinay.app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate top-K of the query shapes seen, with the space-saving algorithm.
+ *
+ * At most capacity shapes are counted, keyed by {@link QueryFingerprint}. When a new shape arrives
+ * and the table is full, it takes the place of the shape with the smallest count and inherits that
+ * count, remembered as the error of its entry. Any shape occurring more than total / capacity times
+ * is guaranteed to be in the table, and its count is over-estimated by at most its error. Recording is
+ * O(log capacity): the counters are kept in a min-heap.
+ *
+ * Methods are synchronized; record from many threads at once only if the contention is acceptable,
+ * e.g. on a sample of the traffic.
+ */
+public final class HeavyHitters {
+
+	/**
+	 * A tracked shape.
+	 */
+	public static final class Entry {
+
+		private final long fingerprint;
+		private final String sample;
+		private final long count;
+		private final long error;
+
+		Entry(long fingerprint, String sample, long count, long error) {
+			this.fingerprint = fingerprint;
+			this.sample = sample;
+			this.count = count;
+			this.error = error;
+		}
+
+		public long getFingerprint() {
+			return fingerprint;
+		}
+
+		/**
+		 * @return the first query recorded with this shape since it entered the table
+		 */
+		public String getSample() {
+			return sample;
+		}
+
+		/**
+		 * @return estimated number of occurrences, at least the true count
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return maximum over-estimation of the count
+		 */
+		public long getError() {
+			return error;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%016x x%d (+/-%d) %s", fingerprint, count, error, sample);
+		}
+	}
+
+	private static final class Counter {
+		long fingerprint;
+		String sample;
+		long count;
+		long error;
+		int heapIndex;
+	}
+
+	private final int capacity;
+	private final SQLParser.Engine engine;
+	private final Map<Long, Counter> counters;
+	private final Counter[] heap;	// min-heap on count
+	private int size;
+	private long total;
+
+	/**
+	 * @param capacity number of shapes tracked, a few times the K of the top-K wanted
+	 */
+	public HeavyHitters(int capacity) {
+		this(capacity, SQLParser.Engine.REGEX);
+	}
+
+	/**
+	 * @param capacity number of shapes tracked, a few times the K of the top-K wanted
+	 * @param engine engine the fingerprints of {@link #record(String)} are computed with
+	 */
+	public HeavyHitters(int capacity, SQLParser.Engine engine) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		this.capacity = capacity;
+		this.engine = engine;
+		this.counters = new HashMap<>(capacity * 2);
+		this.heap = new Counter[capacity];
+	}
+
+	/**
+	 * Fingerprints the query and counts it.
+	 *
+	 * @param query
+	 * @return the fingerprint of the query
+	 */
+	public long record(String query) {
+		long fingerprint = QueryFingerprint.fingerprint(query, engine);
+		record(fingerprint, query);
+		return fingerprint;
+	}
+
+	/**
+	 * Counts one occurrence of a shape fingerprinted by the caller.
+	 *
+	 * @param fingerprint
+	 * @param sample query kept as an example of the shape if it is new
+	 */
+	public synchronized void record(long fingerprint, String sample) {
+
+		total++;
+		Counter counter = counters.get(fingerprint);
+		if (counter == null) {
+			if (size < capacity) {
+				counter = new Counter();
+				counter.fingerprint = fingerprint;
+				counter.sample = sample;
+				counter.count = 1;
+				counters.put(fingerprint, counter);
+				heap[size] = counter;
+				siftUp(size++); // the smallest count there can be
+				return;
+			} else {
+				counter = heap[0]; // evict the smallest
+				counters.remove(counter.fingerprint);
+				counter.error = counter.count;
+			}
+			counter.fingerprint = fingerprint;
+			counter.sample = sample;
+			counters.put(fingerprint, counter);
+		}
+		counter.count++;
+		siftDown(counter.heapIndex);
+	}
+
+	/**
+	 * @param k
+	 * @return up to k shapes, by decreasing count
+	 */
+	public synchronized List<Entry> top(int k) {
+		Counter[] sorted = Arrays.copyOf(heap, size);
+		Arrays.sort(sorted, Comparator.comparingLong((Counter counter) -> counter.count).reversed());
+		List<Entry> top = new ArrayList<>(Math.min(k, size));
+		for (int i = 0; i < Math.min(k, size); i++) {
+			Counter counter = sorted[i];
+			top.add(new Entry(counter.fingerprint, counter.sample, counter.count, counter.error));
+		}
+		return top;
+	}
+
+	/**
+	 * @return number of queries recorded
+	 */
+	public synchronized long total() {
+		return total;
+	}
+
+	public synchronized void reset() {
+		counters.clear();
+		Arrays.fill(heap, null);
+		size = 0;
+		total = 0;
+	}
+
+	/**
+	 * Restores the heap order above index for a counter smaller than its parents.
+	 */
+	private void siftUp(int index) {
+		Counter counter = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (heap[parent].count <= counter.count) {
+				break;
+			}
+			heap[index] = heap[parent];
+			heap[index].heapIndex = index;
+			index = parent;
+		}
+		heap[index] = counter;
+		counter.heapIndex = index;
+	}
+
+	/**
+	 * Restores the heap order below index after its count grew.
+	 */
+	private void siftDown(int index) {
+		Counter counter = heap[index];
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+				child++;
+			}
+			if (heap[child].count >= counter.count) {
+				break;
+			}
+			heap[index] = heap[child];
+			heap[index].heapIndex = index;
+			index = child;
+		}
+		heap[index] = counter;
+		counter.heapIndex = index;
+	}
+}
@@ -0,0 +1,73 @@
+package com.vinay.app;
+
+/**
+ * How the values of a {@code column IN (...)} list are turned into placeholders.
+ *
+ * EXPAND writes one ? per value, so every list length gives a different SQL text. BUCKET pads the
+ * list to the next power of two by repeating its last value, which leaves one SQL text per bucket
+ * instead of one per length. ARRAY replaces the whole condition with {@code = ANY(?)}
+ * ({@code <> ALL(?)} for NOT IN) and binds the values as one {@link java.sql.Array}; it needs a
+ * database with array parameters, such as PostgreSQL.
+ *
+ * Lists longer than the array threshold are bound as an array whatever the mode.
+ */
+public final class InListStrategy {
+
+	public enum Mode {
+		EXPAND,	// ?, ?, ? - one placeholder per value
+		BUCKET,	// ?, ?, ?, ? - padded to a power of two
+		ARRAY	// = ANY(?)
+	}
+
+	/**
+	 * One placeholder per value, never an array. The default.
+	 */
+	public static final InListStrategy EXPAND = new InListStrategy(Mode.EXPAND, Integer.MAX_VALUE);
+
+	private final Mode mode;
+	private final int arrayThreshold;
+
+	/**
+	 * @param mode mode used for lists up to the threshold
+	 * @param arrayThreshold lists with more values than this are bound as an array
+	 */
+	public InListStrategy(Mode mode, int arrayThreshold) {
+		if (arrayThreshold < 0) {
+			throw new IllegalArgumentException("arrayThreshold must not be negative: " + arrayThreshold);
+		}
+		this.mode = mode;
+		this.arrayThreshold = arrayThreshold;
+	}
+
+	/**
+	 * @param mode mode used for every list
+	 * @return
+	 */
+	public static InListStrategy of(Mode mode) {
+		return mode == Mode.EXPAND ? EXPAND : new InListStrategy(mode, Integer.MAX_VALUE);
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public int getArrayThreshold() {
+		return arrayThreshold;
+	}
+
+	/**
+	 * @param size number of values in the list
+	 * @return the mode applied to a list of that size
+	 */
+	public Mode modeFor(int size) {
+		return size > arrayThreshold ? Mode.ARRAY : mode;
+	}
+
+	/**
+	 * @param size number of values in the list
+	 * @return number of placeholders written for the list in BUCKET mode
+	 */
+	static int bucketSize(int size) {
+		return size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+	}
+}
@@ -0,0 +1,442 @@
+package com.vinay.app;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Offsets of the literals found by a parse, recorded while scanning the query.
+ *
+ * Spans are the ranges of the original query that are replaced by placeholders: a single
+ * literal becomes ?, the contents of an IN list become ?, ?, ... Values are the ranges of
+ * the individual literals that become parameters, in parameter order.
+ *
+ * Both are appended in ascending offset order, which lets {@link #rewrite(CharSequence)}
+ * build the parameterized query in one pass into a buffer of the exact final size.
+ *
+ * IN lists are recorded with {@link #addList(int, int, int, int, int, boolean)}, which applies the
+ * InListStrategy: lists bound as an array become a single = ANY(?) span, and their values are
+ * marked so that they are decoded into one parameter.
+ */
+final class LiteralRanges {
+
+	// Placeholder counts standing for array conditions
+
+	private static final int ANY_ARRAY = -1;	// = ANY(?)
+	private static final int ALL_ARRAY = -2;	// <> ALL(?)
+
+	private int[] spans = new int[3 * 8];	// start, end, placeholder count
+	private int spanCount;
+
+	private int[] values = new int[2 * 8];	// start, end
+	private int valueCount;
+
+	private int[] arrays;	// first value, value count
+	private int arrayCount;
+
+	private int[] columns;	// start, end of the column each value is compared with, -1 if unknown
+
+	private final InListStrategy inLists;
+	private final SqlDialect dialect;
+
+	LiteralRanges() {
+		this(InListStrategy.EXPAND);
+	}
+
+	/**
+	 * @param inLists strategy applied by {@link #addList(int, int, int, int, int, boolean)}
+	 */
+	LiteralRanges(InListStrategy inLists) {
+		this(inLists, SqlDialect.ANSI);
+	}
+
+	/**
+	 * @param inLists strategy applied by {@link #addList(int, int, int, int, int, boolean)}
+	 * @param dialect dialect the literals are written in, for decoding them
+	 */
+	LiteralRanges(InListStrategy inLists, SqlDialect dialect) {
+		this.inLists = inLists;
+		this.dialect = dialect;
+	}
+
+	SqlDialect dialect() {
+		return dialect;
+	}
+
+	/**
+	 * Records a literal that is both a parameter and replaced by a single ?.
+	 */
+	void addLiteral(int start, int end) {
+		addSpan(start, end, 1);
+		addValue(start, end);
+	}
+
+	/**
+	 * Records a range to be replaced by placeholderCount comma separated placeholders.
+	 */
+	void addSpan(int start, int end, int placeholderCount) {
+		if (3 * spanCount + 3 > spans.length) {
+			spans = Arrays.copyOf(spans, spans.length * 2);
+		}
+		spans[3 * spanCount] = start;
+		spans[3 * spanCount + 1] = end;
+		spans[3 * spanCount + 2] = placeholderCount;
+		spanCount++;
+	}
+
+	/**
+	 * Records an IN list whose values were added from firstValue on, as the strategy says.
+	 *
+	 * @param conditionStart start of IN, or of NOT in NOT IN
+	 * @param listStart first character inside the parentheses
+	 * @param listEnd the closing parenthesis
+	 * @param conditionEnd end of the closing parenthesis
+	 * @param firstValue index of the first value of the list
+	 * @param negated whether the condition is NOT IN
+	 */
+	void addList(int conditionStart, int listStart, int listEnd, int conditionEnd, int firstValue, boolean negated) {
+
+		int size = valueCount - firstValue;
+		switch (inLists.modeFor(size)) {
+		case ARRAY:
+			addSpan(conditionStart, conditionEnd, negated ? ALL_ARRAY : ANY_ARRAY);
+			addArray(firstValue, size);
+			break;
+		case BUCKET:
+			int bucketSize = InListStrategy.bucketSize(size);
+			addSpan(listStart, listEnd, bucketSize);
+			int lastStart = valueStart(valueCount - 1);
+			int lastEnd = valueEnd(valueCount - 1);
+			for (int i = size; i < bucketSize; i++) {
+				addValue(lastStart, lastEnd);
+			}
+			break;
+		default:
+			addSpan(listStart, listEnd, size);
+		}
+	}
+
+	private void addArray(int firstValue, int size) {
+		if (arrays == null) {
+			arrays = new int[2 * 4];
+		} else if (2 * arrayCount + 2 > arrays.length) {
+			arrays = Arrays.copyOf(arrays, arrays.length * 2);
+		}
+		arrays[2 * arrayCount] = firstValue;
+		arrays[2 * arrayCount + 1] = size;
+		arrayCount++;
+	}
+
+	/**
+	 * Records the range of a literal whose value is a parameter.
+	 */
+	void addValue(int start, int end) {
+		if (2 * valueCount + 2 > values.length) {
+			values = Arrays.copyOf(values, values.length * 2);
+		}
+		values[2 * valueCount] = start;
+		values[2 * valueCount + 1] = end;
+		valueCount++;
+	}
+
+	/**
+	 * Records the column compared with the values added from firstValue on.
+	 */
+	void setColumn(int firstValue, int start, int end) {
+		if (columns == null || columns.length < 2 * valueCount) {
+			int oldLength = columns == null ? 0 : columns.length;
+			columns = Arrays.copyOf(columns == null ? new int[0] : columns, Math.max(2 * valueCount, 2 * 8));
+			Arrays.fill(columns, oldLength, columns.length, -1);
+		}
+		for (int i = firstValue; i < valueCount; i++) {
+			columns[2 * i] = start;
+			columns[2 * i + 1] = end;
+		}
+	}
+
+	boolean hasColumns() {
+		return columns != null;
+	}
+
+	/**
+	 * @return start of the column of the value, -1 if unknown
+	 */
+	int columnStart(int index) {
+		return columns != null && 2 * index < columns.length ? columns[2 * index] : -1;
+	}
+
+	int columnEnd(int index) {
+		return columns != null && 2 * index < columns.length ? columns[2 * index + 1] : -1;
+	}
+
+	/**
+	 * @return index of the first value of the parameter, arrays counting as one parameter
+	 */
+	int valueOfParameter(int parameter) {
+		int value = parameter;
+		for (int i = 0; i < arrayCount && arrays[2 * i] < value; i++) {
+			value += arrays[2 * i + 1] - 1;
+		}
+		return value;
+	}
+
+	/**
+	 * Drops values recorded after the first count, used when lookahead turns out not to be a condition.
+	 */
+	void truncateValues(int count) {
+		valueCount = count;
+	}
+
+	int spanCount() {
+		return spanCount;
+	}
+
+	int spanStart(int index) {
+		return spans[3 * index];
+	}
+
+	int spanEnd(int index) {
+		return spans[3 * index + 1];
+	}
+
+	/**
+	 * @return number of placeholders the span is replaced by; negative for array conditions
+	 */
+	int spanPlaceholders(int index) {
+		return spans[3 * index + 2];
+	}
+
+	int valueCount() {
+		return valueCount;
+	}
+
+	int valueStart(int index) {
+		return values[2 * index];
+	}
+
+	int valueEnd(int index) {
+		return values[2 * index + 1];
+	}
+
+	/**
+	 * @return number of IN lists bound as an array
+	 */
+	int arrayCount() {
+		return arrayCount;
+	}
+
+	/**
+	 * @return index of the first value of the array
+	 */
+	int arrayStart(int index) {
+		return arrays[2 * index];
+	}
+
+	int arrayLength(int index) {
+		return arrays[2 * index + 1];
+	}
+
+	/**
+	 * @return index of the first value starting at or after the offset, valueCount() if there is none
+	 */
+	int firstValueAt(int offset) {
+		int low = 0;
+		int high = valueCount;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (values[2 * middle] < offset) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return number of parameters the values decode into: an array counts once
+	 */
+	int parameterCount() {
+		int count = valueCount;
+		for (int i = 0; i < arrayCount; i++) {
+			count -= arrays[2 * i + 1] - 1;
+		}
+		return count;
+	}
+
+	/**
+	 * Copies the query with every span replaced by its placeholders.
+	 *
+	 * @param query the query the offsets were recorded against
+	 * @return the parameterized query
+	 */
+	String rewrite(CharSequence query) {
+
+		if (spanCount == 0) {
+			return query.toString();
+		}
+		StringBuilder parameterizedQuery = new StringBuilder(rewrittenLength(query));
+		appendRewritten(query, parameterizedQuery);
+		return parameterizedQuery.toString();
+	}
+
+	/**
+	 * @return length of the parameterized query {@link #rewrite(CharSequence)} returns
+	 */
+	int rewrittenLength(CharSequence query) {
+		int length = query.length();
+		for (int i = 0; i < spanCount; i++) {
+			length += placeholderLength(spans[3 * i + 2]) - (spans[3 * i + 1] - spans[3 * i]);
+		}
+		return length;
+	}
+
+	/**
+	 * Writes what {@link #rewrite(CharSequence)} returns, without building it first.
+	 */
+	void appendRewritten(CharSequence query, StringBuilder out) {
+		try {
+			appendRewritten(query, (Appendable) out);
+		} catch (IOException e) {
+			throw new AssertionError("StringBuilder does not throw IOException", e);
+		}
+	}
+
+	/**
+	 * Writes what {@link #rewrite(CharSequence)} returns, without building it first.
+	 */
+	void appendRewritten(CharSequence query, Appendable out) throws IOException {
+		appendRewritten(query, 0, query.length(), out);
+	}
+
+	/**
+	 * Writes query[from, to) with the spans inside it replaced by their placeholders.
+	 * No span may cross from or to.
+	 */
+	void appendRewritten(CharSequence query, int from, int to, StringBuilder out) {
+		try {
+			appendRewritten(query, from, to, (Appendable) out);
+		} catch (IOException e) {
+			throw new AssertionError("StringBuilder does not throw IOException", e);
+		}
+	}
+
+	private void appendRewritten(CharSequence query, int from, int to, Appendable out) throws IOException {
+
+		int copied = from;
+		for (int i = 0; i < spanCount && spans[3 * i] < to; i++) {
+			if (spans[3 * i] < from) {
+				continue;
+			}
+			out.append(query, copied, spans[3 * i]);
+			int placeholderCount = spans[3 * i + 2];
+			if (placeholderCount == ANY_ARRAY) {
+				out.append("= ANY(?)");
+			} else if (placeholderCount == ALL_ARRAY) {
+				out.append("<> ALL(?)");
+			} else if (placeholderCount > 0) {
+				out.append('?');
+				for (int p = 1; p < placeholderCount; p++) {
+					out.append(", ?");
+				}
+			}
+			copied = spans[3 * i + 1];
+		}
+		out.append(query, copied, to);
+	}
+
+	/**
+	 * Combines the spans of both in offset order, with their values, arrays and columns. A span of
+	 * other that overlaps one of this is dropped, this being the more specific of the two parses.
+	 *
+	 * @param other ranges recorded against the same query
+	 * @return
+	 */
+	LiteralRanges mergedWith(LiteralRanges other) {
+
+		if (other.spanCount == 0) {
+			return this;
+		}
+		if (spanCount == 0) {
+			return other;
+		}
+		LiteralRanges merged = new LiteralRanges(inLists, dialect);
+		Cursor mine = new Cursor(this);
+		Cursor theirs = new Cursor(other);
+		while (mine.hasSpan() || theirs.hasSpan()) {
+			if (!theirs.hasSpan() || mine.hasSpan() && mine.start() <= theirs.start()) {
+				int end = mine.end();
+				mine.advance(merged);
+				while (theirs.hasSpan() && theirs.start() < end) {
+					theirs.advance(null);
+				}
+			} else if (mine.hasSpan() && theirs.end() > mine.start()) {
+				theirs.advance(null);
+			} else {
+				theirs.advance(merged);
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Walks the spans of a LiteralRanges together with the values and arrays each one stands for.
+	 */
+	private static final class Cursor {
+
+		private final LiteralRanges ranges;
+		private int span;
+		private int value;
+		private int array;
+
+		Cursor(LiteralRanges ranges) {
+			this.ranges = ranges;
+		}
+
+		boolean hasSpan() {
+			return span < ranges.spanCount;
+		}
+
+		int start() {
+			return ranges.spanStart(span);
+		}
+
+		int end() {
+			return ranges.spanEnd(span);
+		}
+
+		/**
+		 * Moves past the current span, copying it into out unless out is null.
+		 */
+		void advance(LiteralRanges out) {
+			int placeholders = ranges.spanPlaceholders(span);
+			int count = placeholders >= 0 ? placeholders : ranges.arrayLength(array++);
+			if (out != null) {
+				out.addSpan(start(), end(), placeholders);
+				if (placeholders < 0) {
+					out.addArray(out.valueCount, count);
+				}
+				for (int i = value; i < value + count; i++) {
+					out.addValue(ranges.valueStart(i), ranges.valueEnd(i));
+					if (ranges.columnStart(i) != -1) {
+						out.setColumn(out.valueCount - 1, ranges.columnStart(i), ranges.columnEnd(i));
+					}
+				}
+			}
+			value += count;
+			span++;
+		}
+	}
+
+	private static int placeholderLength(int placeholderCount) {
+		switch (placeholderCount) {
+		case ANY_ARRAY:
+			return "= ANY(?)".length();
+		case ALL_ARRAY:
+			return "<> ALL(?)".length();
+		case 0:
+			return 0;
+		default:
+			return 3 * placeholderCount - 2;
+		}
+	}
+}
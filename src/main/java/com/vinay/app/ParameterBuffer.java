@@ -0,0 +1,486 @@
+package com.vinay.app;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Parameters of a parsed query, stored by type instead of as boxed objects.
+ *
+ * Every parameter has a type tag. Numbers and booleans are kept in a long[] or double[] column,
+ * strings and anything else in a reference column; a column is only allocated once a parameter of its type
+ * is added, so a list of integers costs one byte[] and one long[].
+ *
+ * {@link #asList()} is a read-only List view boxing the values on access, for callers of
+ * {@link SQLParser.ParsedQuery#getParameters()}.
+ */
+public final class ParameterBuffer {
+
+	/**
+	 * Type tag of a parameter.
+	 */
+	public enum Type {
+		STRING,		// getString
+		INTEGER,	// getInt
+		LONG,		// getLong, integers outside the int range
+		DOUBLE,		// getDouble
+		DECIMAL,	// getDecimal, decimals a double cannot hold exactly
+		BOOLEAN,	// getBoolean
+		NULL,
+		OBJECT,		// getObject, any other value
+		ARRAY		// getArray, an IN list bound as one array
+	}
+
+	private static final int MAX_EXACT_DOUBLE_DIGITS = 15;	// significant digits that survive a round trip through double
+	private static final BigDecimal LONG_MIN = BigDecimal.valueOf(Long.MIN_VALUE);
+	private static final BigDecimal LONG_MAX = BigDecimal.valueOf(Long.MAX_VALUE);
+
+	private static final Type[] TYPES = Type.values();
+
+	private byte[] types;
+	private long[] longs;
+	private double[] doubles;
+	private Object[] objects;
+	private int size;
+
+	public ParameterBuffer() {
+		this(8);
+	}
+
+	/**
+	 * @param expectedSize number of parameters to reserve room for
+	 */
+	public ParameterBuffer(int expectedSize) {
+		types = new byte[Math.max(expectedSize, 1)];
+	}
+
+	/**
+	 * Copies boxed parameters, tagging each one by its class.
+	 *
+	 * @param parameters
+	 * @return
+	 */
+	public static ParameterBuffer of(List<Object> parameters) {
+		ParameterBuffer buffer = new ParameterBuffer(parameters.size());
+		for (Object parameter : parameters) {
+			buffer.add(parameter);
+		}
+		return buffer;
+	}
+
+	public void addString(String value) {
+		objectColumn()[size] = value;
+		types[size++] = (byte) Type.STRING.ordinal();
+	}
+
+	public void addInt(int value) {
+		longColumn()[size] = value;
+		types[size++] = (byte) Type.INTEGER.ordinal();
+	}
+
+	public void addLong(long value) {
+		longColumn()[size] = value;
+		types[size++] = (byte) Type.LONG.ordinal();
+	}
+
+	public void addBoolean(boolean value) {
+		longColumn()[size] = value ? 1 : 0;
+		types[size++] = (byte) Type.BOOLEAN.ordinal();
+	}
+
+	public void addDecimal(BigDecimal value) {
+		objectColumn()[size] = value;
+		types[size++] = (byte) Type.DECIMAL.ordinal();
+	}
+
+	public void addNull() {
+		ensureTypeCapacity();
+		types[size++] = (byte) Type.NULL.ordinal();
+	}
+
+	public void addDouble(double value) {
+		doubleColumn()[size] = value;
+		types[size++] = (byte) Type.DOUBLE.ordinal();
+	}
+
+	public void addArray(ArrayParameter value) {
+		objectColumn()[size] = value;
+		types[size++] = (byte) Type.ARRAY.ordinal();
+	}
+
+	/**
+	 * Adds a boxed value under the tag of its class: String, Integer, Long, Double, BigDecimal, Boolean,
+	 * null and ArrayParameter get their own tag, any other value is an OBJECT.
+	 *
+	 * @param value
+	 */
+	public void add(Object value) {
+		if (value instanceof String) {
+			addString((String) value);
+		} else if (value instanceof Integer) {
+			addInt((Integer) value);
+		} else if (value instanceof Long) {
+			addLong((Long) value);
+		} else if (value instanceof Double) {
+			addDouble((Double) value);
+		} else if (value instanceof BigDecimal) {
+			addDecimal((BigDecimal) value);
+		} else if (value instanceof Boolean) {
+			addBoolean((Boolean) value);
+		} else if (value == null) {
+			addNull();
+		} else if (value instanceof ArrayParameter) {
+			addArray((ArrayParameter) value);
+		} else {
+			objectColumn()[size] = value;
+			types[size++] = (byte) Type.OBJECT.ordinal();
+		}
+	}
+
+	/**
+	 * Decodes the SQL literal query[start, end) and adds it, classifying and converting in one pass:
+	 * <ul>
+	 * <li>'quoted' is a STRING with the quotes stripped and '' unescaped</li>
+	 * <li>an optionally negative integer is an INTEGER, a LONG beyond the int range and a DECIMAL beyond the long range</li>
+	 * <li>a number with a fraction is a DOUBLE with up to 15 significant digits, which a double holds exactly,
+	 * and a DECIMAL with more</li>
+	 * <li>a number with an exponent (1.5e3) is a DOUBLE</li>
+	 * <li>NULL, TRUE and FALSE, in any case, are NULL and BOOLEAN</li>
+	 * <li>anything else is kept as a STRING, unchanged</li>
+	 * </ul>
+	 * Integers of up to 18 digits are decoded without boxing or substrings.
+	 *
+	 * @param query
+	 * @param start
+	 * @param end
+	 */
+	public void addLiteral(CharSequence query, int start, int end) {
+
+		int length = end - start;
+		if (length >= 2 && query.charAt(start) == '\'' && query.charAt(end - 1) == '\'') {
+			addString(unquote(query, start + 1, end - 1));
+			return;
+		}
+
+		int i = start < end && query.charAt(start) == '-' ? start + 1 : start;
+		int integerStart = i;
+		long value = 0;
+		for (; i < end && SQLLexer.isDigit(query.charAt(i)); i++) {
+			value = value * 10 + (query.charAt(i) - '0'); // exact up to 18 digits
+		}
+		int integerEnd = i;
+		boolean number = integerEnd > integerStart;
+		boolean fraction = false;
+		boolean exponent = false;
+
+		if (number && i < end && query.charAt(i) == '.') {
+			i = skipDigits(query, i + 1, end);
+			fraction = true;
+			number = i > integerEnd + 1;
+		}
+		if (number && i < end && (query.charAt(i) == 'e' || query.charAt(i) == 'E')) {
+			int exponentStart = i + 1 < end && (query.charAt(i + 1) == '-' || query.charAt(i + 1) == '+') ? i + 2 : i + 1;
+			i = skipDigits(query, exponentStart, end);
+			exponent = true;
+			number = i > exponentStart;
+		}
+
+		if (!number || i != end) {
+			addWord(query, start, end);
+		} else if (exponent) {
+			addDouble(Double.parseDouble(query.subSequence(start, end).toString()));
+		} else if (fraction) {
+			String text = query.subSequence(start, end).toString();
+			if (significantDigits(query, integerStart, end) <= MAX_EXACT_DOUBLE_DIGITS) {
+				addDouble(Double.parseDouble(text));
+			} else {
+				addDecimal(new BigDecimal(text));
+			}
+		} else if (integerEnd - integerStart <= 18) {
+			value = integerStart > start ? -value : value;
+			if (value == (int) value) {
+				addInt((int) value);
+			} else {
+				addLong(value);
+			}
+		} else {
+			BigDecimal decimal = new BigDecimal(query.subSequence(start, end).toString());
+			if (decimal.compareTo(LONG_MIN) >= 0 && decimal.compareTo(LONG_MAX) <= 0) {
+				addLong(decimal.longValue());
+			} else {
+				addDecimal(decimal);
+			}
+		}
+	}
+
+	/**
+	 * Same as {@link #addLiteral(CharSequence, int, int)} for a literal written in the dialect:
+	 * N'...' and E'...' prefixes are dropped, backslash escapes are decoded where the dialect has them,
+	 * and $$dollar quoted$$ strings are taken as they are.
+	 *
+	 * @param query
+	 * @param start
+	 * @param end
+	 * @param dialect
+	 */
+	public void addLiteral(CharSequence query, int start, int end, SqlDialect dialect) {
+
+		if (dialect == SqlDialect.ANSI || end - start < 2) {
+			addLiteral(query, start, end);
+			return;
+		}
+
+		char first = query.charAt(start);
+		byte charClass = dialect.classOf(first);
+		if (charClass == SqlDialect.STRING_PREFIX && query.charAt(start + 1) == '\'') {
+			addQuoted(query, start + 1, end, dialect.backslashEscapes(first));
+		} else if (charClass == SqlDialect.QUOTE) {
+			addQuoted(query, start, end, dialect.backslashEscapes(first));
+		} else if (charClass == SqlDialect.DOLLAR && query.charAt(end - 1) == '$') {
+			int tagLength = 1;
+			while (query.charAt(start + tagLength) != '$') {
+				tagLength++;
+			}
+			tagLength++;
+			addString(query.subSequence(start + tagLength, Math.max(end - tagLength, start + tagLength)).toString());
+		} else {
+			addLiteral(query, start, end);
+		}
+	}
+
+	private void addQuoted(CharSequence query, int start, int end, boolean backslashEscapes) {
+		if (!backslashEscapes) {
+			addLiteral(query, start, end);
+		} else if (end - start >= 2 && query.charAt(end - 1) == '\'') {
+			addString(unescape(query, start + 1, end - 1));
+		} else {
+			addString(query.subSequence(start, end).toString());
+		}
+	}
+
+	/**
+	 * Decodes '' and backslash escapes: \n, \r, \t, \b, \f, \0 and \Z are control characters,
+	 * \% and \_ keep their backslash for LIKE, and any other escaped character stands for itself.
+	 */
+	private static String unescape(CharSequence query, int start, int end) {
+		StringBuilder value = new StringBuilder(end - start);
+		for (int i = start; i < end; i++) {
+			char c = query.charAt(i);
+			if (c == '\'' && i + 1 < end && query.charAt(i + 1) == '\'') {
+				i++;
+			} else if (c == '\\' && i + 1 < end) {
+				c = query.charAt(++i);
+				switch (c) {
+				case 'n':
+					c = '\n';
+					break;
+				case 'r':
+					c = '\r';
+					break;
+				case 't':
+					c = '\t';
+					break;
+				case 'b':
+					c = '\b';
+					break;
+				case 'f':
+					c = '\f';
+					break;
+				case '0':
+					c = '\0';
+					break;
+				case 'Z':
+					c = '\u001a';
+					break;
+				case '%':
+				case '_':
+					value.append('\\');
+					break;
+				default:
+					break;
+				}
+			}
+			value.append(c);
+		}
+		return value.toString();
+	}
+
+	/**
+	 * NULL, TRUE, FALSE or text that is not a literal.
+	 */
+	private void addWord(CharSequence query, int start, int end) {
+		if (SQLLexer.isKeyword(query, start, end, "NULL")) {
+			addNull();
+		} else if (SQLLexer.isKeyword(query, start, end, "TRUE")) {
+			addBoolean(true);
+		} else if (SQLLexer.isKeyword(query, start, end, "FALSE")) {
+			addBoolean(false);
+		} else {
+			addString(query.subSequence(start, end).toString()); // In case of unsupported types
+		}
+	}
+
+	private static String unquote(CharSequence query, int start, int end) {
+		StringBuilder value = null;
+		for (int i = start; i < end; i++) {
+			if (query.charAt(i) == '\'' && i + 1 < end && query.charAt(i + 1) == '\'') {
+				if (value == null) {
+					value = new StringBuilder(end - start).append(query, start, i);
+				}
+				value.append('\'');
+				i++;
+			} else if (value != null) {
+				value.append(query.charAt(i));
+			}
+		}
+		return value != null ? value.toString() : query.subSequence(start, end).toString();
+	}
+
+	private static int skipDigits(CharSequence query, int i, int end) {
+		while (i < end && SQLLexer.isDigit(query.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Digits from the first non-zero one to the end, skipping the decimal point.
+	 */
+	private static int significantDigits(CharSequence query, int start, int end) {
+		int count = 0;
+		for (int i = start; i < end; i++) {
+			char c = query.charAt(i);
+			if (c != '.' && (count > 0 || c != '0')) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Type type(int index) {
+		checkIndex(index);
+		return TYPES[types[index]];
+	}
+
+	public int getInt(int index) {
+		return (int) longs[index];
+	}
+
+	public long getLong(int index) {
+		return longs[index];
+	}
+
+	public boolean getBoolean(int index) {
+		return longs[index] != 0;
+	}
+
+	public BigDecimal getDecimal(int index) {
+		return (BigDecimal) objects[index];
+	}
+
+	public double getDouble(int index) {
+		return doubles[index];
+	}
+
+	public String getString(int index) {
+		return (String) objects[index];
+	}
+
+	public Object getObject(int index) {
+		return objects[index];
+	}
+
+	public ArrayParameter getArray(int index) {
+		return (ArrayParameter) objects[index];
+	}
+
+	/**
+	 * @return the parameter boxed, the way it appears in {@link #asList()}
+	 */
+	public Object get(int index) {
+		switch (type(index)) {
+		case INTEGER:
+			return getInt(index);
+		case LONG:
+			return getLong(index);
+		case DOUBLE:
+			return getDouble(index);
+		case BOOLEAN:
+			return getBoolean(index);
+		case NULL:
+			return null;
+		default:
+			return objects[index];
+		}
+	}
+
+	/**
+	 * @return read-only view of the parameters, boxing each value when it is read
+	 */
+	public List<Object> asList() {
+		return new ListView();
+	}
+
+	private final class ListView extends AbstractList<Object> implements RandomAccess {
+
+		@Override
+		public Object get(int index) {
+			return ParameterBuffer.this.get(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+		}
+	}
+
+	// Column accessors make room for one more parameter
+
+	private long[] longColumn() {
+		ensureTypeCapacity();
+		if (longs == null) {
+			longs = new long[types.length];
+		} else if (longs.length < types.length) {
+			longs = Arrays.copyOf(longs, types.length);
+		}
+		return longs;
+	}
+
+	private double[] doubleColumn() {
+		ensureTypeCapacity();
+		if (doubles == null) {
+			doubles = new double[types.length];
+		} else if (doubles.length < types.length) {
+			doubles = Arrays.copyOf(doubles, types.length);
+		}
+		return doubles;
+	}
+
+	private Object[] objectColumn() {
+		ensureTypeCapacity();
+		if (objects == null) {
+			objects = new Object[types.length];
+		} else if (objects.length < types.length) {
+			objects = Arrays.copyOf(objects, types.length);
+		}
+		return objects;
+	}
+
+	private void ensureTypeCapacity() {
+		if (size == types.length) {
+			types = Arrays.copyOf(types, types.length * 2);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.vinay.app;
+
+/**
+ * Instrumentation hooks called by SQLParser, QueryCache and the statement binding methods.
+ *
+ * Every method has an empty default, so an implementation only overrides what it records.
+ * {@link #NOOP} is installed until {@link SQLParser#setMetrics(ParserMetrics)} is called; while it
+ * is installed the parser skips the extra work some measurements need (timing, counting literals).
+ * Implementations are called from all parsing threads and must be thread-safe.
+ *
+ * {@link DefaultParserMetrics} is the built-in implementation.
+ */
+public interface ParserMetrics {
+
+	/**
+	 * Kinds of conditions the parser parameterizes.
+	 */
+	enum Condition {
+		COMPARISON,	// =, <, >, <=, >=, !=
+		IN,
+		BETWEEN
+	}
+
+	ParserMetrics NOOP = new ParserMetrics() {
+	};
+
+	/**
+	 * A query was parsed.
+	 *
+	 * @param nanos time spent parsing
+	 * @param parameterCount number of parameters extracted
+	 */
+	default void parsed(long nanos, int parameterCount) {
+	}
+
+	/**
+	 * The parameters of a PreparedStatement were set.
+	 *
+	 * @param nanos time spent setting the parameters; preparing the statement (or taking it from a cache) is not included
+	 * @param parameterCount number of parameters bound
+	 */
+	default void bound(long nanos, int parameterCount) {
+	}
+
+	/**
+	 * A condition was recognized and parameterized by a parse. Not reported for queries QueryCache
+	 * serves from its cache, since those are not matched again, nor for fingerprints and predicate trees.
+	 *
+	 * @param condition
+	 */
+	default void condition(Condition condition) {
+	}
+
+	/**
+	 * An IN list was parameterized.
+	 *
+	 * @param size number of values in the list
+	 */
+	default void inList(int size) {
+	}
+
+	/**
+	 * QueryCache served a query from its cache.
+	 */
+	default void cacheHit() {
+	}
+
+	/**
+	 * QueryCache had to parse a query.
+	 */
+	default void cacheMiss() {
+	}
+
+	/**
+	 * A parsed query still contains literals that were not parameterized.
+	 *
+	 * @param count number of such literals
+	 */
+	default void unmatchedLiterals(int count) {
+	}
+}
@@ -0,0 +1,57 @@
+package com.vinay.app;
+
+/**
+ * JMX view of {@link DefaultParserMetrics}. Latencies are in nanoseconds; percentiles are the
+ * upper bound of the histogram bucket they fall in.
+ */
+public interface ParserMetricsMXBean {
+
+	long getParseCount();
+
+	double getParseLatencyMeanNanos();
+
+	long getParseLatencyP50Nanos();
+
+	long getParseLatencyP99Nanos();
+
+	long getParseLatencyMaxNanos();
+
+	long getBindCount();
+
+	double getBindLatencyMeanNanos();
+
+	long getBindLatencyP50Nanos();
+
+	long getBindLatencyP99Nanos();
+
+	long getBindLatencyMaxNanos();
+
+	double getParameterCountMean();
+
+	long getParameterCountP99();
+
+	long getParameterCountMax();
+
+	long getComparisonConditionCount();
+
+	long getInConditionCount();
+
+	long getBetweenConditionCount();
+
+	double getInListSizeMean();
+
+	long getInListSizeP99();
+
+	long getInListSizeMax();
+
+	long getCacheHitCount();
+
+	long getCacheMissCount();
+
+	long getUnmatchedLiteralCount();
+
+	/**
+	 * Clears every counter and histogram.
+	 */
+	void reset();
+}
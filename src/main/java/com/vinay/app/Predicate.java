@@ -0,0 +1,116 @@
+package com.vinay.app;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Node of the predicate tree built by {@link WhereParser}.
+ *
+ * AND and OR nodes hold their operands as children, flattened so that a chain of ANDs is one node;
+ * NOT has one child. Every other kind is a leaf covering one condition of the query text, with the
+ * range of parameters its literals became.
+ */
+public final class Predicate {
+
+	public enum Kind {
+		AND,
+		OR,
+		NOT,
+		COMPARISON,	// a op b
+		IN,			// a [NOT] IN (...)
+		BETWEEN,	// a [NOT] BETWEEN b AND c
+		LIKE,		// a [NOT] LIKE | ILIKE b [ESCAPE c]
+		IS,			// a IS [NOT] NULL | TRUE | FALSE | DISTINCT FROM b
+		EXPRESSION	// anything else evaluating to a boolean, e.g. a column, EXISTS (...) or a function call
+	}
+
+	private final Kind kind;
+	private final boolean negated;
+	private final CharSequence query;
+	private final int start;
+	private final int end;
+	private final int firstParameter;
+	private final int parameterCount;
+	private final List<Predicate> children;
+
+	Predicate(Kind kind, boolean negated, CharSequence query, int start, int end, int firstParameter, int parameterCount,
+			List<Predicate> children) {
+		this.kind = kind;
+		this.negated = negated;
+		this.query = query;
+		this.start = start;
+		this.end = end;
+		this.firstParameter = firstParameter;
+		this.parameterCount = parameterCount;
+		this.children = children;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * @return true for NOT IN, NOT BETWEEN, NOT LIKE and IS NOT
+	 */
+	public boolean isNegated() {
+		return negated;
+	}
+
+	/**
+	 * @return operands of AND, OR and NOT; empty for leaves
+	 */
+	public List<Predicate> getChildren() {
+		return children;
+	}
+
+	/**
+	 * @return the original query text the predicate was parsed from
+	 */
+	public String getText() {
+		return query.subSequence(start, end).toString();
+	}
+
+	public int getStart() {
+		return start;
+	}
+
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * @return index of the first parameter in the predicate, in the order of
+	 *         {@link SQLParser#parseSQLQuery(String, SQLParser.Engine)} with {@link SQLParser.Engine#TREE}
+	 */
+	public int getFirstParameter() {
+		return firstParameter;
+	}
+
+	/**
+	 * @return number of parameters the literals of the predicate became
+	 */
+	public int getParameterCount() {
+		return parameterCount;
+	}
+
+	static Predicate leaf(Kind kind, boolean negated, CharSequence query, int start, int end, int firstParameter, int parameterCount) {
+		return new Predicate(kind, negated, query, start, end, firstParameter, parameterCount, Collections.emptyList());
+	}
+
+	@Override
+	public String toString() {
+		switch (kind) {
+		case AND:
+		case OR:
+			StringBuilder text = new StringBuilder("(");
+			for (Predicate child : children) {
+				text.append(text.length() > 1 ? " " + kind + " " : "").append(child);
+			}
+			return text.append(')').toString();
+		case NOT:
+			return "NOT " + children.get(0);
+		default:
+			return kind + "[" + getText() + "]";
+		}
+	}
+}
@@ -0,0 +1,419 @@
+package com.vinay.app;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.vinay.app.SQLLexer.Token;
+import com.vinay.app.SQLParser.Engine;
+import com.vinay.app.SQLParser.ParsedQuery;
+
+/**
+ * Bounded, thread-safe cache in front of {@link SQLParser#parseSQLQuery(String, Engine)}.
+ *
+ * Queries that differ only in their literal values share a shape: the query text with every
+ * value (string and numeric literals, NULL, TRUE, FALSE) replaced by a marker for its kind. For each shape the cache keeps
+ * the parameterized query and which of the literals are its parameters. On a hit only those
+ * literals are decoded; the condition matching and the rewrite are skipped.
+ *
+ * Literals that are not parameters (aliases, LIMIT values, ...) are remembered with the shape and
+ * must match for a hit. Shapes where a parameter is not a whole literal token are never served
+ * from the cache.
+ *
+ * Entries are evicted least recently used first. The cache is split in segments, each guarded by
+ * its own lock, so that concurrent callers rarely wait on each other.
+ *
+ * The cached shapes can be saved to a file with {@link #save(Path)} and loaded at startup with
+ * {@link #load(Path)}, so that a new process starts warm.
+ */
+public class QueryCache {
+
+	// Marker characters standing in for literals in a shape key
+
+	private static final char PLAIN_STRING = '\u0001';
+	private static final char OTHER_STRING = '\u0002';	// contains ' , or ), which the regex cuts differently
+	private static final char INTEGER = '\u0003';
+	private static final char DECIMAL = '\u0004';
+	private static final char KEYWORD = '\u0005';	// NULL, TRUE or FALSE
+
+	private static final int MAX_SEGMENTS = 16;
+
+	/**
+	 * What is cached per shape.
+	 */
+	static final class Template {
+
+		static final Template UNCACHEABLE = new Template(null, null, null, 0, null);
+
+		final String parameterizedQuery;
+		final int[] parameterLiterals;	// index of the literal behind each parameter
+		final String[] fixedLiterals;	// text of every literal that is not a parameter, null for parameters
+		final int unmatchedLiterals;	// fixed literals other than NULL, TRUE and FALSE, for ParserMetrics
+		final ColumnNames columns;		// column of each parameter, null if none is known
+
+		Template(String parameterizedQuery, int[] parameterLiterals, String[] fixedLiterals, int unmatchedLiterals,
+				ColumnNames columns) {
+			this.parameterizedQuery = parameterizedQuery;
+			this.parameterLiterals = parameterLiterals;
+			this.fixedLiterals = fixedLiterals;
+			this.unmatchedLiterals = unmatchedLiterals;
+			this.columns = columns;
+		}
+	}
+
+	/**
+	 * Access ordered map dropping its eldest entry when full.
+	 */
+	private final class Segment extends LinkedHashMap<String, Template> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+
+		Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+			if (size() > capacity) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private final Engine engine;
+	private final InListStrategy inLists;
+	private final Segment[] segments;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param maximumSize maximum number of query shapes kept
+	 */
+	public QueryCache(int maximumSize) {
+		this(maximumSize, Engine.REGEX);
+	}
+
+	/**
+	 * @param maximumSize maximum number of query shapes kept
+	 * @param engine engine used to parse queries whose shape is not cached
+	 */
+	public QueryCache(int maximumSize, Engine engine) {
+		this(maximumSize, engine, InListStrategy.EXPAND);
+	}
+
+	/**
+	 * @param maximumSize maximum number of query shapes kept
+	 * @param engine engine used to parse queries whose shape is not cached
+	 * @param inLists how IN lists are written; shapes with a list bound as an array are not cached
+	 */
+	public QueryCache(int maximumSize, Engine engine, InListStrategy inLists) {
+
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+		}
+		this.engine = engine;
+		this.inLists = inLists;
+
+		int segmentCount = 1;
+		while (segmentCount < MAX_SEGMENTS && segmentCount * 2 * 8 <= maximumSize) {
+			segmentCount *= 2; // keep at least 8 entries per segment
+		}
+		segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			segments[i] = new Segment(maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0));
+		}
+	}
+
+	/**
+	 * Same result as {@link SQLParser#parseSQLQuery(String, Engine)}, served from the cache
+	 * when a query of the same shape was parsed before.
+	 *
+	 * @param query
+	 * @return
+	 */
+	public ParsedQuery parse(String query) {
+
+		ParserMetrics metrics = SQLParser.getMetrics();
+		long start = metrics != ParserMetrics.NOOP ? System.nanoTime() : 0;
+
+		LiteralRanges literals = new LiteralRanges();
+		String shape = shapeOf(query, literals);
+		Segment segment = segmentFor(shape);
+
+		Template template;
+		synchronized (segment) {
+			template = segment.get(shape);
+		}
+
+		if (template != null && template != Template.UNCACHEABLE && fixedLiteralsMatch(template, query, literals)) {
+			hits.increment();
+			ParameterBuffer parameters = new ParameterBuffer(template.parameterLiterals.length);
+			for (int literal : template.parameterLiterals) {
+				parameters.addLiteral(query, literals.valueStart(literal), literals.valueEnd(literal));
+			}
+			if (metrics != ParserMetrics.NOOP) {
+				metrics.cacheHit();
+				record(metrics, start, parameters.size(), template.unmatchedLiterals);
+			}
+			return new ParsedQuery(template.parameterizedQuery, parameters, template.columns);
+		}
+
+		misses.increment();
+		LiteralRanges parameterRanges = SQLParser.findLiterals(query, engine, inLists, SqlDialect.ANSI, metrics);
+		ParsedQuery parsedQuery = SQLParser.toParsedQuery(query, parameterRanges);
+
+		if (template == null) {
+			template = templateFor(query, parsedQuery, parameterRanges, literals);
+			synchronized (segment) {
+				segment.put(shape, template);
+			}
+		}
+		if (metrics != ParserMetrics.NOOP) {
+			metrics.cacheMiss();
+			record(metrics, start, parsedQuery.getParameterBuffer().size(), SQLParser.countUnmatchedLiterals(query, parameterRanges));
+		}
+		return parsedQuery;
+	}
+
+	private static void record(ParserMetrics metrics, long start, int parameterCount, int unmatchedLiterals) {
+		metrics.parsed(System.nanoTime() - start, parameterCount);
+		if (unmatchedLiterals > 0) {
+			metrics.unmatchedLiterals(unmatchedLiterals);
+		}
+	}
+
+	/**
+	 * @return number of parses served from the cache
+	 */
+	public long hitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return number of parses that had to run the parser
+	 */
+	public long missCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return number of shapes dropped to stay within the maximum size
+	 */
+	public long evictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return number of shapes currently cached
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Writes the cached shapes to a file, replacing it atomically. See QueryCacheFile for the format.
+	 *
+	 * @param file
+	 * @return number of shapes written
+	 * @throws IOException
+	 */
+	public int save(Path file) throws IOException {
+		List<Map.Entry<String, Template>> entries = new ArrayList<>();
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				for (Map.Entry<String, Template> entry : segment.entrySet()) {
+					if (entry.getValue() != Template.UNCACHEABLE) {
+						entries.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+					}
+				}
+			}
+		}
+		QueryCacheFile.write(file, options(), entries);
+		return entries.size();
+	}
+
+	/**
+	 * Adds the shapes saved by {@link #save(Path)}, least recently used first, so that the most
+	 * recently used ones survive if the file holds more than the cache does.
+	 *
+	 * A missing file, a corrupt one, or one written by another version or with another engine or
+	 * IN list strategy is ignored.
+	 *
+	 * @param file
+	 * @return number of shapes loaded, 0 if the file was ignored
+	 * @throws IOException if the file exists but cannot be read
+	 */
+	public int load(Path file) throws IOException {
+		List<Map.Entry<String, Template>> entries = QueryCacheFile.read(file, options());
+		for (Map.Entry<String, Template> entry : entries) {
+			Segment segment = segmentFor(entry.getKey());
+			synchronized (segment) {
+				segment.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return entries.size();
+	}
+
+	/**
+	 * Prepares the parameterized query of every cached shape into the statement cache, so that
+	 * the first executions after startup do not pay for it.
+	 *
+	 * @param connection
+	 * @param statementCache
+	 * @return number of queries prepared
+	 * @throws SQLException
+	 */
+	public int prepareAll(Connection connection, StatementCache statementCache) throws SQLException {
+		List<String> parameterizedQueries = new ArrayList<>();
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				for (Template template : segment.values()) {
+					if (template != Template.UNCACHEABLE) {
+						parameterizedQueries.add(template.parameterizedQuery);
+					}
+				}
+			}
+		}
+		for (String parameterizedQuery : parameterizedQueries) {
+			statementCache.prepare(connection, parameterizedQuery);
+		}
+		return parameterizedQueries.size();
+	}
+
+	/**
+	 * Settings a saved template depends on besides the query.
+	 */
+	private String options() {
+		return engine + "/" + inLists.getMode() + "/" + inLists.getArrayThreshold();
+	}
+
+	public void clear() {
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	private Segment segmentFor(String shape) {
+		int hash = shape.hashCode();
+		return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+	}
+
+	/**
+	 * Builds the shape key of the query and records the offsets of all its literals.
+	 */
+	static String shapeOf(String query, LiteralRanges literals) {
+
+		StringBuilder shape = new StringBuilder(query.length());
+		SQLLexer lexer = new SQLLexer(query);
+		int copied = 0;
+
+		for (lexer.nextValue(); lexer.token() != Token.END; lexer.nextValue()) {
+			if (lexer.isValue()) {
+				shape.append(query, copied, lexer.start()).append(literalKind(query, lexer.start(), lexer.end()));
+				literals.addValue(lexer.start(), lexer.end());
+				copied = lexer.end();
+			}
+		}
+		return shape.append(query, copied, query.length()).toString();
+	}
+
+	private static char literalKind(String query, int start, int end) {
+
+		if (SQLLexer.isWordChar(query.charAt(start)) && !SQLLexer.isDigit(query.charAt(start))) {
+			return KEYWORD;
+		}
+
+		if (query.charAt(start) == '\'') {
+			for (int i = start + 1; i < end - 1; i++) {
+				char c = query.charAt(i);
+				if (c == '\'' || c == ',' || c == ')') {
+					return OTHER_STRING;
+				}
+			}
+			return end - start >= 2 && query.charAt(end - 1) == '\'' ? PLAIN_STRING : OTHER_STRING;
+		}
+		for (int i = start; i < end; i++) {
+			if (query.charAt(i) == '.') {
+				return DECIMAL;
+			}
+		}
+		return INTEGER;
+	}
+
+	/**
+	 * Maps every parameter of a freshly parsed query to the literal it was decoded from.
+	 */
+	private static Template templateFor(String query, ParsedQuery parsedQuery, LiteralRanges parameters, LiteralRanges literals) {
+
+		if (parameters.arrayCount() > 0) {
+			return Template.UNCACHEABLE; // parameters are not one literal each
+		}
+
+		int[] parameterLiterals = new int[parameters.valueCount()];
+		boolean[] isParameter = new boolean[literals.valueCount()];
+		int literal = 0;
+
+		for (int i = 0; i < parameterLiterals.length; i++) {
+			while (literal < literals.valueCount() && literals.valueStart(literal) < parameters.valueStart(i)) {
+				literal++;
+			}
+			if (literal == literals.valueCount()
+					|| literals.valueStart(literal) != parameters.valueStart(i)
+					|| literals.valueEnd(literal) != parameters.valueEnd(i)) {
+				return Template.UNCACHEABLE;
+			}
+			parameterLiterals[i] = literal;
+			isParameter[literal] = true;
+		}
+
+		String[] fixedLiterals = new String[literals.valueCount()];
+		int unmatchedLiterals = 0;
+		for (int i = 0; i < fixedLiterals.length; i++) {
+			if (!isParameter[i]) {
+				fixedLiterals[i] = query.substring(literals.valueStart(i), literals.valueEnd(i));
+				if (literalKind(query, literals.valueStart(i), literals.valueEnd(i)) != KEYWORD) {
+					unmatchedLiterals++;
+				}
+			}
+		}
+		return new Template(parsedQuery.getParameterizedQuery(), parameterLiterals, fixedLiterals, unmatchedLiterals,
+				parsedQuery.columnNames());
+	}
+
+	private static boolean fixedLiteralsMatch(Template template, String query, LiteralRanges literals) {
+
+		if (template.fixedLiterals.length != literals.valueCount()) {
+			return false; // marker characters in the query text itself
+		}
+		for (int i = 0; i < template.fixedLiterals.length; i++) {
+			String fixed = template.fixedLiterals[i];
+			if (fixed != null && (fixed.length() != literals.valueEnd(i) - literals.valueStart(i)
+					|| !query.regionMatches(literals.valueStart(i), fixed, 0, fixed.length()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
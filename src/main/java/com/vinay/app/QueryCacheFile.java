@@ -0,0 +1,238 @@
+package com.vinay.app;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.vinay.app.QueryCache.Template;
+
+/**
+ * Binary file format of {@link QueryCache#save(Path)}.
+ *
+ * <pre>
+ * int    magic "SQPC"
+ * int    format version
+ * string parser options: engine and IN list strategy the templates were built with
+ * int    body length
+ * long   CRC32 of the body
+ * body:  int entry count, then per entry
+ *        string shape, string parameterized query,
+ *        int n, n x int parameter literal,
+ *        int m, m x (byte present, [string fixed literal]),
+ *        int unmatched literals,
+ *        byte columns known, [int r, r x (int first parameter, byte present, [string column],
+ *                                         byte present, [string qualifier])]
+ * </pre>
+ *
+ * Strings are an int byte length followed by UTF-8 bytes. A file with another magic, version or
+ * parser options, a bad checksum or an inconsistent entry is rejected as a whole.
+ *
+ * FORMAT_VERSION must be increased whenever the file layout or the output of the parser for a
+ * shape changes, so that templates written by an older release are not served.
+ */
+final class QueryCacheFile {
+
+	private static final int MAGIC = 0x53515043;	// SQPC
+	static final int FORMAT_VERSION = 2;
+
+	private QueryCacheFile() {
+	}
+
+	/**
+	 * Writes the entries to a temporary file next to the target, then moves it in place.
+	 */
+	static void write(Path file, String options, List<Map.Entry<String, Template>> entries) throws IOException {
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream(64 * entries.size() + 16);
+		DataOutputStream out = new DataOutputStream(body);
+		out.writeInt(entries.size());
+		for (Map.Entry<String, Template> entry : entries) {
+			Template template = entry.getValue();
+			writeString(out, entry.getKey());
+			writeString(out, template.parameterizedQuery);
+			out.writeInt(template.parameterLiterals.length);
+			for (int literal : template.parameterLiterals) {
+				out.writeInt(literal);
+			}
+			out.writeInt(template.fixedLiterals.length);
+			for (String fixed : template.fixedLiterals) {
+				writeOptionalString(out, fixed);
+			}
+			out.writeInt(template.unmatchedLiterals);
+			writeColumns(out, template.columns);
+		}
+		out.flush();
+
+		CRC32 crc = new CRC32();
+		crc.update(body.toByteArray());
+
+		Path directory = file.toAbsolutePath().getParent();
+		Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream stream = Files.newOutputStream(temporary);
+					DataOutputStream header = new DataOutputStream(stream)) {
+				header.writeInt(MAGIC);
+				header.writeInt(FORMAT_VERSION);
+				writeString(header, options);
+				header.writeInt(body.size());
+				header.writeLong(crc.getValue());
+				body.writeTo(header);
+			}
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * @return the entries in file order; empty if the file is missing, corrupt, of another version
+	 *         or written with other parser options
+	 * @throws IOException if the file exists but cannot be read
+	 */
+	static List<Map.Entry<String, Template>> read(Path file, String options) throws IOException {
+
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				return Collections.emptyList();
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (NoSuchFileException e) {
+			return Collections.emptyList();
+		}
+
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || !options.equals(readString(buffer))) {
+				return Collections.emptyList();
+			}
+			int bodyLength = buffer.getInt();
+			long checksum = buffer.getLong();
+			if (bodyLength != buffer.remaining()) {
+				return Collections.emptyList();
+			}
+			CRC32 crc = new CRC32();
+			crc.update(buffer.duplicate());
+			if (crc.getValue() != checksum) {
+				return Collections.emptyList();
+			}
+			return readEntries(buffer);
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			return Collections.emptyList(); // truncated, or a length pointing past the end
+		}
+	}
+
+	private static List<Map.Entry<String, Template>> readEntries(ByteBuffer buffer) {
+
+		int count = readCount(buffer, 4);
+		List<Map.Entry<String, Template>> entries = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String shape = readString(buffer);
+			String parameterizedQuery = readString(buffer);
+			int[] parameterLiterals = new int[readCount(buffer, 4)];
+			for (int p = 0; p < parameterLiterals.length; p++) {
+				parameterLiterals[p] = buffer.getInt();
+			}
+			String[] fixedLiterals = new String[readCount(buffer, 1)];
+			for (int f = 0; f < fixedLiterals.length; f++) {
+				fixedLiterals[f] = readOptionalString(buffer);
+			}
+			int unmatchedLiterals = buffer.getInt();
+			ColumnNames columns = readColumns(buffer, parameterLiterals.length);
+
+			for (int literal : parameterLiterals) {
+				if (literal < 0 || literal >= fixedLiterals.length || fixedLiterals[literal] != null) {
+					throw new IllegalArgumentException("Parameter literal " + literal + " out of range");
+				}
+			}
+			entries.add(new AbstractMap.SimpleImmutableEntry<>(shape,
+					new Template(parameterizedQuery, parameterLiterals, fixedLiterals, unmatchedLiterals, columns)));
+		}
+		if (buffer.hasRemaining()) {
+			throw new IllegalArgumentException("Trailing bytes");
+		}
+		return entries;
+	}
+
+	private static void writeColumns(DataOutputStream out, ColumnNames columns) throws IOException {
+		out.writeBoolean(columns != null);
+		if (columns == null) {
+			return;
+		}
+		out.writeInt(columns.runCount());
+		for (int run = 0; run < columns.runCount(); run++) {
+			out.writeInt(columns.runFirstParameter(run));
+			writeOptionalString(out, columns.runName(run));
+			writeOptionalString(out, columns.runQualifier(run));
+		}
+	}
+
+	private static ColumnNames readColumns(ByteBuffer buffer, int parameterCount) {
+		if (buffer.get() == 0) {
+			return null;
+		}
+		int runs = readCount(buffer, 6);
+		int[] firstParameters = new int[runs];
+		String[] names = new String[runs];
+		String[] qualifiers = new String[runs];
+		for (int run = 0; run < runs; run++) {
+			firstParameters[run] = buffer.getInt();
+			if (firstParameters[run] < 0 || firstParameters[run] >= parameterCount
+					|| run > 0 && firstParameters[run] <= firstParameters[run - 1]) {
+				throw new IllegalArgumentException("Column run " + firstParameters[run] + " out of order");
+			}
+			names[run] = readOptionalString(buffer);
+			qualifiers[run] = readOptionalString(buffer);
+		}
+		return new ColumnNames(firstParameters, names, qualifiers, parameterCount);
+	}
+
+	private static void writeOptionalString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			writeString(out, value);
+		}
+	}
+
+	private static String readOptionalString(ByteBuffer buffer) {
+		return buffer.get() != 0 ? readString(buffer) : null;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[readCount(buffer, 1)];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads a count of items of the given minimum size, rejecting counts the rest of the buffer cannot hold.
+	 */
+	private static int readCount(ByteBuffer buffer, int itemSize) {
+		int count = buffer.getInt();
+		if (count < 0 || (long) count * itemSize > buffer.remaining()) {
+			throw new IllegalArgumentException("Invalid count " + count);
+		}
+		return count;
+	}
+}
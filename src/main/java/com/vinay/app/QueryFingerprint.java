@@ -0,0 +1,113 @@
+package com.vinay.app;
+
+import com.vinay.app.SQLLexer.Token;
+import com.vinay.app.SQLParser.Engine;
+
+/**
+ * 64-bit fingerprint of the shape of a query, for deduplication and finding hot shapes.
+ *
+ * The literals are found by the same engines as {@link SQLParser#parseSQLQuery(String, Engine)}; every
+ * IN list they recognize counts as one value whatever its length, as if bound as an array. The
+ * remaining tokens are hashed with FNV-1a, words upper-cased and whitespace and comments dropped, so
+ * queries differing only in the values of their parameters, in spacing, in comments or in the case of
+ * keywords and unquoted names have the same fingerprint. No String is built for the query or its tokens.
+ *
+ * Fingerprints are stable across runs and JVMs, so they can be stored and compared, e.g. in logs.
+ * Two different shapes can collide, with a probability of about n^2 / 2^65 among n shapes.
+ */
+public final class QueryFingerprint {
+
+	private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long PRIME = 0x100000001b3L;
+
+	private static final InListStrategy COLLAPSE_IN_LISTS = new InListStrategy(InListStrategy.Mode.ARRAY, 0);
+
+	// Hashed in place of the parts of the query that are removed, outside the char range of SQL text
+
+	private static final int TOKEN_SEPARATOR = 0x10000;
+	private static final int PARAMETER = 0x10001;
+	private static final int ANY_LIST = 0x10002;
+	private static final int ALL_LIST = 0x10003;
+
+	private QueryFingerprint() {
+	}
+
+	/**
+	 * @param query
+	 * @return fingerprint of the query's shape, with literals found like the default engine does
+	 */
+	public static long fingerprint(CharSequence query) {
+		return fingerprint(query, Engine.REGEX);
+	}
+
+	/**
+	 * @param query
+	 * @param engine engine deciding which literals are parameters
+	 * @return fingerprint of the query's shape
+	 */
+	public static long fingerprint(CharSequence query, Engine engine) {
+		return fingerprint(query, engine, SqlDialect.ANSI);
+	}
+
+	/**
+	 * @param query
+	 * @param engine engine deciding which literals are parameters
+	 * @param dialect dialect the query is written in
+	 * @return fingerprint of the query's shape
+	 */
+	public static long fingerprint(CharSequence query, Engine engine, SqlDialect dialect) {
+
+		LiteralRanges literals = SQLParser.findLiterals(query, engine, COLLAPSE_IN_LISTS, dialect, ParserMetrics.NOOP);
+
+		long hash = OFFSET_BASIS;
+		int span = 0;
+		int spanStart = literals.spanCount() > 0 ? literals.spanStart(0) : Integer.MAX_VALUE;
+		SQLLexer lexer = new SQLLexer(query, dialect);
+
+		while (lexer.next() != Token.END) {
+
+			while (spanStart < lexer.start()) {
+				span++; // not on a token: inside a comment or a string, hashed as text
+				spanStart = span < literals.spanCount() ? literals.spanStart(span) : Integer.MAX_VALUE;
+			}
+			if (lexer.start() == spanStart) {
+
+				// Replaced by placeholders: hash a marker, then skip the tokens of the span
+
+				int placeholders = literals.spanPlaceholders(span);
+				hash = mix(hash, placeholders == -1 ? ANY_LIST : placeholders == -2 ? ALL_LIST : PARAMETER);
+				hash = mix(hash, TOKEN_SEPARATOR);
+				int spanEnd = literals.spanEnd(span);
+				while (lexer.end() < spanEnd && lexer.next() != Token.END) {
+					// inside the span
+				}
+				span++;
+				spanStart = span < literals.spanCount() ? literals.spanStart(span) : Integer.MAX_VALUE;
+				continue;
+			}
+
+			boolean word = lexer.token() == Token.WORD;
+			for (int i = lexer.start(); i < lexer.end(); i++) {
+				char c = query.charAt(i);
+				if (word && c >= 'a' && c <= 'z') {
+					c -= 'a' - 'A';
+				}
+				hash = mix(hash, c);
+			}
+			hash = mix(hash, TOKEN_SEPARATOR);
+		}
+		return hash;
+	}
+
+	/**
+	 * FNV-1a step over the two bytes of a char, and the third of the markers.
+	 */
+	private static long mix(long hash, int c) {
+		hash = (hash ^ (c & 0xff)) * PRIME;
+		hash = (hash ^ ((c >>> 8) & 0xff)) * PRIME;
+		if (c > 0xffff) {
+			hash = (hash ^ (c >>> 16)) * PRIME;
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,361 @@
+package com.vinay.app;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.vinay.app.ParameterBuffer.Type;
+import com.vinay.app.SQLParser.Engine;
+import com.vinay.app.SQLParser.ParsedQuery;
+
+/**
+ * A query parsed once, to be bound with new values many times.
+ *
+ * The template is compiled from a sample query with {@link SQLParser#parseSQLQuery(String, Engine)},
+ * so it recognizes the same conditions. Each parameter becomes a slot typed after its sample value.
+ * Binding fills a ParameterBuffer from the values and shares the parameterized query string, so no
+ * query text is scanned or built per call.
+ *
+ * <pre>
+ * QueryTemplate byUser = QueryTemplate.compile("SELECT * FROM orders WHERE user_id = 0 AND status = 'x'");
+ * PreparedStatement statement = byUser.binder().bindInt(userId).bindString(status).prepare(connection);
+ * </pre>
+ *
+ * Templates are immutable and can be shared between threads; binders cannot.
+ */
+public final class QueryTemplate {
+
+	/**
+	 * A parameter of the template.
+	 */
+	public static final class Slot {
+
+		private final int index;
+		private final Type type;
+
+		Slot(int index, Type type) {
+			this.index = index;
+			this.type = type;
+		}
+
+		/**
+		 * @return position of the parameter, starting at 0
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * @return type of the sample value, which bound values must match; NULL and OBJECT slots take any value,
+		 *         numeric slots any number (see {@link Binder#bind(Object)})
+		 */
+		public Type getType() {
+			return type;
+		}
+
+		@Override
+		public String toString() {
+			return index + ":" + type;
+		}
+	}
+
+	private final String parameterizedQuery;
+	private final Type[] types;
+	private final List<Slot> slots;
+
+	private QueryTemplate(String parameterizedQuery, Type[] types) {
+		this.parameterizedQuery = parameterizedQuery;
+		this.types = types;
+		List<Slot> slots = new ArrayList<>(types.length);
+		for (int i = 0; i < types.length; i++) {
+			slots.add(new Slot(i, types[i]));
+		}
+		this.slots = Collections.unmodifiableList(slots);
+	}
+
+	/**
+	 * @param sampleQuery query with literal values of the types later bound in their place
+	 * @return
+	 */
+	public static QueryTemplate compile(String sampleQuery) {
+		return compile(sampleQuery, Engine.REGEX);
+	}
+
+	/**
+	 * @param sampleQuery query with literal values of the types later bound in their place
+	 * @param engine engine the sample query is parsed with
+	 * @return
+	 */
+	public static QueryTemplate compile(String sampleQuery, Engine engine) {
+
+		ParsedQuery sample = SQLParser.parseSQLQuery(sampleQuery, engine);
+		ParameterBuffer sampleValues = sample.getParameterBuffer();
+		Type[] types = new Type[sampleValues.size()];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = sampleValues.type(i);
+		}
+		return new QueryTemplate(sample.getParameterizedQuery(), types);
+	}
+
+	public String getParameterizedQuery() {
+		return parameterizedQuery;
+	}
+
+	/**
+	 * @return read-only list of the parameters, in order
+	 */
+	public List<Slot> getSlots() {
+		return slots;
+	}
+
+	/**
+	 * @param values one value per slot, in order
+	 * @return the template's query with the values as parameters
+	 * @throws IllegalArgumentException if the number of values or a value's type does not match the slots
+	 */
+	public ParsedQuery bind(Object... values) {
+
+		if (values.length != types.length) {
+			throw new IllegalArgumentException("Expected " + types.length + " values, got " + values.length);
+		}
+		Binder binder = binder();
+		for (Object value : values) {
+			binder.bind(value);
+		}
+		return binder.toParsedQuery();
+	}
+
+	/**
+	 * @return a binder taking the values one by one
+	 */
+	public Binder binder() {
+		return new Binder();
+	}
+
+	/**
+	 * Takes the values of one execution in slot order. Typed methods bind without boxing.
+	 */
+	public final class Binder {
+
+		private final ParameterBuffer parameters = new ParameterBuffer(types.length);
+
+		Binder() {
+		}
+
+		public Binder bindInt(int value) {
+			Type type = next();
+			if (type == Type.INTEGER || isAny(type)) {
+				parameters.addInt(value);
+				return this;
+			} else if (!isNumeric(type)) {
+				throw mismatch(type, Integer.valueOf(value));
+			}
+			return bindWhole(type, value);
+		}
+
+		public Binder bindLong(long value) {
+			Type type = next();
+			if (isAny(type)) {
+				parameters.addLong(value);
+				return this;
+			} else if (!isNumeric(type)) {
+				throw mismatch(type, Long.valueOf(value));
+			}
+			return bindWhole(type, value);
+		}
+
+		public Binder bindBoolean(boolean value) {
+			Type type = next();
+			if (type != Type.BOOLEAN && !isAny(type)) {
+				throw mismatch(type, Boolean.valueOf(value));
+			}
+			parameters.addBoolean(value);
+			return this;
+		}
+
+		public Binder bindDouble(double value) {
+			Type type = next();
+			if (isAny(type)) {
+				parameters.addDouble(value);
+				return this;
+			} else if (!isNumeric(type)) {
+				throw mismatch(type, Double.valueOf(value));
+			}
+			return bindFractional(type, value);
+		}
+
+		public Binder bindString(String value) {
+			Type type = next();
+			if (type != Type.STRING && !isAny(type)) {
+				throw mismatch(type, value);
+			}
+			parameters.addString(value);
+			return this;
+		}
+
+		/**
+		 * Binds a boxed value. Any CharSequence is accepted for STRING slots and null for every slot.
+		 *
+		 * Numbers follow the same rule as the typed methods: any number binds to any numeric slot and
+		 * is converted to the slot's type. DOUBLE and DECIMAL slots always convert. INTEGER and LONG
+		 * slots only know their sample was a whole number. They take a whole value as an int or long,
+		 * whichever holds it. A value that does not fit, such as 2.5 or a huge BigDecimal, keeps its
+		 * own type.
+		 *
+		 * @param value
+		 * @return
+		 */
+		public Binder bind(Object value) {
+
+			Type type = next();
+			if (value == null || isAny(type)) {
+				parameters.add(value);
+			} else if (type == Type.STRING && value instanceof CharSequence) {
+				parameters.addString(value.toString());
+			} else if (type == Type.BOOLEAN && value instanceof Boolean) {
+				parameters.addBoolean((Boolean) value);
+			} else if (!isNumeric(type) || !(value instanceof Number)) {
+				throw mismatch(type, value);
+			} else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+				bindWhole(type, ((Number) value).longValue());
+			} else if (value instanceof Double) {
+				bindFractional(type, (Double) value);
+			} else if (value instanceof Float) {
+				float number = (Float) value;
+				if (Float.isFinite(number)) {
+					bindDecimal(type, new BigDecimal(Float.toString(number))); // 0.1f as 0.1, not 0.10000000149
+				} else {
+					bindFractional(type, number);
+				}
+			} else if (value instanceof BigDecimal) {
+				bindDecimal(type, (BigDecimal) value);
+			} else if (value instanceof BigInteger) {
+				bindDecimal(type, new BigDecimal((BigInteger) value));
+			} else {
+				throw mismatch(type, value);
+			}
+			return this;
+		}
+
+		/**
+		 * Adds a whole number to a numeric slot.
+		 */
+		private Binder bindWhole(Type type, long value) {
+			if (type == Type.INTEGER && value == (int) value) {
+				parameters.addInt((int) value);
+			} else if (type == Type.INTEGER || type == Type.LONG) {
+				parameters.addLong(value);
+			} else if (type == Type.DOUBLE) {
+				parameters.addDouble(value);
+			} else {
+				parameters.addDecimal(BigDecimal.valueOf(value));
+			}
+			return this;
+		}
+
+		/**
+		 * Adds a double to a numeric slot; NaN and infinities only fit a DOUBLE slot.
+		 */
+		private Binder bindFractional(Type type, double value) {
+			if (type == Type.DOUBLE) {
+				parameters.addDouble(value);
+			} else if (!Double.isFinite(value)) {
+				throw mismatch(type, Double.valueOf(value));
+			} else if (type == Type.DECIMAL) {
+				parameters.addDecimal(BigDecimal.valueOf(value));
+			} else if (value == Math.rint(value) && value >= -0x1p63 && value < 0x1p63) {
+				bindWhole(type, (long) value);
+			} else {
+				parameters.addDouble(value);
+			}
+			return this;
+		}
+
+		/**
+		 * Adds a BigDecimal to a numeric slot.
+		 */
+		private Binder bindDecimal(Type type, BigDecimal value) {
+			if (type == Type.DECIMAL) {
+				parameters.addDecimal(value);
+			} else if (type == Type.DOUBLE) {
+				parameters.addDouble(value.doubleValue());
+			} else if (isLong(value)) {
+				bindWhole(type, value.longValue());
+			} else {
+				parameters.addDecimal(value);
+			}
+			return this;
+		}
+
+		/**
+		 * @return the bound query
+		 * @throws IllegalStateException if not every slot is bound
+		 */
+		public ParsedQuery toParsedQuery() {
+			if (parameters.size() != types.length) {
+				throw new IllegalStateException("Bound " + parameters.size() + " of " + types.length + " parameters");
+			}
+			return new ParsedQuery(parameterizedQuery, parameters);
+		}
+
+		/**
+		 * @param connection
+		 * @return a new PreparedStatement with the bound values set
+		 * @throws SQLException
+		 */
+		public PreparedStatement prepare(Connection connection) throws SQLException {
+			return SQLParser.createPreparedStatement(connection, toParsedQuery());
+		}
+
+		/**
+		 * @param connection
+		 * @param statementCache cache the statement is taken from; it must not be closed by the caller
+		 * @return the cached PreparedStatement with the bound values set
+		 * @throws SQLException
+		 */
+		public PreparedStatement prepare(Connection connection, StatementCache statementCache) throws SQLException {
+			return SQLParser.createPreparedStatement(connection, toParsedQuery(), statementCache);
+		}
+
+		private Type next() {
+			if (parameters.size() == types.length) {
+				throw new IllegalStateException("All " + types.length + " parameters are already bound");
+			}
+			return types[parameters.size()];
+		}
+
+		private IllegalArgumentException mismatch(Type type, Object value) {
+			return new IllegalArgumentException("Parameter " + parameters.size() + " is " + type
+					+ ", cannot bind " + value.getClass().getSimpleName() + " " + value);
+		}
+	}
+
+	private static boolean isAny(Type type) {
+		return type == Type.OBJECT || type == Type.NULL;
+	}
+
+	private static boolean isNumeric(Type type) {
+		return type == Type.INTEGER || type == Type.LONG || type == Type.DOUBLE || type == Type.DECIMAL;
+	}
+
+	/**
+	 * @return whether the value is a whole number a long holds
+	 */
+	private static boolean isLong(BigDecimal value) {
+		if (value.signum() == 0) {
+			return true;
+		}
+		BigDecimal whole = value.stripTrailingZeros();
+		return whole.scale() <= 0 && whole.precision() - whole.scale() <= 19 && whole.toBigInteger().bitLength() < 64;
+	}
+
+	@Override
+	public String toString() {
+		return parameterizedQuery + " " + slots;
+	}
+}
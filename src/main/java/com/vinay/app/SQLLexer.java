@@ -0,0 +1,419 @@
+package com.vinay.app;
+
+/**
+ * Hand-written tokenizer for SQL text.
+ *
+ * Walks the characters of the query once, front to back, and reports one token
+ * at a time together with its start and end offsets. No substrings are created
+ * while scanning; callers slice the input themselves when they need a token's text.
+ *
+ * Whitespace and comments (-- and slash-star) are skipped between tokens.
+ *
+ * Quotes, escapes and comments follow the {@link SqlDialect}, ANSI unless one is given; the token a
+ * character starts is looked up in the dialect's table.
+ */
+public final class SQLLexer {
+
+	/**
+	 * Kinds of tokens reported by {@link SQLLexer#next()}.
+	 */
+	public enum Token {
+		WORD,				// identifier or keyword, [A-Za-z0-9_]+ not made only of digits
+		NUMBER,				// 123, 123.45 or 1.5e3; -123 when read by nextValue()
+		STRING,				// 'single quoted', '' escapes a quote; N'...', E'...', $$...$$ and \' in dialects having them
+		QUOTED_IDENTIFIER,	// "double quoted"; `backticks` and [brackets] in dialects having them
+		OPERATOR,			// = < > <= >= != <>
+		LEFT_PAREN,
+		RIGHT_PAREN,
+		COMMA,
+		OTHER,				// any other single character
+		END
+	}
+
+	private final CharSequence input;
+	private final int length;
+	private final SqlDialect dialect;
+
+	private int position;
+	private Token token;
+	private int start;
+	private int end;
+
+	public SQLLexer(CharSequence input) {
+		this(input, SqlDialect.ANSI);
+	}
+
+	/**
+	 * @param input
+	 * @param dialect rules for quotes, escapes and comments
+	 */
+	public SQLLexer(CharSequence input, SqlDialect dialect) {
+		this.input = input;
+		this.length = input.length();
+		this.dialect = dialect;
+	}
+
+	/**
+	 * Advances to the next token.
+	 *
+	 * @return the kind of the token, {@link Token#END} once the input is exhausted
+	 */
+	public Token next() {
+
+		skipWhitespaceAndComments();
+		start = position;
+
+		if (position >= length) {
+			end = position;
+			return token = Token.END;
+		}
+
+		char c = input.charAt(position);
+
+		switch (dialect.classOf(c)) {
+		case SqlDialect.DIGIT:
+
+			// Digits, optional fraction and exponent; a trailing word character makes it a WORD (e.g. 5abc)
+
+			position = skipDigits(position + 1);
+			if (position + 1 < length && input.charAt(position) == '.' && isDigit(input.charAt(position + 1))) {
+				position = skipDigits(position + 2);
+			}
+			if (position + 1 < length && (input.charAt(position) == 'e' || input.charAt(position) == 'E')) {
+				int exponent = position + 1;
+				if (input.charAt(exponent) == '+' || input.charAt(exponent) == '-') {
+					exponent++;
+				}
+				if (exponent < length && isDigit(input.charAt(exponent))) {
+					position = skipDigits(exponent + 1);
+				}
+			}
+			if (position < length && isWordChar(input.charAt(position))) {
+				position = skipWord(position);
+				token = Token.WORD;
+			} else {
+				token = Token.NUMBER;
+			}
+			break;
+
+		case SqlDialect.STRING_PREFIX:
+
+			if (position + 1 < length && input.charAt(position + 1) == '\'') {
+				position = skipString(position + 2, dialect.backslashEscapes(c)); // N'...' or E'...'
+				token = Token.STRING;
+			} else {
+				position = skipWord(position + 1);
+				token = Token.WORD;
+			}
+			break;
+
+		case SqlDialect.WORD:
+
+			position = skipWord(position + 1);
+			token = Token.WORD;
+			break;
+
+		case SqlDialect.QUOTE:
+
+			position = skipString(position + 1, dialect.backslashEscapes(c));
+			token = Token.STRING;
+			break;
+
+		case SqlDialect.IDENTIFIER_QUOTE:
+
+			position = skipQuoted(position + 1, dialect.closingQuote(c));
+			token = Token.QUOTED_IDENTIFIER;
+			break;
+
+		case SqlDialect.DOLLAR:
+
+			int tagEnd = dollarTagEnd(position);
+			if (tagEnd != -1) {
+				position = skipDollarQuoted(position, tagEnd);
+				token = Token.STRING;
+			} else {
+				position++; // $1 parameter or a $ in a name
+				token = Token.OTHER;
+			}
+			break;
+
+		default:
+			nextOperator(c);
+		}
+
+		end = position;
+		return token;
+	}
+
+	/**
+	 * Operators, parentheses, commas and any other single character.
+	 */
+	private void nextOperator(char c) {
+
+		if (c == '=') {
+
+			position++;
+			token = Token.OPERATOR;
+
+		} else if (c == '<' || c == '>') {
+
+			position++;
+			if (position < length && (input.charAt(position) == '=' || (c == '<' && input.charAt(position) == '>'))) {
+				position++;
+			}
+			token = Token.OPERATOR;
+
+		} else if (c == '!' && position + 1 < length && input.charAt(position + 1) == '=') {
+
+			position += 2;
+			token = Token.OPERATOR;
+
+		} else if (c == '(') {
+
+			position++;
+			token = Token.LEFT_PAREN;
+
+		} else if (c == ')') {
+
+			position++;
+			token = Token.RIGHT_PAREN;
+
+		} else if (c == ',') {
+
+			position++;
+			token = Token.COMMA;
+
+		} else {
+
+			position++;
+			token = Token.OTHER;
+		}
+	}
+
+	/**
+	 * Advances like {@link #next()} at a place where a value is expected: a minus sign directly
+	 * followed by a number is read as one negative NUMBER token.
+	 *
+	 * @return true if the new token is a value, see {@link #isValue()}
+	 */
+	public boolean nextValue() {
+		if (next() == Token.OTHER && input.charAt(start) == '-' && position < length && isDigit(input.charAt(position))) {
+			int sign = start;
+			if (next() == Token.NUMBER) {
+				start = sign;
+			}
+		}
+		return isValue();
+	}
+
+	/**
+	 * @return the kind of the current token
+	 */
+	public Token token() {
+		return token;
+	}
+
+	/**
+	 * @return offset of the first character of the current token
+	 */
+	public int start() {
+		return start;
+	}
+
+	/**
+	 * @return offset just past the last character of the current token
+	 */
+	public int end() {
+		return end;
+	}
+
+	/**
+	 * @return offset the next call to {@link #next()} starts scanning from
+	 */
+	public int position() {
+		return position;
+	}
+
+	/**
+	 * Moves the scan position back (or forward) so that lookahead can be undone.
+	 *
+	 * @param position offset previously returned by {@link #position()} or {@link #end()}
+	 */
+	public void reset(int position) {
+		this.position = position;
+	}
+
+	/**
+	 * @return the text of the current token; allocates, so keep it off the hot path
+	 */
+	public String text() {
+		return input.subSequence(start, end).toString();
+	}
+
+	/**
+	 * Case-insensitive comparison of the current token against an upper-case keyword,
+	 * without creating a String for the token.
+	 *
+	 * @param keyword upper-case keyword, e.g. "BETWEEN"
+	 * @return true if the current token is a WORD spelling the keyword
+	 */
+	public boolean isKeyword(String keyword) {
+		return token == Token.WORD && isKeyword(input, start, end, keyword);
+	}
+
+	/**
+	 * @return true if input[start, end) spells the upper-case keyword, in any case
+	 */
+	static boolean isKeyword(CharSequence input, int start, int end, String keyword) {
+		if (end - start != keyword.length()) {
+			return false;
+		}
+		for (int i = 0; i < keyword.length(); i++) {
+			char c = input.charAt(start + i);
+			if (c >= 'a' && c <= 'z') {
+				c -= 'a' - 'A';
+			}
+			if (c != keyword.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if the current token is a string or numeric literal
+	 */
+	public boolean isLiteral() {
+		return token == Token.STRING || token == Token.NUMBER;
+	}
+
+	/**
+	 * @return true if the current token can be bound as a parameter: a literal, NULL, TRUE or FALSE
+	 */
+	public boolean isValue() {
+		return isLiteral() || isKeyword("NULL") || isKeyword("TRUE") || isKeyword("FALSE");
+	}
+
+	private void skipWhitespaceAndComments() {
+		while (position < length) {
+			char c = input.charAt(position);
+			byte charClass = dialect.classOf(c);
+			if (charClass == SqlDialect.SPACE) {
+				position++;
+			} else if (c == '-' && position + 1 < length && input.charAt(position + 1) == '-' || charClass == SqlDialect.HASH_COMMENT) {
+				position += charClass == SqlDialect.HASH_COMMENT ? 1 : 2;
+				while (position < length && input.charAt(position) != '\n') {
+					position++;
+				}
+			} else if (c == '/' && position + 1 < length && input.charAt(position + 1) == '*') {
+				position += 2;
+				while (position < length && !(input.charAt(position) == '*' && position + 1 < length && input.charAt(position + 1) == '/')) {
+					position++;
+				}
+				position = Math.min(position + 2, length);
+			} else {
+				return;
+			}
+		}
+	}
+
+	private int skipDigits(int i) {
+		while (i < length && isDigit(input.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private int skipWord(int i) {
+		while (i < length && isWordChar(input.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Skips to just past the closing quote; a doubled quote is an escaped quote.
+	 * An unterminated literal runs to the end of the input.
+	 */
+	private int skipQuoted(int i, char quote) {
+		while (i < length) {
+			if (input.charAt(i) == quote) {
+				if (i + 1 < length && input.charAt(i + 1) == quote) {
+					i += 2;
+					continue;
+				}
+				return i + 1;
+			}
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Skips to just past the closing quote of a string; with backslash escapes a backslash escapes the
+	 * character after it, quotes included.
+	 */
+	private int skipString(int i, boolean backslashEscapes) {
+		if (!backslashEscapes) {
+			return skipQuoted(i, '\'');
+		}
+		while (i < length) {
+			char c = input.charAt(i);
+			if (c == '\\') {
+				i += 2;
+				continue;
+			}
+			if (c == '\'') {
+				if (i + 1 < length && input.charAt(i + 1) == '\'') {
+					i += 2;
+					continue;
+				}
+				return i + 1;
+			}
+			i++;
+		}
+		return Math.min(i, length);
+	}
+
+	/**
+	 * @return end of the $tag$ opening a dollar quoted string at i, -1 if there is none
+	 */
+	private int dollarTagEnd(int i) {
+		int j = i + 1;
+		if (j < length && isWordChar(input.charAt(j)) && !isDigit(input.charAt(j))) {
+			j = skipWord(j);
+		}
+		return j < length && input.charAt(j) == '$' ? j + 1 : -1;
+	}
+
+	/**
+	 * Skips to just past the $tag$ closing the string opened by input[start, tagEnd).
+	 * An unterminated string runs to the end of the input.
+	 */
+	private int skipDollarQuoted(int start, int tagEnd) {
+		int tagLength = tagEnd - start;
+		for (int i = tagEnd; i + tagLength <= length; i++) {
+			if (input.charAt(i) == '$' && regionEquals(i, start, tagLength)) {
+				return i + tagLength;
+			}
+		}
+		return length;
+	}
+
+	private boolean regionEquals(int i, int j, int length) {
+		for (int k = 0; k < length; k++) {
+			if (input.charAt(i + k) != input.charAt(j + k)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	static boolean isWordChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+	}
+}
@@ -1,14 +1,19 @@
 package com.vinay.app;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.sql.Types;
+import java.util.BitSet;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.vinay.app.ParserMetrics.Condition;
+import com.vinay.app.SQLLexer.Token;
+
 /**
  * Class to parse a generic SQL statement, extract conditions from the WHERE clause, 
  * and to create SQL query in a safer, parameterized way that prevents SQL injection. 
@@ -21,26 +26,208 @@ import java.util.regex.Pattern;
  */
 public class SQLParser {
 
+	/**
+	 * Parsing engines that can be selected for {@link SQLParser#parseSQLQuery(String, Engine)}.
+	 * REGEX and LEXER produce the same ParsedQuery for the conditions listed in the regex: keywords in any
+	 * case, comments skipped, IN lists of values only, read with the dialect's lexer. They differ in two
+	 * cases. REGEX also matches text inside a string literal that looks like a condition (f('a = 1')).
+	 * It does not match a condition with a comment between the column, the operator and the value. REGEX
+	 * stays the default while the two are compared. TREE parses WHERE, HAVING and ON clauses in full and
+	 * parameterizes every literal in them, see {@link WhereParser}.
+	 */
+	public enum Engine {
+		REGEX,	// alternation regex matched over the whole query
+		LEXER,	// single forward scan with SQLLexer
+		TREE	// recursive descent over the boolean expressions of the query, with WhereParser
+	}
+
+	// A value: a string of the dialect, signed number with optional fraction and exponent, NULL, TRUE or FALSE
+
+	private static final String NUMBER_OR_KEYWORD = "|-?\\d+(?:\\.\\d+)?(?:[eE][+-]?\\d+)?(?!\\w)|(?i:NULL|TRUE|FALSE)\\b)";
+
+	private static volatile ParserMetrics metrics = ParserMetrics.NOOP;
+
+	/**
+	 * Compiles the regex pattern matching the different types of conditions, with the regex of a string
+	 * literal of the dialect, see {@link SqlDialect#stringRegex()}.
+	 */
+	static Pattern compileConditionPattern(String stringRegex) {
+		String value = "(" + stringRegex + NUMBER_OR_KEYWORD;
+		return Pattern.compile("\\b(\\w+)\\s+(?i:IN)\\s*\\(()|" + 		// column IN (, values read by the lexer 1,2
+				"\\b(\\w+)\\s*=\\s*" + value + "|" + 				// column = value 3,4
+				"\\b(\\w+)\\s*<\\s*" + value + "|" + 				// column < value 5,6
+				"\\b(\\w+)\\s*>\\s*" + value + "|" + 				// column > value 7,8
+				"\\b(\\w+)\\s*>=\\s*" + value + "|" + 				// column >= value 9,10
+				"\\b(\\w+)\\s*<=\\s*" + value + "|" + 				// column <= value 11,12
+				"\\b(\\w+)\\s*(?:!=|<>)\\s*" + value + "|" + 		// column != value 13,14
+				"\\b(\\w+)\\s+(?i:BETWEEN)\\s+" + value + "\\s+(?i:AND)\\s+" + value 	// column BETWEEN value1 AND value2
+																					// 15, 16, 17
+		);
+	}
+
 	/**
 	 * Helper class holds the parameterized query string and the list of parameters
 	 * for setting up the PreparedStatement.
+	 * 
+	 * The parameters are kept in a ParameterBuffer; getParameters() is a List view of it.
+	 * 
+	 * A ParsedQuery returned by {@link SQLParser#parseLazily(CharSequence)} keeps the original query and
+	 * the offsets of its literals instead: the parameterized query is written on the first call to
+	 * {@link #getParameterizedQuery()}, or straight into the caller's buffer by {@link #appendTo(Appendable)},
+	 * and the parameters are decoded on first access. Column names are copied out when it is created, so
+	 * they stay valid after the text and the parameters are built and the caller reuses its buffer.
+	 * 
+	 * A ParsedQuery may be read from several threads once it has been safely published. The lazy parts
+	 * are built at most once, under the instance lock, and published through volatile fields, so every
+	 * thread sees the same text and parameters. The original query must not change meanwhile. Objects
+	 * handed out are not made thread-safe by this: a caller's Appendable, or a List passed to the
+	 * constructor and modified later, is the caller's to guard.
 	 */
 	public static class ParsedQuery {
 		
-		private final String parameterizedQuery;
-		private final List<Object> parameters;
+		// Built on first use by a lazy ParsedQuery, which may be shared between threads
+		private volatile String parameterizedQuery;
+		private volatile ParameterBuffer parameterBuffer;
+		private volatile List<Object> parameters;
+		
+		private CharSequence query;			// set until both the text and the parameters are built, guarded by this
+		private LiteralRanges literals;
+		private final ColumnNames columns;	// resolved when parsed, so the query text is not needed for them
 
 		public ParsedQuery(String parameterizedQuery, List<Object> parameters) {
 			this.parameterizedQuery = parameterizedQuery;
 			this.parameters = parameters;
+			this.columns = null;
+		}
+
+		public ParsedQuery(String parameterizedQuery, ParameterBuffer parameterBuffer) {
+			this(parameterizedQuery, parameterBuffer, null);
+		}
+
+		ParsedQuery(String parameterizedQuery, ParameterBuffer parameterBuffer, ColumnNames columns) {
+			this.parameterizedQuery = parameterizedQuery;
+			this.parameterBuffer = parameterBuffer;
+			this.columns = columns;
+		}
+
+		ParsedQuery(CharSequence query, LiteralRanges literals) {
+			this.query = query;
+			this.literals = literals;
+			this.columns = ColumnNames.of(query, literals);
 		}
 
 		public String getParameterizedQuery() {
+			String text = parameterizedQuery;
+			return text != null ? text : buildParameterizedQuery();
+		}
+
+		private synchronized String buildParameterizedQuery() {
+			if (parameterizedQuery == null) {
+				parameterizedQuery = literals.rewrite(query);
+				release();
+			}
 			return parameterizedQuery;
 		}
 
+		/**
+		 * Writes the parameterized query into the buffer; a lazy ParsedQuery copies from the original
+		 * query without building the String.
+		 * 
+		 * @param out
+		 * @return out
+		 * @throws IOException
+		 */
+		public <A extends Appendable> A appendTo(A out) throws IOException {
+			String text = parameterizedQuery;
+			CharSequence source = null;
+			LiteralRanges ranges = null;
+			if (text == null) {
+				synchronized (this) {
+					text = parameterizedQuery;
+					source = query;
+					ranges = literals;
+				}
+			}
+			if (text != null) {
+				out.append(text);
+			} else if (out instanceof StringBuilder) {
+				StringBuilder builder = (StringBuilder) out;
+				builder.ensureCapacity(builder.length() + ranges.rewrittenLength(source));
+				ranges.appendRewritten(source, builder);
+			} else {
+				ranges.appendRewritten(source, out);
+			}
+			return out;
+		}
+
+		/**
+		 * @return number of parameters, without decoding them
+		 */
+		public int getParameterCount() {
+			ParameterBuffer buffer = parameterBuffer;
+			if (buffer != null) {
+				return buffer.size();
+			}
+			List<Object> list = parameters;
+			if (list != null) {
+				return list.size();
+			}
+			synchronized (this) {
+				return parameterBuffer != null ? parameterBuffer.size() : literals.parameterCount();
+			}
+		}
+
 		public List<Object> getParameters() {
-			return parameters;
+			List<Object> list = parameters;
+			if (list == null) {
+				parameters = list = getParameterBuffer().asList(); // a view; building it twice is harmless
+			}
+			return list;
+		}
+
+		public ParameterBuffer getParameterBuffer() {
+			ParameterBuffer buffer = parameterBuffer;
+			return buffer != null ? buffer : buildParameterBuffer();
+		}
+
+		private synchronized ParameterBuffer buildParameterBuffer() {
+			if (parameterBuffer == null) {
+				parameterBuffer = parameters != null ? ParameterBuffer.of(parameters) : decodeParameters(query, literals);
+				release();
+			}
+			return parameterBuffer;
+		}
+
+		/**
+		 * @param index parameter index, from 0
+		 * @return name of the column the parameter is compared with (col = ?, col IN (?), col BETWEEN ? AND ?),
+		 *         null if unknown or the query was not parsed by SQLParser
+		 */
+		public String getColumnName(int index) {
+			return columns != null ? columns.name(index) : null;
+		}
+
+		/**
+		 * @param index parameter index, from 0
+		 * @return table name or alias the column is qualified with (o in o.status = ?), quotes removed,
+		 *         null if the column is not qualified or unknown
+		 */
+		public String getColumnQualifier(int index) {
+			return columns != null ? columns.qualifier(index) : null;
+		}
+
+		ColumnNames columnNames() {
+			return columns;
+		}
+
+		/**
+		 * Drops the original query once nothing is left to build from it.
+		 */
+		private void release() {
+			if (parameterizedQuery != null && parameterBuffer != null) {
+				query = null;
+				literals = null;
+			}
 		}
 	}
 
@@ -55,130 +242,436 @@ public class SQLParser {
 	 */
 
 	public static ParsedQuery parseSQLQuery(String query) {
+		return parseSQLQuery(query, Engine.REGEX);
+	}
+
+	/**
+	 * 
+	 * Same as {@link #parseSQLQuery(String)}, with the parsing engine chosen by the caller.
+	 * 
+	 * @param query
+	 * @param engine
+	 * @return
+	 */
+	public static ParsedQuery parseSQLQuery(String query, Engine engine) {
+		return parseSQLQuery(query, engine, InListStrategy.EXPAND);
+	}
+
+	/**
+	 * 
+	 * Same as {@link #parseSQLQuery(String, Engine)}, with IN lists written as the strategy says.
+	 * 
+	 * @param query
+	 * @param engine
+	 * @param inLists
+	 * @return
+	 */
+	public static ParsedQuery parseSQLQuery(String query, Engine engine, InListStrategy inLists) {
+		return parseSQLQuery(query, engine, inLists, SqlDialect.ANSI);
+	}
+
+	/**
+	 * 
+	 * Same as {@link #parseSQLQuery(String, Engine, InListStrategy)}, with strings, quoted identifiers
+	 * and comments lexed the way the dialect writes them.
+	 * 
+	 * @param query
+	 * @param engine
+	 * @param inLists
+	 * @param dialect
+	 * @return
+	 */
+	public static ParsedQuery parseSQLQuery(String query, Engine engine, InListStrategy inLists, SqlDialect dialect) {
+		
+		ParserMetrics metrics = SQLParser.metrics;
+		if (metrics == ParserMetrics.NOOP) {
+			return toParsedQuery(query, findLiterals(query, engine, inLists, dialect, metrics));
+		}
 		
-		String parameterizedQuery = query;
-		List<Object> parameters = new ArrayList<>();
+		long start = System.nanoTime();
+		return toParsedQuery(query, findLiterals(query, engine, inLists, dialect, metrics), start, metrics);
+	}
 
-		// Regex pattern to match different types of conditions
+	/**
+	 * Same as {@link #toParsedQuery(CharSequence, LiteralRanges)}, reporting the parse started at start to the metrics.
+	 */
+	static ParsedQuery toParsedQuery(String query, LiteralRanges literals, long start, ParserMetrics metrics) {
 		
-		Pattern pattern = Pattern.compile("\\b(\\w+)\\s+IN\\s*\\(([^)]+)\\)|" + // column IN (values) 1,2
-				"\\b(\\w+)\\s*=\\s*('[^']*'|\\d+(?:\\.\\d+)?)|" + 				// column = value 3,4
-				"\\b(\\w+)\\s*<\\s*('[^']*'|\\d+(?:\\.\\d+)?)|" + 				// column < value 5,6
-				"\\b(\\w+)\\s*>\\s*('[^']*'|\\d+(?:\\.\\d+)?)|" + 				// column > value 7,8
-				"\\b(\\w+)\\s*>=\\s*('[^']*'|\\d+(?:\\.\\d+)?)|" + 				// column >= value 9,10
-				"\\b(\\w+)\\s*<=\\s*('[^']*'|\\d+(?:\\.\\d+)?)|" + 				// column <= value 11,12
-				"\\b(\\w+)\\s*!=\\s*('[^']*'|\\d+(?:\\.\\d+)?)|" + 				// column = value 13,14
-				"\\b(\\w+)\\s+BETWEEN\\s+('[^']*'|\\d+)\\s+AND\\s+('[^']*'|\\d+)" 	// column BETWEEN value1 AND value2
-																					// 15, 16, 17
-		);
-		Matcher matcher = pattern.matcher(query);
+		ParsedQuery parsedQuery = toParsedQuery(query, literals);
+		metrics.parsed(System.nanoTime() - start, parsedQuery.getParameterBuffer().size());
+		
+		int unmatched = countUnmatchedLiterals(query, literals);
+		if (unmatched > 0) {
+			metrics.unmatchedLiterals(unmatched);
+		}
+		return parsedQuery;
+	}
+
+	/**
+	 * 
+	 * Finds the literals like {@link #parseSQLQuery(String)} but builds neither the parameterized query
+	 * nor the parameters: the ParsedQuery keeps a reference to the query and produces them on first use.
+	 * For callers that only need part of the result, e.g. the parameters for an audit log, or that
+	 * write the parameterized query into their own buffer. The query must not change while the
+	 * ParsedQuery is in use.
+	 * 
+	 * @param query
+	 * @return
+	 */
+	public static ParsedQuery parseLazily(CharSequence query) {
+		return parseLazily(query, Engine.REGEX, InListStrategy.EXPAND);
+	}
+
+	/**
+	 * 
+	 * Same as {@link #parseLazily(CharSequence)}, with the engine and IN list strategy chosen by the caller.
+	 * 
+	 * @param query
+	 * @param engine
+	 * @param inLists
+	 * @return
+	 */
+	public static ParsedQuery parseLazily(CharSequence query, Engine engine, InListStrategy inLists) {
+		
+		ParserMetrics metrics = SQLParser.metrics;
+		if (metrics == ParserMetrics.NOOP) {
+			return new ParsedQuery(query, findLiterals(query, engine, inLists, SqlDialect.ANSI, metrics));
+		}
+		
+		long start = System.nanoTime();
+		LiteralRanges literals = findLiterals(query, engine, inLists, SqlDialect.ANSI, metrics);
+		metrics.parsed(System.nanoTime() - start, literals.parameterCount());
+		
+		int unmatched = countUnmatchedLiterals(query, literals);
+		if (unmatched > 0) {
+			metrics.unmatchedLiterals(unmatched);
+		}
+		return new ParsedQuery(query, literals);
+	}
+
+	/**
+	 * Installs the metrics every parse and bind is reported to, process wide.
+	 * 
+	 * @param metrics null to go back to {@link ParserMetrics#NOOP}
+	 */
+	public static void setMetrics(ParserMetrics metrics) {
+		SQLParser.metrics = metrics != null ? metrics : ParserMetrics.NOOP;
+	}
+
+	public static ParserMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Counts the literal tokens of the query that are not among the parameters, i.e. values
+	 * left in the parameterized query. Lexes the query again, so it only runs when metrics are on.
+	 */
+	static int countUnmatchedLiterals(CharSequence query, LiteralRanges parameters) {
+		
+		int unmatched = 0;
+		int parameter = 0;
+		SQLLexer lexer = new SQLLexer(query, parameters.dialect());
+		for (lexer.nextValue(); lexer.token() != Token.END; lexer.nextValue()) {
+			if (!lexer.isLiteral()) {
+				continue;
+			}
+			while (parameter < parameters.valueCount() && parameters.valueStart(parameter) < lexer.start()) {
+				parameter++;
+			}
+			if (parameter == parameters.valueCount() || parameters.valueStart(parameter) != lexer.start()) {
+				unmatched++;
+			}
+		}
+		return unmatched;
+	}
+
+	/**
+	 * Runs the engine over the query and returns the offsets of the literals it parameterizes.
+	 * 
+	 * @param metrics receives the conditions recognized; {@link ParserMetrics#NOOP} unless the caller
+	 *            reports the query as parsed, so lookups like fingerprinting do not count them
+	 */
+	static LiteralRanges findLiterals(CharSequence query, Engine engine, InListStrategy inLists, SqlDialect dialect,
+			ParserMetrics metrics) {
+		
+		switch (engine) {
+		case LEXER:
+			return findLiteralsWithLexer(query, inLists, dialect, metrics);
+		case TREE:
+			return WhereParser.findLiterals(query, inLists, dialect, metrics);
+		default:
+			return findLiteralsWithRegex(query, inLists, dialect, metrics);
+		}
+	}
+
+	private static LiteralRanges findLiteralsWithRegex(CharSequence query, InListStrategy inLists, SqlDialect dialect,
+			ParserMetrics metrics) {
+		
+		LiteralRanges literals = new LiteralRanges(inLists, dialect);
+
+		Matcher matcher = dialect.conditionPattern().matcher(query);
+		SQLLexer lexer = null;	// reads IN lists, created for the first one
+		BitSet tokenStarts = hasComments(query, dialect) ? tokenStarts(query, dialect) : null;
 		//
-		// Process each condition, replacing with placeholders and adding values to
-		// parameters list
+		// Process each condition, recording the offsets of its values; the
+		// parameterized query is written once at the end
 		//
-		while (matcher.find()) {
+		int from = 0;
+		while (from <= query.length() && matcher.find(from)) {
+			
+			from = matcher.end();
+			if (tokenStarts != null && !tokenStarts.get(matcher.start())) {
+				from = matcher.start() + 1; // inside a comment
+				continue;
+			}
 			
 			if (matcher.group(1) != null) {
 				
-				// Handle "column IN (values)"
+				// Handle "column IN (values)", a list of values only, like the lexer engine
 				
-				String[] values = matcher.group(2).split(",");
-				StringBuilder placeholders = new StringBuilder();
-				for (String val : values) {
-					val = val.trim();
-					placeholders.append("?, ");
-					parameters.add(parseValue(val));
+				if (lexer == null) {
+					lexer = new SQLLexer(query, dialect);
 				}
-				placeholders.setLength(placeholders.length() - 2); // Remove last comma and space
-				parameterizedQuery = parameterizedQuery.replaceFirst(Pattern.quote(matcher.group(2)), placeholders.toString());
-				
-			} else if (matcher.group(3) != null) {
-				
-				// Handle "column = value"
-				
-				String value = matcher.group(4).trim();
-				parameterizedQuery = parameterizedQuery.replaceFirst(Pattern.quote(value), "?");
-				parameters.add(parseValue(value));
-				
-			} else if (matcher.group(5) != null) {
-				
-				// Handle "column < value"
-				
-				String value = matcher.group(6).trim();
-				parameterizedQuery = parameterizedQuery.replaceFirst(Pattern.quote(value), "?");
-				parameters.add(parseValue(value));
-				
-			} else if (matcher.group(7) != null) {
-				
-				// Handle "column > value"
-				
-				String value = matcher.group(8).trim();
-				parameterizedQuery = parameterizedQuery.replaceFirst(Pattern.quote(value), "?");
-				parameters.add(parseValue(value));
-				
-			} else if (matcher.group(9) != null) {
-				
-				// Handle "column >= value"
-				
-				String value = matcher.group(10).trim();
-				parameterizedQuery = parameterizedQuery.replaceFirst(Pattern.quote(value), "?");
-				parameters.add(parseValue(value));
-				
-			} else if (matcher.group(11) != null) {
-				
-				// Handle "column <= value"
-				String value = matcher.group(12).trim();
-				parameterizedQuery = parameterizedQuery.replaceFirst(Pattern.quote(value), "?");
-				parameters.add(parseValue(value));
+				lexer.reset(matcher.end(2));
+				int firstValue = literals.valueCount();
+				Token separator = Token.COMMA;
+				while (separator == Token.COMMA && lexer.nextValue()) {
+					literals.addValue(lexer.start(), lexer.end());
+					separator = lexer.next();
+				}
+				if (separator != Token.RIGHT_PAREN) {
+					literals.truncateValues(firstValue);
+					from = matcher.end(2); // e.g. a sub-query, whose conditions are matched in turn
+					continue;
+				}
+				int valueCount = literals.valueCount() - firstValue;
+				boolean negated = matcher.group(1).equalsIgnoreCase("NOT");
+				int conditionStart = matcher.end(1);
+				while (query.charAt(conditionStart) <= ' ') {
+					conditionStart++;
+				}
+				literals.addList(negated ? matcher.start(1) : conditionStart, matcher.end(2), lexer.start(),
+						lexer.end(), firstValue, negated);
+				if (!negated) {
+					literals.setColumn(firstValue, matcher.start(1), matcher.end(1));
+				}
+				metrics.condition(Condition.IN);
+				metrics.inList(valueCount);
+				from = lexer.end();
 				
-			} else if (matcher.group(13) != null) {
+			} else if (matcher.group(15) != null) {
 				
-				// Handle "column != value"
+				// Handle "column BETWEEN value1 AND value2"
 				
-				String value = matcher.group(14).trim();
-				parameterizedQuery = parameterizedQuery.replaceFirst(Pattern.quote(value), "?");
-				parameters.add(parseValue(value));
+				literals.addLiteral(matcher.start(16), matcher.end(16));
+				literals.addLiteral(matcher.start(17), matcher.end(17));
+				literals.setColumn(literals.valueCount() - 2, matcher.start(15), matcher.end(15));
+				metrics.condition(Condition.BETWEEN);
 				
-			} else if (matcher.group(15) != null) {
+			} else {
 				
-				// Handle "column BETWEEN value1 AND value2"
+				// Handle "column op value" for =, <, >, >=, <=, != and <> (groups 3 to 14)
 				
-				String value1 = matcher.group(16).trim();
-				String value2 = matcher.group(17).trim();
-				parameterizedQuery = parameterizedQuery.replaceFirst(Pattern.quote(value1 + " AND " + value2), "? AND ?");
-				parameters.add(parseValue(value1));
-				parameters.add(parseValue(value2));
+				for (int group = 4; group <= 14; group += 2) {
+					if (matcher.start(group) != -1) {
+						literals.addLiteral(matcher.start(group), matcher.end(group));
+						literals.setColumn(literals.valueCount() - 1, matcher.start(group - 1), matcher.end(group - 1));
+						metrics.condition(Condition.COMPARISON);
+						break;
+					}
+				}
+			}
+		}
+
+		return literals;
+	}
+
+	/**
+	 * @return whether the query may hold a comment of the dialect, which the regex would read as text
+	 */
+	private static boolean hasComments(CharSequence query, SqlDialect dialect) {
+		boolean hash = dialect.has(SqlDialect.Feature.HASH_COMMENTS);
+		for (int i = 0; i < query.length(); i++) {
+			char c = query.charAt(i);
+			if ((c == '-' || c == '/') && i + 1 < query.length() && query.charAt(i + 1) == (c == '-' ? '-' : '*')
+					|| c == '#' && hash) {
+				return true;
 			}
 		}
+		return false;
+	}
 
-		return new ParsedQuery(parameterizedQuery, parameters);
+	/**
+	 * @return the offsets where the lexer starts a token; a match starting elsewhere is in a comment or a string
+	 */
+	private static BitSet tokenStarts(CharSequence query, SqlDialect dialect) {
+		BitSet starts = new BitSet(query.length());
+		SQLLexer lexer = new SQLLexer(query, dialect);
+		while (lexer.next() != Token.END) {
+			starts.set(lexer.start());
+		}
+		return starts;
 	}
 
 	/**
-	 * Parses a string value, handling single-quoted strings and numbers.
 	 * 
-	 * @param value
+	 * Scans the query once with SQLLexer. A word followed by a comparison operator and a
+	 * value, by IN and a parenthesized list of values, or by BETWEEN value AND value
+	 * is a condition; the offsets of its values are recorded for the rewrite. Values are
+	 * literals, negative numbers, NULL, TRUE and FALSE, see {@link SQLLexer#isValue()}.
+	 * 
+	 * IN lists that contain anything other than literals (sub-queries, columns) are left as they are.
+	 * 
+	 * @param query
 	 * @return
 	 */
-	private static Object parseValue(String value) {
+	private static LiteralRanges findLiteralsWithLexer(CharSequence query, InListStrategy inLists, SqlDialect dialect,
+			ParserMetrics metrics) {
 		
-		if (value.startsWith("'") && value.endsWith("'")) {
+		LiteralRanges literals = new LiteralRanges(inLists, dialect);
+
+		SQLLexer lexer = new SQLLexer(query, dialect);
+		boolean afterColumn = false;	// previous token is a word that can start a condition
+		int previousStart = 0;
+		int previousEnd = 0;
+		
+		for (Token token = lexer.next(); token != Token.END; token = lexer.next()) {
 			
-			return value.substring(1, value.length() - 1); // It's a string, strip quotes
+			int tokenStart = lexer.start();
+			int tokenEnd = lexer.end();
 			
-		} else if (value.matches("-?\\d+(\\.\\d+)?")) { // Numeric values
+			if (afterColumn) {
+				
+				int mark = lexer.end();
+				
+				if (token == Token.OPERATOR) {
+					
+					// Handle "column op value"
+					
+					if (lexer.nextValue()) {
+						literals.addLiteral(lexer.start(), lexer.end());
+						literals.setColumn(literals.valueCount() - 1, previousStart, previousEnd);
+						metrics.condition(Condition.COMPARISON);
+						afterColumn = false;
+						continue;
+					}
+					lexer.reset(mark);
+					
+				} else if (lexer.isKeyword("IN")) {
+					
+					// Handle "column IN (values)"
+					
+					if (lexer.next() == Token.LEFT_PAREN) {
+						int listStart = lexer.end();
+						int firstValue = literals.valueCount();
+						Token separator = Token.COMMA;
+						while (separator == Token.COMMA) {
+							if (!lexer.nextValue()) {
+								break;
+							}
+							literals.addValue(lexer.start(), lexer.end());
+							separator = lexer.next();
+						}
+						if (separator == Token.RIGHT_PAREN) {
+							boolean negated = SQLLexer.isKeyword(query, previousStart, previousEnd, "NOT");
+							metrics.inList(literals.valueCount() - firstValue);
+							literals.addList(negated ? previousStart : tokenStart, listStart, lexer.start(), lexer.end(),
+									firstValue, negated);
+							if (!negated) {
+								literals.setColumn(firstValue, previousStart, previousEnd);
+							}
+							metrics.condition(Condition.IN);
+							afterColumn = false;
+							continue;
+						}
+						literals.truncateValues(firstValue);
+					}
+					lexer.reset(mark);
+					
+				} else if (lexer.isKeyword("BETWEEN")) {
+					
+					// Handle "column BETWEEN value1 AND value2"
+					
+					if (lexer.nextValue()) {
+						int start1 = lexer.start();
+						int end1 = lexer.end();
+						lexer.next();
+						if (lexer.isKeyword("AND") && lexer.nextValue()) {
+							literals.addLiteral(start1, end1);
+							literals.addLiteral(lexer.start(), lexer.end());
+							literals.setColumn(literals.valueCount() - 2, previousStart, previousEnd);
+							metrics.condition(Condition.BETWEEN);
+							afterColumn = false;
+							continue;
+						}
+					}
+					lexer.reset(mark);
+				}
+			}
 			
-			if (value.contains(".")) {
-				return Double.parseDouble(value);
+			afterColumn = token == Token.WORD || token == Token.NUMBER;
+			previousStart = tokenStart;
+			previousEnd = tokenEnd;
+		}
+		
+		return literals;
+	}
+
+	/**
+	 * Writes the parameterized query and decodes the parameters from the recorded offsets.
+	 */
+	static ParsedQuery toParsedQuery(CharSequence query, LiteralRanges literals) {
+		return new ParsedQuery(literals.rewrite(query), decodeParameters(query, literals), ColumnNames.of(query, literals));
+	}
+
+	private static ParameterBuffer decodeParameters(CharSequence query, LiteralRanges literals) {
+		ParameterBuffer parameters = new ParameterBuffer(literals.valueCount());
+		decodeParameters(query, literals, 0, literals.valueCount(), parameters);
+		return parameters;
+	}
+
+	/**
+	 * Decodes values [from, to) into parameters; no array may cross from or to.
+	 */
+	static void decodeParameters(CharSequence query, LiteralRanges literals, int from, int to, ParameterBuffer parameters) {
+		
+		int array = 0;
+		while (array < literals.arrayCount() && literals.arrayStart(array) < from) {
+			array++;
+		}
+		int i = from;
+		while (i < to) {
+			if (array < literals.arrayCount() && literals.arrayStart(array) == i) {
+				
+				// The values of an IN list bound as an array make up one parameter
+				
+				int end = i + literals.arrayLength(array++);
+				ParameterBuffer elements = new ParameterBuffer(end - i);
+				for (; i < end; i++) {
+					elements.addLiteral(query, literals.valueStart(i), literals.valueEnd(i), literals.dialect());
+				}
+				parameters.addArray(ArrayParameter.of(elements));
 			} else {
-				return Integer.parseInt(value);
+				parameters.addLiteral(query, literals.valueStart(i), literals.valueEnd(i), literals.dialect());
+				i++;
 			}
-			
-		} else {
-			return value; // In case of unsupported types
 		}
 	}
 
+	/**
+	 * Parses a string value, handling single-quoted strings, numbers, NULL, TRUE and FALSE.
+	 * See {@link ParameterBuffer#addLiteral(CharSequence, int, int)} for the types returned.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	static Object parseValue(String value) {
+		
+		ParameterBuffer decoded = new ParameterBuffer(1);
+		decoded.addLiteral(value, 0, value.length());
+		return decoded.get(0);
+	}
+
 	/**
 	 * 
 	 * Initializes a PreparedStatement with the parameterized query and then
@@ -192,25 +685,99 @@ public class SQLParser {
 	public static PreparedStatement createPreparedStatement(Connection connection, ParsedQuery parsedQuery)
 			throws SQLException {
 		PreparedStatement preparedStatement = connection.prepareStatement(parsedQuery.getParameterizedQuery());
+		setParameters(preparedStatement, parsedQuery);
+		return preparedStatement;
+	}
+
+	/**
+	 * 
+	 * Same as {@link #createPreparedStatement(Connection, ParsedQuery)}, reusing the statement
+	 * the cache holds for the connection and parameterized query when there is one.
+	 * The returned statement belongs to the cache and must not be closed by the caller.
+	 * 
+	 * @param connection
+	 * @param parsedQuery
+	 * @param statementCache
+	 * @return
+	 * @throws SQLException
+	 */
+	public static PreparedStatement createPreparedStatement(Connection connection, ParsedQuery parsedQuery,
+			StatementCache statementCache) throws SQLException {
+		PreparedStatement preparedStatement = statementCache.prepare(connection, parsedQuery.getParameterizedQuery());
+		setParameters(preparedStatement, parsedQuery);
+		return preparedStatement;
+	}
 
-		// Set the extracted parameters into the PreparedStatement
+	/**
+	 * Sets the extracted parameters into the PreparedStatement with the setter matching their type tag,
+	 * reading numbers straight from the buffer's primitive columns.
+	 */
+	static void setParameters(PreparedStatement preparedStatement, ParsedQuery parsedQuery) throws SQLException {
 		
-		List<Object> parameters = parsedQuery.getParameters();
+		ParserMetrics metrics = SQLParser.metrics;
+		long start = metrics != ParserMetrics.NOOP ? System.nanoTime() : 0;
+		
+		ParameterBuffer parameters = parsedQuery.getParameterBuffer();
 		for (int i = 0; i < parameters.size(); i++) {
-			if (parameters.get(i) instanceof String) {
-				preparedStatement.setString(i + 1, (String) parameters.get(i));
-			} else if (parameters.get(i) instanceof Integer) {
-				preparedStatement.setInt(i + 1, (Integer) parameters.get(i));
-			} else if (parameters.get(i) instanceof Double) {
-				preparedStatement.setDouble(i + 1, (Double) parameters.get(i));
-			}
+			setParameter(preparedStatement, parameters, i);
+		}
+		
+		if (metrics != ParserMetrics.NOOP) {
+			metrics.bound(System.nanoTime() - start, parameters.size());
 		}
-		return preparedStatement;
+	}
+
+	/**
+	 * Sets parameter i of the buffer, at index i + 1, with the setter matching its type tag.
+	 */
+	static void setParameter(PreparedStatement preparedStatement, ParameterBuffer parameters, int i) throws SQLException {
+		switch (parameters.type(i)) {
+		case STRING:
+			preparedStatement.setString(i + 1, parameters.getString(i));
+			break;
+		case INTEGER:
+			preparedStatement.setInt(i + 1, parameters.getInt(i));
+			break;
+		case LONG:
+			preparedStatement.setLong(i + 1, parameters.getLong(i));
+			break;
+		case DOUBLE:
+			preparedStatement.setDouble(i + 1, parameters.getDouble(i));
+			break;
+		case DECIMAL:
+			preparedStatement.setBigDecimal(i + 1, parameters.getDecimal(i));
+			break;
+		case BOOLEAN:
+			preparedStatement.setBoolean(i + 1, parameters.getBoolean(i));
+			break;
+		case NULL:
+			preparedStatement.setNull(i + 1, Types.NULL);
+			break;
+		case ARRAY:
+			preparedStatement.setArray(i + 1, parameters.getArray(i).toSQLArray(preparedStatement.getConnection()));
+			break;
+		default:
+			preparedStatement.setObject(i + 1, parameters.getObject(i));
+		}
+	}
+
+	private final StatementCache statementCache;
+
+	public SQLParser() {
+		this(null);
+	}
+
+	/**
+	 * @param statementCache cache used by {@link #prepareStatement(Connection, ParsedQuery)}, null to prepare every time
+	 */
+	public SQLParser(StatementCache statementCache) {
+		this.statementCache = statementCache;
 	}
 
 	/**
 	 * 
-	 * Returns a PreparedStatement
+	 * Returns a PreparedStatement; taken from the statement cache if this parser has one,
+	 * in which case it must not be closed by the caller.
 	 * 
 	 * @param connection
 	 * @param parsedQuery
@@ -219,10 +786,25 @@ public class SQLParser {
 	 */
     public PreparedStatement prepareStatement(Connection connection, ParsedQuery parsedQuery) throws SQLException {
     	
-        PreparedStatement preparedStmt = connection.prepareStatement(parsedQuery.getParameterizedQuery());
+        PreparedStatement preparedStmt = statementCache != null
+        		? statementCache.prepare(connection, parsedQuery.getParameterizedQuery())
+        		: connection.prepareStatement(parsedQuery.getParameterizedQuery());
+        
+        ParserMetrics metrics = SQLParser.metrics;
+        long start = metrics != ParserMetrics.NOOP ? System.nanoTime() : 0;
+        
+        List<Object> parameters = parsedQuery.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            Object parameter = parameters.get(i);
+            if (parameter instanceof ArrayParameter) {
+                preparedStmt.setArray(i + 1, ((ArrayParameter) parameter).toSQLArray(connection));
+            } else {
+                preparedStmt.setObject(i + 1, parameter);
+            }
+        }
         
-        for (int i = 0; i < parsedQuery.parameters.size(); i++) {
-            preparedStmt.setObject(i + 1, parsedQuery.parameters.get(i));
+        if (metrics != ParserMetrics.NOOP) {
+            metrics.bound(System.nanoTime() - start, parameters.size());
         }
         return preparedStmt;
     }
@@ -0,0 +1,319 @@
+package com.vinay.app;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import com.vinay.app.SQLParser.Engine;
+import com.vinay.app.SQLParser.ParsedQuery;
+
+/**
+ * Parses SQL scripts of semicolon separated statements without reading them into memory whole.
+ *
+ * The input is read in chunks and split on semicolons that are not inside a quoted string,
+ * a quoted identifier or a comment, following the same {@link SqlDialect} rules as {@link SQLLexer}:
+ * PostgreSQL dollar quoted bodies and MySQL backslash escapes are not cut. Each statement is parsed
+ * with {@link SQLParser#parseSQLQuery(String, Engine, InListStrategy, SqlDialect)} and handed to the
+ * consumer before the next one is read, so memory use depends on the largest statement, not on the
+ * size of the script.
+ *
+ * Files can be read through a memory mapping, one window of the file at a time.
+ */
+public class SQLScriptParser {
+
+	private static final int CHUNK_SIZE = 8192;
+	private static final long MAPPING_WINDOW = 64L * 1024 * 1024;
+
+	private final Engine engine;
+	private final SqlDialect dialect;
+	private final long mappingWindow;
+
+	public SQLScriptParser() {
+		this(Engine.REGEX);
+	}
+
+	/**
+	 * @param engine engine each statement is parsed with
+	 */
+	public SQLScriptParser(Engine engine) {
+		this(engine, SqlDialect.ANSI);
+	}
+
+	/**
+	 * @param engine engine each statement is parsed with
+	 * @param dialect rules for quotes, escapes and comments, used to split the script and to parse
+	 *        each statement
+	 */
+	public SQLScriptParser(Engine engine, SqlDialect dialect) {
+		this(engine, dialect, MAPPING_WINDOW);
+	}
+
+	SQLScriptParser(Engine engine, long mappingWindow) {
+		this(engine, SqlDialect.ANSI, mappingWindow);
+	}
+
+	SQLScriptParser(Engine engine, SqlDialect dialect, long mappingWindow) {
+		this.engine = engine;
+		this.dialect = dialect;
+		this.mappingWindow = mappingWindow;
+	}
+
+	/**
+	 * @param reader script to parse; not closed
+	 * @param consumer receives every statement of the script in order
+	 * @return number of statements parsed
+	 * @throws IOException
+	 */
+	public long parse(Reader reader, Consumer<ParsedQuery> consumer) throws IOException {
+
+		Splitter splitter = new Splitter(consumer);
+		char[] chunk = new char[CHUNK_SIZE];
+		for (int read = reader.read(chunk); read != -1; read = reader.read(chunk)) {
+			splitter.feed(chunk, 0, read);
+		}
+		splitter.finish();
+		return splitter.statementCount;
+	}
+
+	/**
+	 * Maps the file window by window and decodes it into statements.
+	 *
+	 * @param file script to parse
+	 * @param charset encoding of the file
+	 * @param consumer receives every statement of the script in order
+	 * @return number of statements parsed
+	 * @throws IOException also when the file is not valid in the charset
+	 */
+	public long parse(Path file, Charset charset, Consumer<ParsedQuery> consumer) throws IOException {
+
+		Splitter splitter = new Splitter(consumer);
+		CharsetDecoder decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+		CharBuffer chunk = CharBuffer.allocate(CHUNK_SIZE);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+			long size = channel.size();
+			long position = 0;
+			long windowSize = mappingWindow;
+			do {
+				long length = Math.min(windowSize, size - position);
+				boolean lastWindow = position + length == size;
+				MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+				decode(decoder, window, chunk, lastWindow, splitter);
+
+				// A character cut by the end of the window is decoded again from the next one
+
+				if (window.position() == 0 && !lastWindow) {
+					windowSize *= 2; // window smaller than one character
+				}
+				position += window.position();
+			} while (position < size);
+
+			CoderResult result = decoder.flush(chunk);
+			if (result.isError()) {
+				result.throwException();
+			}
+			feed(chunk, splitter);
+		}
+		splitter.finish();
+		return splitter.statementCount;
+	}
+
+	private static void decode(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chunk, boolean endOfInput,
+			Splitter splitter) throws IOException {
+
+		while (true) {
+			CoderResult result = decoder.decode(bytes, chunk, endOfInput);
+			if (result.isError()) {
+				result.throwException();
+			}
+			feed(chunk, splitter);
+			if (result.isUnderflow()) {
+				return;
+			}
+		}
+	}
+
+	private static void feed(CharBuffer chunk, Splitter splitter) {
+		chunk.flip();
+		splitter.feed(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+		chunk.clear();
+	}
+
+	/**
+	 * Collects characters into the current statement and parses it at every top-level semicolon.
+	 * Tracks the same tokens as SQLLexer does for the dialect, one character at a time, so that a
+	 * chunk may end anywhere.
+	 */
+	private final class Splitter {
+
+		private static final int CODE = 0;
+		private static final int QUOTED = 1;		// string or quoted identifier
+		private static final int QUOTE_END = 2;		// after a closing quote, which may be doubled
+		private static final int LINE_COMMENT = 3;
+		private static final int BLOCK_COMMENT = 4;
+		private static final int DOLLAR_TAG = 5;	// after a $ that may open a $tag$
+		private static final int DOLLAR_QUOTED = 6;
+
+		private final Consumer<ParsedQuery> consumer;
+		private final StringBuilder statement = new StringBuilder();
+		private int state = CODE;
+		private char previous;
+		private int wordLength;			// of the word ending at previous, in CODE
+		private char wordFirst;
+		private char closingQuote;		// of QUOTED
+		private boolean backslashEscapes;
+		private boolean escaped;
+		private final StringBuilder tag = new StringBuilder();	// $tag$ of DOLLAR_TAG and DOLLAR_QUOTED
+		private int contentStart;		// of the DOLLAR_QUOTED string in statement
+		private long statementCount;
+
+		Splitter(Consumer<ParsedQuery> consumer) {
+			this.consumer = consumer;
+		}
+
+		void feed(char[] chars, int offset, int length) {
+
+			for (int i = offset; i < offset + length; i++) {
+				char c = chars[i];
+
+				if (state == DOLLAR_TAG) {
+					if (c == '$' || SQLLexer.isWordChar(c) && !(tag.length() == 1 && SQLLexer.isDigit(c))) {
+						tag.append(c);
+						if (c == '$') {
+							contentStart = statement.length() + 1;
+							state = DOLLAR_QUOTED;
+						}
+						statement.append(c);
+						previous = c;
+						continue;
+					}
+					wordLength = tag.length() - 1; // not a tag: a $ then a word, or a lone $
+					wordFirst = wordLength > 0 ? tag.charAt(1) : 0;
+					state = CODE;
+				} else if (state == QUOTE_END) {
+					if (c == closingQuote) {
+						state = QUOTED; // doubled quote
+						statement.append(c);
+						previous = c;
+						continue;
+					}
+					state = CODE;
+				}
+
+				switch (state) {
+				case CODE:
+					if (c == ';') {
+						emit();
+						previous = 0;
+						continue;
+					}
+					byte charClass = dialect.classOf(c);
+					if (SQLLexer.isWordChar(c)) {
+						if (wordLength++ == 0) {
+							wordFirst = c;
+						}
+						break;
+					} else if (c == '\'') {
+						open('\'', dialect.backslashEscapes(wordLength == 1 ? wordFirst : c)); // N'...', E'...'
+					} else if (charClass == SqlDialect.IDENTIFIER_QUOTE) {
+						open(dialect.closingQuote(c), false);
+					} else if (charClass == SqlDialect.DOLLAR) {
+						tag.setLength(0);
+						tag.append(c);
+						state = DOLLAR_TAG;
+					} else if (c == '-' && previous == '-' || charClass == SqlDialect.HASH_COMMENT) {
+						state = LINE_COMMENT;
+					} else if (c == '*' && previous == '/') {
+						state = BLOCK_COMMENT;
+						c = 0; // the * opening the comment cannot also close it
+					}
+					wordLength = 0;
+					break;
+				case QUOTED:
+					if (escaped) {
+						escaped = false;
+					} else if (c == '\\' && backslashEscapes) {
+						escaped = true;
+					} else if (c == closingQuote) {
+						state = QUOTE_END;
+					}
+					break;
+				case LINE_COMMENT:
+					if (c == '\n') {
+						state = CODE;
+					}
+					break;
+				case BLOCK_COMMENT:
+					if (c == '/' && previous == '*') {
+						state = CODE;
+						c = 0;
+					}
+					break;
+				default:
+					if (c == '$' && closesDollarQuote()) {
+						state = CODE;
+					}
+				}
+
+				statement.append(chars[i]);
+				previous = c;
+			}
+		}
+
+		void finish() {
+			emit();
+		}
+
+		private void open(char closing, boolean backslash) {
+			state = QUOTED;
+			closingQuote = closing;
+			backslashEscapes = backslash;
+			escaped = false;
+		}
+
+		/**
+		 * @return whether the $ about to be appended ends the tag of the current dollar quoted string
+		 */
+		private boolean closesDollarQuote() {
+			int closeStart = statement.length() - (tag.length() - 1);
+			if (closeStart < contentStart) {
+				return false;
+			}
+			for (int k = 0; k < tag.length() - 1; k++) {
+				if (statement.charAt(closeStart + k) != tag.charAt(k)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Parses the collected statement unless it holds only whitespace and comments.
+		 */
+		private void emit() {
+
+			if (new SQLLexer(statement, dialect).next() != SQLLexer.Token.END) {
+				String query = statement.toString().trim();
+				statementCount++;
+				consumer.accept(SQLParser.parseSQLQuery(query, engine, InListStrategy.EXPAND, dialect));
+			}
+			statement.setLength(0);
+			state = CODE;
+			wordLength = 0;
+		}
+	}
+}
@@ -0,0 +1,455 @@
+package com.vinay.app;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import com.vinay.app.ParameterBuffer.Type;
+import com.vinay.app.SQLLexer.Token;
+import com.vinay.app.SQLParser.ParsedQuery;
+
+/**
+ * Binds parameters with the declared type of the column they are compared with, instead of the
+ * type of the literal.
+ *
+ * {@link SQLParser#setParameters} binds '42' with setString even when it is compared with a
+ * numeric column, and the database casts the column, or the value, on every row; a cast on the column
+ * side keeps an index from being used. This binder looks up the column of each parameter
+ * ({@link ParsedQuery#getColumnName(int)}) in the tables named after FROM, JOIN, UPDATE and INTO, or in
+ * the one table its qualifier (o.status) names or aliases, and converts the value to the column's type: setLong for '42' against a BIGINT, setString for 42
+ * against a VARCHAR, setNull with the column type for NULL, setObject with the type for a string
+ * against a date or time column. A value that does not convert, a column that is not found, and
+ * arrays are bound as SQLParser would.
+ *
+ * Column types come from {@link DatabaseMetaData#getColumns}, loaded once per table and reloaded
+ * when older than the time to live. Use one binder per database; tables are keyed by schema and
+ * name only.
+ */
+public final class SchemaAwareBinder {
+
+	/**
+	 * Column types of one table as of loadedAt.
+	 */
+	private static final class TableColumns {
+
+		final Map<String, Integer> types;	// upper-case column name to java.sql.Types
+		final long loadedAt;
+
+		TableColumns(Map<String, Integer> types, long loadedAt) {
+			this.types = types;
+			this.loadedAt = loadedAt;
+		}
+	}
+
+	/**
+	 * The tables of a query, in query order, and the table each qualifier stands for.
+	 */
+	static final class Tables {
+
+		final List<String> names = new ArrayList<>(2);
+		final Map<String, String> qualified = new HashMap<>(4);	// upper-case alias or table name to table
+
+		/**
+		 * @param qualifier alias or table name a column is qualified with, null if none
+		 * @return the table the qualifier names, else every table of the query
+		 */
+		List<String> of(String qualifier) {
+			String table = qualifier != null ? qualified.get(qualifier.toUpperCase(Locale.ROOT)) : null;
+			return table != null ? Collections.singletonList(table) : names;
+		}
+	}
+
+	// Words that follow a table name without being its alias
+
+	private static final String[] NOT_ALIASES = { "ON", "USING", "WHERE", "JOIN", "INNER", "LEFT", "RIGHT", "FULL",
+			"CROSS", "NATURAL", "OUTER", "GROUP", "ORDER", "HAVING", "LIMIT", "OFFSET", "FETCH", "FOR", "UNION",
+			"EXCEPT", "INTERSECT", "WINDOW", "SET", "VALUES", "VALUE", "SELECT", "DEFAULT", "RETURNING", "OUTPUT",
+			"FROM", "WITH", "USE", "FORCE", "IGNORE", "PARTITION", "TABLESAMPLE", "STRAIGHT_JOIN" };
+
+	private static final int AS_WRITTEN = 0;
+	private static final int UPPER_CASE = 1;
+	private static final int LOWER_CASE = 2;
+
+	private final long timeToLive;
+	private final LongSupplier clock;
+	private final Map<String, TableColumns> tables = new ConcurrentHashMap<>();
+
+	/**
+	 * @param timeToLive how long the column types of a table are used before they are loaded again
+	 */
+	public SchemaAwareBinder(Duration timeToLive) {
+		this(timeToLive, System::nanoTime);
+	}
+
+	SchemaAwareBinder(Duration timeToLive, LongSupplier clock) {
+		this.timeToLive = timeToLive.toNanos();
+		this.clock = clock;
+	}
+
+	/**
+	 * Same as {@link SQLParser#createPreparedStatement(Connection, ParsedQuery)}, binding with the column types.
+	 *
+	 * @param connection
+	 * @param parsedQuery
+	 * @return
+	 * @throws SQLException
+	 */
+	public PreparedStatement createPreparedStatement(Connection connection, ParsedQuery parsedQuery) throws SQLException {
+		PreparedStatement preparedStatement = connection.prepareStatement(parsedQuery.getParameterizedQuery());
+		setParameters(connection, preparedStatement, parsedQuery);
+		return preparedStatement;
+	}
+
+	/**
+	 * Same as {@link SQLParser#createPreparedStatement(Connection, ParsedQuery, StatementCache)}, binding with
+	 * the column types. The returned statement belongs to the cache and must not be closed by the caller.
+	 *
+	 * @param connection
+	 * @param parsedQuery
+	 * @param statementCache
+	 * @return
+	 * @throws SQLException
+	 */
+	public PreparedStatement createPreparedStatement(Connection connection, ParsedQuery parsedQuery,
+			StatementCache statementCache) throws SQLException {
+		PreparedStatement preparedStatement = statementCache.prepare(connection, parsedQuery.getParameterizedQuery());
+		setParameters(connection, preparedStatement, parsedQuery);
+		return preparedStatement;
+	}
+
+	/**
+	 * Drops the cached column types, e.g. after a schema change.
+	 */
+	public void invalidate() {
+		tables.clear();
+	}
+
+	private void setParameters(Connection connection, PreparedStatement preparedStatement, ParsedQuery parsedQuery)
+			throws SQLException {
+
+		ParserMetrics metrics = SQLParser.getMetrics();
+		long start = metrics != ParserMetrics.NOOP ? System.nanoTime() : 0;
+
+		ParameterBuffer parameters = parsedQuery.getParameterBuffer();
+		Tables tables = null;
+		for (int i = 0; i < parameters.size(); i++) {
+			String column = parsedQuery.getColumnName(i);
+			Integer sqlType = null;
+			if (column != null) {
+				if (tables == null) {
+					tables = tablesOf(parsedQuery.getParameterizedQuery());
+				}
+				sqlType = columnType(connection, tables.of(parsedQuery.getColumnQualifier(i)), column);
+			}
+			if (sqlType == null || !setTyped(preparedStatement, parameters, i, sqlType)) {
+				SQLParser.setParameter(preparedStatement, parameters, i);
+			}
+		}
+
+		if (metrics != ParserMetrics.NOOP) {
+			metrics.bound(System.nanoTime() - start, parameters.size());
+		}
+	}
+
+	/**
+	 * @return declared type of the column in the first of the tables that has it, null if none has
+	 */
+	Integer columnType(Connection connection, List<String> tableNames, String column) throws SQLException {
+		String key = column.toUpperCase(Locale.ROOT);
+		for (String tableName : tableNames) {
+			Integer sqlType = columnsOf(connection, tableName).types.get(key);
+			if (sqlType != null) {
+				return sqlType;
+			}
+		}
+		return null;
+	}
+
+	private TableColumns columnsOf(Connection connection, String tableName) throws SQLException {
+		String key = tableName.toUpperCase(Locale.ROOT);
+		TableColumns columns = tables.get(key);
+		if (columns == null || clock.getAsLong() - columns.loadedAt > timeToLive) {
+			columns = load(connection, tableName);
+			tables.put(key, columns);
+		}
+		return columns;
+	}
+
+	/**
+	 * Reads the columns of schema.table, trying the name as written, then upper and lower case,
+	 * since databases differ in how they store unquoted names.
+	 */
+	private TableColumns load(Connection connection, String tableName) throws SQLException {
+
+		int dot = tableName.lastIndexOf('.');
+		String schema = dot == -1 ? null : tableName.substring(0, dot);
+		String table = tableName.substring(dot + 1);
+
+		DatabaseMetaData metaData = connection.getMetaData();
+		Set<String> tried = new HashSet<>();
+		for (int spelling = AS_WRITTEN; spelling <= LOWER_CASE; spelling++) {
+			String schemaSpelling = spell(schema, spelling);
+			String tableSpelling = spell(table, spelling);
+			if (!tried.add(schemaSpelling + "." + tableSpelling)) {
+				continue;
+			}
+			Map<String, Integer> types = new HashMap<>();
+			try (ResultSet columns = metaData.getColumns(connection.getCatalog(), schemaSpelling, tableSpelling, null)) {
+				while (columns.next()) {
+					if (table.equalsIgnoreCase(columns.getString("TABLE_NAME"))) { // _ is a wildcard in the pattern
+						types.putIfAbsent(columns.getString("COLUMN_NAME").toUpperCase(Locale.ROOT), columns.getInt("DATA_TYPE"));
+					}
+				}
+			}
+			if (!types.isEmpty()) {
+				return new TableColumns(types, clock.getAsLong());
+			}
+		}
+		return new TableColumns(Collections.emptyMap(), clock.getAsLong()); // not found, not asked again until it expires
+	}
+
+	private static String spell(String name, int spelling) {
+		if (name == null || spelling == AS_WRITTEN) {
+			return name;
+		}
+		return spelling == UPPER_CASE ? name.toUpperCase(Locale.ROOT) : name.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Reads the (schema.)table names following FROM, JOIN, UPDATE and INTO, a comma-separated FROM list
+	 * included, with their aliases. FROM inside parentheses counts only in a sub-query, not in
+	 * EXTRACT(YEAR FROM ...) or SUBSTRING(... FROM ...).
+	 *
+	 * @return the tables in query order
+	 */
+	static Tables tablesOf(String query) {
+
+		Tables tables = new Tables();
+		SQLLexer lexer = new SQLLexer(query);
+		BitSet subQueries = new BitSet();	// parenthesis depths that hold a SELECT
+		subQueries.set(0);
+		int depth = 0;
+		lexer.next();
+		while (lexer.token() != Token.END) {
+			if (lexer.token() == Token.LEFT_PAREN) {
+				depth++;
+				subQueries.set(depth, lexer.next() == Token.WORD && (lexer.isKeyword("SELECT") || lexer.isKeyword("WITH")));
+				continue;
+			}
+			if (lexer.token() == Token.RIGHT_PAREN) {
+				depth = Math.max(depth - 1, 0);
+			} else if (subQueries.get(depth) && (lexer.isKeyword("FROM") || lexer.isKeyword("JOIN")
+					|| lexer.isKeyword("UPDATE") || lexer.isKeyword("INTO"))) {
+				boolean list = lexer.isKeyword("FROM");
+				lexer.next();
+				while (table(query, lexer, tables) && list && lexer.token() == Token.COMMA) {
+					lexer.next();
+				}
+				continue;
+			}
+			lexer.next();
+		}
+		return tables;
+	}
+
+	/**
+	 * Reads table [[AS] alias] and leaves the lexer on the token after it.
+	 *
+	 * @return false if the lexer is not on a table name
+	 */
+	private static boolean table(String query, SQLLexer lexer, Tables tables) {
+
+		if (lexer.token() != Token.WORD && lexer.token() != Token.QUOTED_IDENTIFIER) {
+			return false;
+		}
+		StringBuilder name = new StringBuilder();
+		int last = name.length();
+		appendName(query, lexer, name);
+		while (lexer.next() == Token.OTHER && query.charAt(lexer.start()) == '.') {
+			lexer.next();
+			last = name.length() + 1;
+			appendName(query, lexer, name.append('.'));
+		}
+		String table = name.toString();
+		tables.names.add(table);
+
+		boolean as = lexer.isKeyword("AS");
+		if (as) {
+			lexer.next();
+		}
+		if (lexer.token() == Token.QUOTED_IDENTIFIER || lexer.token() == Token.WORD && (as || !isNotAlias(lexer))) {
+			StringBuilder alias = new StringBuilder();
+			appendName(query, lexer, alias);
+			tables.qualified.put(alias.toString().toUpperCase(Locale.ROOT), table);
+			lexer.next();
+		} else {
+			tables.qualified.putIfAbsent(table.substring(last).toUpperCase(Locale.ROOT), table);
+		}
+		return true;
+	}
+
+	private static boolean isNotAlias(SQLLexer lexer) {
+		for (String keyword : NOT_ALIASES) {
+			if (lexer.isKeyword(keyword)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void appendName(String query, SQLLexer lexer, StringBuilder name) {
+		if (lexer.token() == Token.QUOTED_IDENTIFIER) {
+			name.append(query, lexer.start() + 1, lexer.end() - 1);
+		} else {
+			name.append(query, lexer.start(), lexer.end());
+		}
+	}
+
+	/**
+	 * Binds parameter i converted to the SQL type.
+	 *
+	 * @return false if the value does not convert, to be bound by its own type instead
+	 */
+	private static boolean setTyped(PreparedStatement preparedStatement, ParameterBuffer parameters, int i, int sqlType)
+			throws SQLException {
+
+		Type type = parameters.type(i);
+		if (type == Type.NULL) {
+			preparedStatement.setNull(i + 1, sqlType);
+			return true;
+		}
+		if (type == Type.ARRAY || type == Type.OBJECT) {
+			return false;
+		}
+
+		switch (sqlType) {
+		case Types.TINYINT:
+		case Types.SMALLINT:
+		case Types.INTEGER:
+		case Types.BIGINT:
+			Long integer = toLong(parameters, i);
+			if (integer == null) {
+				return false;
+			}
+			if (sqlType != Types.BIGINT && integer == integer.intValue()) {
+				preparedStatement.setInt(i + 1, integer.intValue());
+			} else {
+				preparedStatement.setLong(i + 1, integer);
+			}
+			return true;
+		case Types.DECIMAL:
+		case Types.NUMERIC:
+			BigDecimal decimal = toDecimal(parameters, i);
+			if (decimal == null) {
+				return false;
+			}
+			preparedStatement.setBigDecimal(i + 1, decimal);
+			return true;
+		case Types.REAL:
+		case Types.FLOAT:
+		case Types.DOUBLE:
+			BigDecimal number = toDecimal(parameters, i);
+			if (number == null) {
+				return false;
+			}
+			preparedStatement.setDouble(i + 1, type == Type.DOUBLE ? parameters.getDouble(i) : number.doubleValue());
+			return true;
+		case Types.CHAR:
+		case Types.VARCHAR:
+		case Types.LONGVARCHAR:
+		case Types.NCHAR:
+		case Types.NVARCHAR:
+		case Types.LONGNVARCHAR:
+		case Types.CLOB:
+		case Types.NCLOB:
+			if (type == Type.BOOLEAN) {
+				return false;
+			}
+			preparedStatement.setString(i + 1, type == Type.STRING ? parameters.getString(i) : toDecimal(parameters, i).toPlainString());
+			return true;
+		case Types.BOOLEAN:
+		case Types.BIT:
+			if (type == Type.BOOLEAN) {
+				preparedStatement.setBoolean(i + 1, parameters.getBoolean(i));
+				return true;
+			}
+			if (type == Type.INTEGER && (parameters.getInt(i) == 0 || parameters.getInt(i) == 1)) {
+				preparedStatement.setBoolean(i + 1, parameters.getInt(i) == 1);
+				return true;
+			}
+			return false;
+		case Types.DATE:
+		case Types.TIME:
+		case Types.TIMESTAMP:
+		case Types.TIME_WITH_TIMEZONE:
+		case Types.TIMESTAMP_WITH_TIMEZONE:
+			if (type != Type.STRING) {
+				return false;
+			}
+			preparedStatement.setObject(i + 1, parameters.getString(i), sqlType); // converted by the driver
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * @return the value as an exact integer, null if it is not one
+	 */
+	private static Long toLong(ParameterBuffer parameters, int i) {
+		switch (parameters.type(i)) {
+		case INTEGER:
+		case LONG:
+			return parameters.getLong(i);
+		default:
+			BigDecimal decimal = toDecimal(parameters, i);
+			if (decimal == null) {
+				return null;
+			}
+			try {
+				return decimal.longValueExact();
+			} catch (ArithmeticException e) {
+				return null; // fraction or out of range, compared as it is
+			}
+		}
+	}
+
+	/**
+	 * @return the value as a decimal, null if it is not a number
+	 */
+	private static BigDecimal toDecimal(ParameterBuffer parameters, int i) {
+		switch (parameters.type(i)) {
+		case INTEGER:
+		case LONG:
+			return BigDecimal.valueOf(parameters.getLong(i));
+		case DOUBLE:
+			return BigDecimal.valueOf(parameters.getDouble(i));
+		case DECIMAL:
+			return parameters.getDecimal(i);
+		case STRING:
+			try {
+				return new BigDecimal(parameters.getString(i).trim());
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		default:
+			return null;
+		}
+	}
+}
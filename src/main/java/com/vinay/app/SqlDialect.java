@@ -0,0 +1,169 @@
+package com.vinay.app;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Lexical rules of a SQL dialect: which quotes start strings and identifiers, how strings escape
+ * quotes, and which comments exist. Selected with
+ * {@link SQLParser#parseSQLQuery(String, SQLParser.Engine, InListStrategy, SqlDialect)}.
+ *
+ * A dialect is a set of {@link Feature}s on top of ANSI SQL. They are compiled once, when the dialect
+ * is created, into a table giving the kind of token each ASCII character starts, so {@link SQLLexer}
+ * still decides with one lookup per token and scans the query in a single pass. The regex engine gets
+ * a condition pattern matching the dialect's string literals, compiled on first use.
+ *
+ * Built-in dialects are {@link #ANSI} (the default), {@link #POSTGRES}, {@link #MYSQL} and
+ * {@link #SQL_SERVER}; {@link #of(String, Feature...)} combines features for other databases.
+ * Double-quoted text is an identifier in every dialect, as in MySQL with ANSI_QUOTES.
+ */
+public final class SqlDialect {
+
+	public enum Feature {
+		BACKSLASH_ESCAPES,		// MySQL: 'it\'s', \n, \t, ... inside every string
+		ESCAPE_STRINGS,			// PostgreSQL: E'it\'s', backslash escapes in E strings only
+		DOLLAR_QUOTED_STRINGS,	// PostgreSQL: $$it's$$, $tag$...$tag$
+		NATIONAL_STRINGS,		// N'...'
+		BACKTICK_IDENTIFIERS,	// MySQL: `name`
+		BRACKET_IDENTIFIERS,	// SQL Server: [name], ]] escapes ]
+		HASH_COMMENTS			// MySQL: # to the end of the line
+	}
+
+	// Kind of token an ASCII character starts, see classOf
+
+	static final byte OTHER = 0;
+	static final byte SPACE = 1;
+	static final byte DIGIT = 2;
+	static final byte WORD = 3;
+	static final byte STRING_PREFIX = 4;	// word character that can start N'...' or E'...'
+	static final byte QUOTE = 5;
+	static final byte IDENTIFIER_QUOTE = 6;
+	static final byte DOLLAR = 7;
+	static final byte HASH_COMMENT = 8;
+
+	public static final SqlDialect ANSI = of("ANSI");
+	public static final SqlDialect POSTGRES = of("PostgreSQL", Feature.ESCAPE_STRINGS, Feature.DOLLAR_QUOTED_STRINGS);
+	public static final SqlDialect MYSQL = of("MySQL", Feature.BACKSLASH_ESCAPES, Feature.BACKTICK_IDENTIFIERS,
+			Feature.HASH_COMMENTS, Feature.NATIONAL_STRINGS);
+	public static final SqlDialect SQL_SERVER = of("SQL Server", Feature.BRACKET_IDENTIFIERS, Feature.NATIONAL_STRINGS);
+
+	private final String name;
+	private final Set<Feature> features;
+	private final byte[] classes = new byte[128];
+	private final char[] closingQuotes = new char[128];	// of identifier quotes
+	private volatile Pattern conditionPattern;
+
+	private SqlDialect(String name, Set<Feature> features) {
+		this.name = name;
+		this.features = Collections.unmodifiableSet(features);
+
+		for (char c = 0; c < 128; c++) {
+			if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+				classes[c] = SPACE;
+			} else if (SQLLexer.isDigit(c)) {
+				classes[c] = DIGIT;
+			} else if (SQLLexer.isWordChar(c)) {
+				classes[c] = WORD;
+			}
+		}
+		classes['\''] = QUOTE;
+		quoteIdentifiers('"', '"');
+		if (has(Feature.NATIONAL_STRINGS)) {
+			classes['N'] = classes['n'] = STRING_PREFIX;
+		}
+		if (has(Feature.ESCAPE_STRINGS)) {
+			classes['E'] = classes['e'] = STRING_PREFIX;
+		}
+		if (has(Feature.DOLLAR_QUOTED_STRINGS)) {
+			classes['$'] = DOLLAR;
+		}
+		if (has(Feature.BACKTICK_IDENTIFIERS)) {
+			quoteIdentifiers('`', '`');
+		}
+		if (has(Feature.BRACKET_IDENTIFIERS)) {
+			quoteIdentifiers('[', ']');
+		}
+		if (has(Feature.HASH_COMMENTS)) {
+			classes['#'] = HASH_COMMENT;
+		}
+	}
+
+	/**
+	 * @param name name shown by toString
+	 * @param features rules added to ANSI SQL
+	 * @return
+	 */
+	public static SqlDialect of(String name, Feature... features) {
+		Set<Feature> set = EnumSet.noneOf(Feature.class);
+		Collections.addAll(set, features);
+		return new SqlDialect(name, set);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Set<Feature> getFeatures() {
+		return features;
+	}
+
+	public boolean has(Feature feature) {
+		return features.contains(feature);
+	}
+
+	private void quoteIdentifiers(char opening, char closing) {
+		classes[opening] = IDENTIFIER_QUOTE;
+		closingQuotes[opening] = closing;
+	}
+
+	/**
+	 * @return kind of token the character starts, {@link #OTHER} for characters beyond ASCII
+	 */
+	byte classOf(char c) {
+		return c < 128 ? classes[c] : OTHER;
+	}
+
+	char closingQuote(char opening) {
+		return closingQuotes[opening];
+	}
+
+	/**
+	 * @return whether backslash escapes apply in a string starting with the quote or prefix character
+	 */
+	boolean backslashEscapes(char first) {
+		return has(Feature.BACKSLASH_ESCAPES) || (first == 'E' || first == 'e') && has(Feature.ESCAPE_STRINGS);
+	}
+
+	/**
+	 * Condition pattern of the regex engine for this dialect.
+	 */
+	Pattern conditionPattern() {
+		Pattern pattern = conditionPattern;
+		if (pattern == null) {
+			conditionPattern = pattern = SQLParser.compileConditionPattern(stringRegex());
+		}
+		return pattern;
+	}
+
+	/**
+	 * @return regex matching one string literal of the dialect, without capturing groups
+	 */
+	String stringRegex() {
+		String quoted = has(Feature.BACKSLASH_ESCAPES) ? "'(?:[^'\\\\]|\\\\.|'')*'" : "'[^']*(?:''[^']*)*'";
+		StringBuilder regex = new StringBuilder(has(Feature.NATIONAL_STRINGS) ? "[Nn]?" : "").append(quoted);
+		if (has(Feature.ESCAPE_STRINGS)) {
+			regex.append("|[Ee]'(?:[^'\\\\]|\\\\.|'')*'");
+		}
+		if (has(Feature.DOLLAR_QUOTED_STRINGS)) {
+			regex.append("|\\$\\$[\\s\\S]*?\\$\\$"); // $tag$ strings are left to the lexer engines
+		}
+		return regex.toString();
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
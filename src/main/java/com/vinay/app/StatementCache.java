@@ -0,0 +1,379 @@
+package com.vinay.app;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps PreparedStatements open per Connection and parameterized query so that executing
+ * the same query text again does not prepare it again.
+ *
+ * A reused statement has its parameters cleared before it is handed out. Each connection keeps
+ * at most a fixed number of statements; the least recently used one is closed when another is
+ * needed. Statements of connections found closed are dropped, and {@link #release(Connection)}
+ * closes the statements of a connection that is about to be closed or returned to its pool.
+ *
+ * Statements handed out belong to the cache: callers execute them but do not close them. A statement
+ * still in use across other prepare calls, e.g. one collecting a batch, can be pinned so that it
+ * is not evicted meanwhile.
+ * As with JDBC in general, a connection and its statements are used by one thread at a time;
+ * the cache itself may be shared by all threads.
+ */
+public class StatementCache implements AutoCloseable {
+
+	/**
+	 * Statements of one connection, least recently used first.
+	 */
+	private static final class ConnectionStatements extends LinkedHashMap<String, PreparedStatement> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+		private final List<PreparedStatement> evicted = new ArrayList<>();
+		private final Map<PreparedStatement, Integer> pins = new IdentityHashMap<>();
+
+		ConnectionStatements(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		/**
+		 * Moves the least recently used statements that are not pinned to evicted, to be closed by
+		 * the caller outside the map, until the capacity is respected or only pinned ones are left.
+		 * The statement about to be handed out, if any, is kept as well.
+		 */
+		void evictOverflow(PreparedStatement handedOut) {
+			for (Iterator<PreparedStatement> it = values().iterator(); size() > capacity && it.hasNext();) {
+				PreparedStatement statement = it.next();
+				if (statement != handedOut && !pins.containsKey(statement)) {
+					it.remove();
+					evicted.add(statement);
+				}
+			}
+		}
+	}
+
+	private final int maxStatementsPerConnection;
+	private final Map<Connection, ConnectionStatements> connections = new IdentityHashMap<>();
+	private final AtomicBoolean pruning = new AtomicBoolean();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder closeFailures = new LongAdder();
+
+	/**
+	 * @param maxStatementsPerConnection maximum number of open statements kept per connection
+	 */
+	public StatementCache(int maxStatementsPerConnection) {
+		if (maxStatementsPerConnection < 1) {
+			throw new IllegalArgumentException("maxStatementsPerConnection must be positive: " + maxStatementsPerConnection);
+		}
+		this.maxStatementsPerConnection = maxStatementsPerConnection;
+	}
+
+	/**
+	 * Returns the cached statement for the connection and query with its parameters and batch
+	 * cleared, or prepares and caches a new one.
+	 *
+	 * Statements evicted to make room are closed on the way; a failure to close one does not fail
+	 * the call, which has already cached the new statement, and is counted in {@link #closeFailureCount()}.
+	 *
+	 * @param connection
+	 * @param parameterizedQuery
+	 * @return
+	 * @throws SQLException
+	 */
+	public PreparedStatement prepare(Connection connection, String parameterizedQuery) throws SQLException {
+		return prepare(connection, parameterizedQuery, false);
+	}
+
+	/**
+	 * Same as {@link #prepare(Connection, String)}, and keeps the statement from being evicted
+	 * until {@link #unpin(Connection, PreparedStatement)} is called for it. While all of a
+	 * connection's statements are pinned it may hold more than the limit.
+	 *
+	 * @param connection
+	 * @param parameterizedQuery
+	 * @return
+	 * @throws SQLException
+	 */
+	public PreparedStatement preparePinned(Connection connection, String parameterizedQuery) throws SQLException {
+		return prepare(connection, parameterizedQuery, true);
+	}
+
+	/**
+	 * Releases a pin taken with {@link #preparePinned(Connection, String)}, closing whatever the
+	 * connection holds beyond the limit.
+	 *
+	 * @param connection
+	 * @param preparedStatement
+	 * @throws SQLException
+	 */
+	public void unpin(Connection connection, PreparedStatement preparedStatement) throws SQLException {
+
+		ConnectionStatements statements;
+		synchronized (connections) {
+			statements = connections.get(connection);
+		}
+		if (statements == null) {
+			return;
+		}
+		List<PreparedStatement> evicted;
+		synchronized (statements) {
+			Integer count = statements.pins.get(preparedStatement);
+			if (count == null) {
+				return;
+			}
+			if (count == 1) {
+				statements.pins.remove(preparedStatement);
+			} else {
+				statements.pins.put(preparedStatement, count - 1);
+			}
+			statements.evictOverflow(null);
+			evicted = drainEvicted(statements);
+		}
+		closeAll(evicted);
+	}
+
+	private PreparedStatement prepare(Connection connection, String parameterizedQuery, boolean pin) throws SQLException {
+
+		ConnectionStatements statements = statementsOf(connection);
+
+		PreparedStatement preparedStatement;
+		synchronized (statements) {
+			preparedStatement = statements.get(parameterizedQuery);
+		}
+
+		if (preparedStatement != null) {
+			if (!preparedStatement.isClosed()) {
+				hits.increment();
+				preparedStatement.clearParameters();
+				preparedStatement.clearBatch(); // rows left by a caller that failed before executing them
+				if (pin) {
+					synchronized (statements) {
+						statements.pins.merge(preparedStatement, 1, Integer::sum);
+					}
+				}
+				return preparedStatement;
+			}
+			synchronized (statements) {
+				statements.remove(parameterizedQuery, preparedStatement); // closed by the caller
+				statements.pins.remove(preparedStatement);
+			}
+		}
+
+		misses.increment();
+		preparedStatement = connection.prepareStatement(parameterizedQuery);
+
+		List<PreparedStatement> evicted;
+		synchronized (statements) {
+			statements.put(parameterizedQuery, preparedStatement);
+			if (pin) {
+				statements.pins.merge(preparedStatement, 1, Integer::sum);
+			}
+			statements.evictOverflow(preparedStatement);
+			evicted = drainEvicted(statements);
+		}
+		closeEvicted(evicted);
+		return preparedStatement;
+	}
+
+	/**
+	 * Closes and forgets all statements cached for the connection.
+	 *
+	 * @param connection
+	 * @throws SQLException the first failure to close a statement
+	 */
+	public void release(Connection connection) throws SQLException {
+
+		ConnectionStatements statements;
+		synchronized (connections) {
+			statements = connections.remove(connection);
+		}
+		if (statements != null) {
+			List<PreparedStatement> open;
+			synchronized (statements) {
+				open = new ArrayList<>(statements.values());
+				statements.clear();
+				statements.pins.clear();
+			}
+			closeAll(open);
+		}
+	}
+
+	/**
+	 * Closes and forgets all cached statements.
+	 */
+	@Override
+	public void close() throws SQLException {
+
+		List<Connection> cached;
+		synchronized (connections) {
+			cached = new ArrayList<>(connections.keySet());
+		}
+		SQLException failure = null;
+		for (Connection connection : cached) {
+			try {
+				release(connection);
+			} catch (SQLException e) {
+				failure = failure == null ? e : failure;
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * @return number of statements currently cached over all connections
+	 */
+	public int size() {
+		int size = 0;
+		synchronized (connections) {
+			for (ConnectionStatements statements : connections.values()) {
+				synchronized (statements) {
+					size += statements.size();
+				}
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return number of statements reused
+	 */
+	public long hitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return number of statements prepared
+	 */
+	public long missCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return number of statements closed to stay within the per-connection limit
+	 */
+	public long evictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return number of statements evicted by prepare calls whose close() failed
+	 */
+	public long closeFailureCount() {
+		return closeFailures.sum();
+	}
+
+	/**
+	 * Looks up the statements of the connection. A connection seen for the first time is a good
+	 * moment to drop the statements of connections that have been closed in the meantime.
+	 */
+	private ConnectionStatements statementsOf(Connection connection) {
+
+		synchronized (connections) {
+			ConnectionStatements statements = connections.get(connection);
+			if (statements != null) {
+				return statements;
+			}
+		}
+		pruneClosedConnections();
+		synchronized (connections) {
+			return connections.computeIfAbsent(connection, c -> new ConnectionStatements(maxStatementsPerConnection));
+		}
+	}
+
+	/**
+	 * Forgets the connections that are closed; their statements were closed with them. isClosed()
+	 * may wait on the driver, so it is called outside the lock, and by one thread at a time: others
+	 * finding a pruning under way do not wait for it.
+	 */
+	private void pruneClosedConnections() {
+
+		if (!pruning.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			List<Connection> cached;
+			synchronized (connections) {
+				cached = new ArrayList<>(connections.keySet());
+			}
+			List<Connection> closed = new ArrayList<>();
+			for (Connection connection : cached) {
+				if (isClosed(connection)) {
+					closed.add(connection);
+				}
+			}
+			if (!closed.isEmpty()) {
+				synchronized (connections) {
+					closed.forEach(connections::remove);
+				}
+			}
+		} finally {
+			pruning.set(false);
+		}
+	}
+
+	private static boolean isClosed(Connection connection) {
+		try {
+			return connection.isClosed();
+		} catch (SQLException e) {
+			return false; // kept, so that its statements are still closed by release
+		}
+	}
+
+	private List<PreparedStatement> drainEvicted(ConnectionStatements statements) {
+		if (statements.evicted.isEmpty()) {
+			return null;
+		}
+		List<PreparedStatement> evicted = new ArrayList<>(statements.evicted);
+		statements.evicted.clear();
+		evictions.add(evicted.size());
+		return evicted;
+	}
+
+	/**
+	 * Closes statements evicted by a prepare call, counting the failures instead of throwing them:
+	 * the statement being handed out is already cached, and pinned if asked to.
+	 */
+	private void closeEvicted(List<PreparedStatement> statements) {
+		if (statements == null) {
+			return;
+		}
+		for (PreparedStatement statement : statements) {
+			try {
+				statement.close();
+			} catch (SQLException e) {
+				closeFailures.increment();
+			}
+		}
+	}
+
+	private static void closeAll(List<PreparedStatement> statements) throws SQLException {
+		if (statements == null) {
+			return;
+		}
+		SQLException failure = null;
+		for (PreparedStatement statement : statements) {
+			try {
+				statement.close();
+			} catch (SQLException e) {
+				failure = failure == null ? e : failure;
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+}
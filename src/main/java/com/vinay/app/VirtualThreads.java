@@ -0,0 +1,48 @@
+package com.vinay.app;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to the virtual thread executor of Java 21 and later from code compiled for Java 17.
+ */
+final class VirtualThreads {
+
+	private static final Method NEW_EXECUTOR = lookup();
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * @return true if the running JVM has virtual threads
+	 */
+	static boolean isSupported() {
+		return NEW_EXECUTOR != null;
+	}
+
+	/**
+	 * @return an executor starting a new virtual thread for each task
+	 * @throws UnsupportedOperationException on JVMs older than Java 21
+	 */
+	static ExecutorService newExecutor() {
+
+		if (NEW_EXECUTOR == null) {
+			throw new UnsupportedOperationException("Virtual threads need Java 21 or later, running " + Runtime.version());
+		}
+		try {
+			return (ExecutorService) NEW_EXECUTOR.invoke(null);
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			throw new UnsupportedOperationException("Virtual threads are not available", e);
+		}
+	}
+
+	private static Method lookup() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,667 @@
+package com.vinay.app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.vinay.app.ParserMetrics.Condition;
+import com.vinay.app.Predicate.Kind;
+import com.vinay.app.SQLLexer.Token;
+
+/**
+ * Recursive descent parser for the boolean expressions of WHERE, HAVING and ON clauses,
+ * behind {@link SQLParser.Engine#TREE}.
+ *
+ * Every string and numeric literal inside such a clause is parameterized, wherever it appears:
+ * comparisons, LIKE patterns, IN lists, BETWEEN bounds, function arguments, arithmetic, CASE
+ * expressions and the clauses of sub-queries. NULL, TRUE and FALSE are parameterized as the
+ * right-hand side of a comparison only. Typed literals such as DATE '2024-01-01' or
+ * INTERVAL '1 day' are left as they are, since a placeholder cannot stand in for them, and so are
+ * type modifiers, CAST(x AS VARCHAR(10)) and x::numeric(10,2), and SUBSTRING(x FROM 1 FOR 3) positions.
+ *
+ * <pre>
+ * clause     := or
+ * or         := and (OR and)*
+ * and        := not (AND not)*
+ * not        := NOT not | predicate
+ * predicate  := expression [op expression | [NOT] IN (...) | [NOT] BETWEEN expression AND expression
+ *               | [NOT] LIKE expression [ESCAPE expression] | IS [NOT] (NULL | TRUE | FALSE | DISTINCT FROM expression)]
+ * expression := unary (binary-op unary)*
+ * unary      := - unary | + unary | primary
+ * primary    := literal | name[.name]* [(arguments)] | (sub-query) | (or) | CASE ... END, then :: casts and [ ] subscripts
+ * </pre>
+ *
+ * The parser never fails: a token the grammar does not cover is skipped and parsing resumes
+ * after it, so the literals around it are still parameterized.
+ */
+public final class WhereParser {
+
+	// Words that start a clause or end an expression, grouped by length for a quick lookup
+
+	private static final String[][] CLAUSE_KEYWORDS = byLength("WHERE", "HAVING", "ON", "GROUP", "ORDER", "LIMIT",
+			"OFFSET", "FETCH", "WINDOW", "UNION", "INTERSECT", "EXCEPT", "FOR", "RETURNING", "SELECT", "FROM", "JOIN",
+			"INNER", "LEFT", "RIGHT", "FULL", "CROSS", "NATURAL", "USING", "SET", "VALUES", "INTO", "WHEN", "THEN",
+			"ELSE", "END");
+
+	private final CharSequence query;
+	private final SQLLexer lexer;
+	private final LiteralRanges literals;
+	private final ParserMetrics metrics;
+	private final List<Predicate> clauses;	// null unless the tree is built
+
+	private WhereParser(CharSequence query, LiteralRanges literals, ParserMetrics metrics, boolean buildTree) {
+		this.query = query;
+		this.lexer = new SQLLexer(query, literals.dialect());
+		this.literals = literals;
+		this.metrics = metrics;
+		this.clauses = buildTree ? new ArrayList<>() : null;
+	}
+
+	/**
+	 * Parses the WHERE, HAVING and ON clauses of the query, sub-queries included.
+	 *
+	 * @param query
+	 * @return the predicate tree of every clause, in the order the clauses start in the query
+	 */
+	public static List<Predicate> parsePredicates(String query) {
+		WhereParser parser = new WhereParser(query, new LiteralRanges(), ParserMetrics.NOOP, true);
+		parser.parse();
+		return Collections.unmodifiableList(parser.clauses);
+	}
+
+	/**
+	 * Records the literals to parameterize, without building the tree.
+	 */
+	static LiteralRanges findLiterals(CharSequence query, InListStrategy inLists, SqlDialect dialect, ParserMetrics metrics) {
+		LiteralRanges literals = new LiteralRanges(inLists, dialect);
+		new WhereParser(query, literals, metrics, false).parse();
+		return literals;
+	}
+
+	private void parse() {
+		lexer.next();
+		statement(false);
+	}
+
+	/**
+	 * Walks a statement looking for clauses; a nested statement ends at its closing parenthesis.
+	 */
+	private void statement(boolean nested) {
+
+		int depth = 0;
+		while (lexer.token() != Token.END) {
+			if (lexer.token() == Token.LEFT_PAREN) {
+				depth++;
+				lexer.next();
+			} else if (lexer.token() == Token.RIGHT_PAREN) {
+				if (depth == 0 && nested) {
+					return;
+				}
+				depth = Math.max(depth - 1, 0);
+				lexer.next();
+			} else if (lexer.isKeyword("WHERE") || lexer.isKeyword("HAVING") || lexer.isKeyword("ON")) {
+				lexer.next();
+				clause();
+			} else {
+				lexer.next();
+			}
+		}
+	}
+
+	private void clause() {
+
+		int index = clauses != null ? clauses.size() : 0;
+		int start = lexer.start();
+		int firstParameter = literals.valueCount();
+
+		Predicate root = or();
+		List<Predicate> parts = null;
+		while (!isClauseEnd()) {
+			skip();
+			Predicate part = or();
+			if (clauses != null) {
+				if (parts == null) {
+					parts = new ArrayList<>();
+					addIfPresent(parts, root);
+				}
+				addIfPresent(parts, part);
+			}
+		}
+
+		if (clauses != null) {
+			if (parts != null) {
+				root = parts.size() == 1 ? parts.get(0) : leaf(Kind.EXPRESSION, false, start, firstParameter);
+			}
+			if (root != null) {
+				clauses.add(index, root); // ahead of the clauses of its sub-queries
+			}
+		}
+	}
+
+	private Predicate or() {
+		return chain(Kind.OR, "OR");
+	}
+
+	private Predicate and() {
+		return chain(Kind.AND, "AND");
+	}
+
+	/**
+	 * Parses operands separated by the keyword into one flattened node.
+	 */
+	private Predicate chain(Kind kind, String keyword) {
+
+		int start = lexer.start();
+		int firstParameter = literals.valueCount();
+		Predicate first = kind == Kind.OR ? and() : not();
+		if (!lexer.isKeyword(keyword)) {
+			return first;
+		}
+
+		List<Predicate> operands = clauses != null ? new ArrayList<>() : null;
+		if (operands != null) {
+			addIfPresent(operands, first);
+		}
+		while (lexer.isKeyword(keyword)) {
+			lexer.next();
+			Predicate operand = kind == Kind.OR ? and() : not();
+			if (operands != null) {
+				addIfPresent(operands, operand);
+			}
+		}
+		return clauses != null ? node(kind, start, firstParameter, operands) : null;
+	}
+
+	private Predicate not() {
+
+		if (lexer.isKeyword("NOT")) {
+			int start = lexer.start();
+			int firstParameter = literals.valueCount();
+			lexer.next();
+			Predicate operand = not();
+			return clauses != null && operand != null
+					? node(Kind.NOT, start, firstParameter, Collections.singletonList(operand)) : null;
+		}
+		return predicate();
+	}
+
+	private Predicate predicate() {
+
+		int start = lexer.start();
+		int firstParameter = literals.valueCount();
+		Predicate grouped = expression();
+		int operandEnd = lastEnd(start);
+		int tailFirst = literals.valueCount();
+
+		// Optional NOT in front of IN, BETWEEN and LIKE
+
+		boolean negated = false;
+		int notStart = lexer.start();
+		if (lexer.isKeyword("NOT")) {
+			int mark = lexer.start();
+			lexer.next();
+			if (lexer.isKeyword("IN") || lexer.isKeyword("BETWEEN") || lexer.isKeyword("LIKE") || lexer.isKeyword("ILIKE")) {
+				negated = true;
+			} else {
+				lexer.reset(mark);
+				lexer.next();
+			}
+		}
+
+		Kind kind;
+		if (lexer.token() == Token.OPERATOR) {
+
+			lexer.next();
+			if (lexer.isKeyword("NULL") || lexer.isKeyword("TRUE") || lexer.isKeyword("FALSE")) {
+				literals.addLiteral(lexer.start(), lexer.end());
+				lexer.next();
+			} else {
+				expression();
+			}
+			kind = Kind.COMPARISON;
+			record(Condition.COMPARISON, firstParameter);
+
+		} else if (lexer.isKeyword("IN")) {
+
+			inList(negated ? notStart : lexer.start(), negated, firstParameter);
+			kind = Kind.IN;
+
+		} else if (lexer.isKeyword("BETWEEN")) {
+
+			lexer.next();
+			if (lexer.isKeyword("SYMMETRIC")) {
+				lexer.next();
+			}
+			expression();
+			if (lexer.isKeyword("AND")) {
+				lexer.next();
+				expression();
+			}
+			kind = Kind.BETWEEN;
+			record(Condition.BETWEEN, firstParameter);
+
+		} else if (lexer.isKeyword("LIKE") || lexer.isKeyword("ILIKE")) {
+
+			lexer.next();
+			expression();
+			if (lexer.isKeyword("ESCAPE")) {
+				lexer.next();
+				expression();
+			}
+			kind = Kind.LIKE;
+			record(Condition.COMPARISON, firstParameter);
+
+		} else if (lexer.isKeyword("IS")) {
+
+			lexer.next();
+			if (lexer.isKeyword("NOT")) {
+				negated = true;
+				lexer.next();
+			}
+			if (lexer.isKeyword("DISTINCT")) {
+				lexer.next();
+				if (lexer.isKeyword("FROM")) {
+					lexer.next();
+				}
+				expression();
+			} else if (lexer.token() == Token.WORD && !isStopWord()) {
+				lexer.next(); // NULL, TRUE, FALSE, UNKNOWN
+			}
+			kind = Kind.IS;
+
+		} else if (lexer.start() == start) {
+			return null; // nothing parsed
+		} else if (grouped != null) {
+			return grouped; // (a OR b)
+		} else {
+			kind = Kind.EXPRESSION;
+		}
+
+		int column = columnStart(start, operandEnd);
+		if (column != -1 && literals.valueCount() > tailFirst) {
+			literals.setColumn(tailFirst, column, operandEnd);
+		}
+		return clauses != null ? leaf(kind, negated, start, firstParameter) : null;
+	}
+
+	/**
+	 * IN followed by a list of values, which is recorded as a list for the InListStrategy,
+	 * or by anything else, e.g. a sub-query or expressions, whose literals are parameterized one by one.
+	 */
+	private void inList(int conditionStart, boolean negated, int firstParameter) {
+
+		lexer.next();
+		if (lexer.token() != Token.LEFT_PAREN) {
+			return;
+		}
+
+		int open = lexer.start();
+		int listStart = lexer.end();
+		int firstValue = literals.valueCount();
+		boolean values = true;
+		while (values) {
+			values = lexer.nextValue();
+			if (values) {
+				literals.addValue(lexer.start(), lexer.end());
+				if (lexer.next() != Token.COMMA) {
+					break;
+				}
+			}
+		}
+
+		if (values && lexer.token() == Token.RIGHT_PAREN) {
+			metrics.condition(Condition.IN);
+			metrics.inList(literals.valueCount() - firstValue);
+			literals.addList(conditionStart, listStart, lexer.start(), lexer.end(), firstValue, negated);
+			lexer.next();
+			return;
+		}
+
+		literals.truncateValues(firstValue);
+		lexer.reset(open);
+		lexer.next();
+		parenthesized(false);
+		record(Condition.IN, firstParameter);
+	}
+
+	private Predicate expression() {
+
+		Predicate operand = unary();
+		while (isBinaryOperator()) {
+			while (isBinaryOperator()) {
+				lexer.next(); // || and other operators of two characters
+			}
+			unary();
+			operand = null;
+		}
+		return operand;
+	}
+
+	private Predicate unary() {
+
+		if (isOther('-') || isOther('+')) {
+			if (isOther('-') && lexer.position() < query.length() && SQLLexer.isDigit(query.charAt(lexer.position()))) {
+				lexer.reset(lexer.start());
+				lexer.nextValue(); // -5 is one literal
+				parameterize();
+				postfix();
+				return null;
+			}
+			lexer.next();
+			unary();
+			return null;
+		}
+		return primary();
+	}
+
+	private Predicate primary() {
+
+		Predicate grouped = null;
+		switch (lexer.token()) {
+		case STRING:
+		case NUMBER:
+			parameterize();
+			break;
+		case LEFT_PAREN:
+			grouped = parenthesized(true);
+			break;
+		case QUOTED_IDENTIFIER:
+			lexer.next();
+			name();
+			break;
+		case WORD:
+			if (isStopWord()) {
+				return null;
+			} else if (lexer.isKeyword("CASE")) {
+				caseExpression();
+			} else {
+				lexer.next();
+				if (lexer.token() == Token.STRING) {
+					lexer.next(); // typed literal, DATE '2024-01-01'
+				} else {
+					name();
+				}
+			}
+			break;
+		case OTHER:
+			if (isOther('?') || isOther(':') || isOther('*')) {
+				lexer.next(); // placeholder, :name parameter or count(*)
+				if (lexer.token() == Token.WORD) {
+					lexer.next();
+				}
+				break;
+			}
+			return null;
+		default:
+			return null;
+		}
+		postfix();
+		return grouped;
+	}
+
+	/**
+	 * The rest of a qualified name and the arguments of a function call.
+	 */
+	private void name() {
+		while (isOther('.')) {
+			lexer.next();
+			if (lexer.token() == Token.WORD || lexer.token() == Token.QUOTED_IDENTIFIER || isOther('*')) {
+				lexer.next();
+			}
+		}
+		if (lexer.token() == Token.LEFT_PAREN) {
+			parenthesized(false);
+		}
+	}
+
+	/**
+	 * PostgreSQL casts (::type) and subscripts ([i]) after an operand.
+	 */
+	private void postfix() {
+		while (true) {
+			if (isOther(':') && lexer.position() < query.length() && query.charAt(lexer.position()) == ':') {
+				lexer.next();
+				lexer.next();
+				typeName(false);
+			} else if (isOther('[')) {
+				lexer.next();
+				while (!isOther(']') && lexer.token() != Token.END && lexer.token() != Token.RIGHT_PAREN) {
+					int before = lexer.start();
+					or();
+					if (lexer.start() == before) {
+						skip();
+					}
+				}
+				if (isOther(']')) {
+					lexer.next();
+				}
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * A type name after :: or after AS in CAST. Its modifiers, VARCHAR(10) or NUMERIC(10, 2), and
+	 * array bounds are part of the type, so they are kept as they are.
+	 *
+	 * @param words whether the type may be several words, DOUBLE PRECISION; only inside CAST, where
+	 *            the closing parenthesis ends it
+	 */
+	private void typeName(boolean words) {
+		if (lexer.token() != Token.WORD && lexer.token() != Token.QUOTED_IDENTIFIER) {
+			return;
+		}
+		lexer.next();
+		while (true) {
+			if (isOther('.')) {
+				lexer.next();
+				if (lexer.token() == Token.WORD || lexer.token() == Token.QUOTED_IDENTIFIER) {
+					lexer.next(); // schema qualified type
+				}
+			} else if (words && (lexer.token() == Token.WORD || lexer.token() == Token.QUOTED_IDENTIFIER)) {
+				lexer.next();
+			} else {
+				break;
+			}
+		}
+		if (lexer.token() == Token.LEFT_PAREN) {
+			int depth = 0;
+			do {
+				if (lexer.token() == Token.LEFT_PAREN) {
+					depth++;
+				} else if (lexer.token() == Token.RIGHT_PAREN) {
+					depth--;
+				}
+				lexer.next();
+			} while (depth > 0 && lexer.token() != Token.END);
+		}
+		while (isOther('[')) {
+			while (!isOther(']') && lexer.token() != Token.END) {
+				lexer.next();
+			}
+			lexer.next();
+		}
+	}
+
+	/**
+	 * A parenthesized sub-query, or a comma separated list of expressions (arguments, groups, lists).
+	 *
+	 * @param grouping whether a single boolean expression in the parentheses is returned as a group
+	 */
+	private Predicate parenthesized(boolean grouping) {
+
+		lexer.next();
+		if (lexer.isKeyword("SELECT") || lexer.isKeyword("WITH") || lexer.isKeyword("VALUES")) {
+			statement(true);
+			lexer.next();
+			return null;
+		}
+
+		Predicate first = null;
+		int items = 0;
+		while (lexer.token() != Token.RIGHT_PAREN && lexer.token() != Token.END) {
+			Predicate item = or();
+			if (items++ == 0) {
+				first = item;
+			}
+			if (lexer.token() == Token.COMMA) {
+				lexer.next();
+				items++;
+			} else if (lexer.isKeyword("AS")) {
+				lexer.next();
+				typeName(true); // CAST(x AS type)
+				items++;
+			} else if (lexer.isKeyword("FROM") || lexer.isKeyword("FOR")) {
+				if (lexer.next() == Token.NUMBER) {
+					lexer.next(); // SUBSTRING(x FROM 1 FOR 3) positions, kept like the other engines do
+				}
+				items++;
+			} else if (lexer.token() != Token.RIGHT_PAREN && lexer.token() != Token.END) {
+				skip(); // CAST(x AS type), EXTRACT(YEAR FROM x), ...
+				items++;
+			}
+		}
+		lexer.next();
+		return grouping && items == 1 ? first : null;
+	}
+
+	private void caseExpression() {
+		lexer.next();
+		while (!lexer.isKeyword("END") && lexer.token() != Token.END && lexer.token() != Token.RIGHT_PAREN) {
+			if (lexer.isKeyword("WHEN") || lexer.isKeyword("THEN") || lexer.isKeyword("ELSE")) {
+				lexer.next();
+			} else {
+				int before = lexer.start();
+				or();
+				if (lexer.start() == before) {
+					skip();
+				}
+			}
+		}
+		if (lexer.isKeyword("END")) {
+			lexer.next();
+		}
+	}
+
+	/**
+	 * Moves past one token the grammar did not expect, a parenthesized block as a whole.
+	 */
+	private void skip() {
+		if (lexer.token() == Token.LEFT_PAREN) {
+			parenthesized(false);
+		} else {
+			lexer.next();
+		}
+	}
+
+	private void parameterize() {
+		literals.addLiteral(lexer.start(), lexer.end());
+		lexer.next();
+	}
+
+	private void record(Condition condition, int firstParameter) {
+		if (literals.valueCount() > firstParameter) {
+			metrics.condition(condition);
+		}
+	}
+
+	private boolean isClauseEnd() {
+		return lexer.token() == Token.END || lexer.token() == Token.RIGHT_PAREN || isOther(';') || isStopWord();
+	}
+
+	/**
+	 * @return true if the current token is a word that cannot be an operand
+	 */
+	private boolean isStopWord() {
+		if (lexer.token() != Token.WORD) {
+			return false;
+		}
+		int length = lexer.end() - lexer.start();
+		if (length < CLAUSE_KEYWORDS.length) {
+			for (String keyword : CLAUSE_KEYWORDS[length]) {
+				if (lexer.isKeyword(keyword)) {
+					return true;
+				}
+			}
+		}
+		return lexer.isKeyword("AND") || lexer.isKeyword("OR");
+	}
+
+	/**
+	 * @return start of the last part of query[start, end) if it is a plain, possibly qualified, column name, else -1
+	 */
+	private int columnStart(int start, int end) {
+		if (start == end || SQLLexer.isDigit(query.charAt(start))) {
+			return -1;
+		}
+		int column = start;
+		for (int i = start; i < end; i++) {
+			char c = query.charAt(i);
+			if (c == '.') {
+				column = i + 1;
+			} else if (!SQLLexer.isWordChar(c)) {
+				return -1;
+			}
+		}
+		return column < end ? column : -1;
+	}
+
+	private boolean isBinaryOperator() {
+		if (lexer.token() != Token.OTHER) {
+			return false;
+		}
+		char c = query.charAt(lexer.start());
+		return c == '+' || c == '-' || c == '*' || c == '/' || c == '%' || c == '|' || c == '&' || c == '^';
+	}
+
+	private boolean isOther(char c) {
+		return lexer.token() == Token.OTHER && query.charAt(lexer.start()) == c;
+	}
+
+	private Predicate leaf(Kind kind, boolean negated, int start, int firstParameter) {
+		return Predicate.leaf(kind, negated, query, start, lastEnd(start), firstParameter,
+				literals.valueCount() - firstParameter);
+	}
+
+	private Predicate node(Kind kind, int start, int firstParameter, List<Predicate> children) {
+		return new Predicate(kind, false, query, start, lastEnd(start), firstParameter,
+				literals.valueCount() - firstParameter, Collections.unmodifiableList(children));
+	}
+
+	/**
+	 * @return end of the last token consumed, i.e. the text before the current token without trailing space
+	 */
+	private int lastEnd(int start) {
+		int end = lexer.token() == Token.END ? query.length() : lexer.start();
+		while (end > start && query.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		return end;
+	}
+
+	private static void addIfPresent(List<Predicate> predicates, Predicate predicate) {
+		if (predicate != null) {
+			predicates.add(predicate);
+		}
+	}
+
+	private static String[][] byLength(String... keywords) {
+		int maxLength = 0;
+		for (String keyword : keywords) {
+			maxLength = Math.max(maxLength, keyword.length());
+		}
+		List<List<String>> groups = new ArrayList<>();
+		for (int i = 0; i <= maxLength; i++) {
+			groups.add(new ArrayList<>());
+		}
+		for (String keyword : keywords) {
+			groups.get(keyword.length()).add(keyword);
+		}
+		String[][] byLength = new String[maxLength + 1][];
+		for (int i = 0; i <= maxLength; i++) {
+			byLength[i] = groups.get(i).toArray(new String[0]);
+		}
+		return byLength;
+	}
+}
@@ -0,0 +1,159 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+
+public class AsyncQueryExecutorTest {
+
+    @Test
+    public void testQuery_ParsesBindsAndCloses() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("SELECT name FROM users WHERE id = ?")).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString(1)).thenReturn("bob");
+
+        try (AsyncQueryExecutor executor = new AsyncQueryExecutor(dataSource, 2)) {
+            CompletableFuture<List<String>> names = executor.query("SELECT name FROM users WHERE id = 7", rows -> {
+                List<String> values = new ArrayList<>();
+                while (rows.next()) {
+                    values.add(rows.getString(1));
+                }
+                return values;
+            });
+
+            assertEquals(List.of("bob"), names.get(5, TimeUnit.SECONDS));
+        }
+        verify(preparedStatement, times(1)).setInt(1, 7);
+        verify(resultSet, times(1)).close();
+        verify(preparedStatement, times(1)).close();
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    public void testUpdate_FailureCompletesExceptionally() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        SQLException failure = new SQLException("pool exhausted");
+        when(dataSource.getConnection()).thenThrow(failure);
+
+        try (AsyncQueryExecutor executor = new AsyncQueryExecutor(dataSource, 1)) {
+            CompletableFuture<Integer> updateCount = executor.update("DELETE FROM orders WHERE order_id = 1");
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> updateCount.get(5, TimeUnit.SECONDS));
+            assertSame(failure, e.getCause());
+            assertEquals(0, executor.pendingCount());
+        }
+    }
+
+    @Test
+    public void testUpdate_ConcurrencyLimit() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenAnswer(invocation -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            active.decrementAndGet();
+            return 1;
+        });
+
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try (AsyncQueryExecutor executor = new AsyncQueryExecutor(dataSource, 2, 16, threads, SQLParser.Engine.LEXER)) {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.update("UPDATE orders SET status = 'x' WHERE order_id = " + i));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+            assertTrue(maxActive.get() <= 2, "max active " + maxActive.get());
+            for (CompletableFuture<Integer> future : futures) {
+                assertEquals(Integer.valueOf(1), future.get());
+            }
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    @Test
+    public void testSubmit_BlocksWhenPendingIsFull() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        CountDownLatch release = new CountDownLatch(1);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 1;
+        });
+
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try (AsyncQueryExecutor executor = new AsyncQueryExecutor(dataSource, 1, 1, threads, SQLParser.Engine.REGEX)) {
+            CompletableFuture<Integer> first = executor.update("DELETE FROM orders WHERE order_id = 1");
+            CountDownLatch submitted = new CountDownLatch(1);
+            Thread producer = new Thread(() -> {
+                executor.update("DELETE FROM orders WHERE order_id = 2");
+                submitted.countDown();
+            });
+            producer.start();
+
+            assertFalse(submitted.await(100, TimeUnit.MILLISECONDS));
+            assertEquals(1, executor.pendingCount());
+
+            release.countDown();
+            assertEquals(Integer.valueOf(1), first.get(5, TimeUnit.SECONDS));
+            assertTrue(submitted.await(5, TimeUnit.SECONDS));
+            producer.join();
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    @Test
+    public void testConstructor_InvalidLimits() {
+        DataSource dataSource = mock(DataSource.class);
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        try {
+            assertThrows(IllegalArgumentException.class,
+                    () -> new AsyncQueryExecutor(dataSource, 0, 1, threads, SQLParser.Engine.REGEX));
+            assertThrows(IllegalArgumentException.class,
+                    () -> new AsyncQueryExecutor(dataSource, 4, 2, threads, SQLParser.Engine.REGEX));
+        } finally {
+            threads.shutdown();
+        }
+    }
+}
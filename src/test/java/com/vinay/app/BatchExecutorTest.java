@@ -0,0 +1,207 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+public class BatchExecutorTest {
+
+    @Test
+    public void testExecute_InsertRowsBatchedTogether() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement insertStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement("INSERT INTO orders (id, status) VALUES (?, ?)")).thenReturn(insertStatement);
+        when(insertStatement.executeBatch()).thenReturn(new int[] { 1, 1, 1, 1 });
+
+        BatchExecutor batchExecutor = new BatchExecutor(mockConnection, 100);
+        int[] updateCounts = batchExecutor.execute(Arrays.asList(
+                "INSERT INTO orders (id, status) VALUES (1, 'new')",
+                "INSERT INTO orders (id, status) VALUES (2, 'new'), (3, 'paid'), (4, 'new')"));
+
+        assertArrayEquals(new int[] { 1, 3 }, updateCounts);
+        verify(mockConnection, times(1)).prepareStatement(anyString());
+        verify(insertStatement, times(4)).addBatch();
+        verify(insertStatement, times(1)).setString(2, "paid");
+        verify(insertStatement, times(1)).executeBatch();
+    }
+
+    @Test
+    public void testExecute_GroupedByShape() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement updateStatement = mock(PreparedStatement.class);
+        PreparedStatement deleteStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement("UPDATE orders SET status = ? WHERE order_id = ?")).thenReturn(updateStatement);
+        when(mockConnection.prepareStatement("DELETE FROM orders WHERE order_id = ?")).thenReturn(deleteStatement);
+        when(updateStatement.executeBatch()).thenReturn(new int[] { 1, 0 });
+        when(deleteStatement.executeBatch()).thenReturn(new int[] { 3 });
+
+        BatchExecutor batchExecutor = new BatchExecutor(mockConnection, 100);
+        int[] updateCounts = batchExecutor.execute(Arrays.asList(
+                "UPDATE orders SET status = 'shipped' WHERE order_id = 1",
+                "DELETE FROM orders WHERE order_id = 2",
+                "UPDATE orders SET status = 'lost' WHERE order_id = 3"));
+
+        assertArrayEquals(new int[] { 1, 3, 0 }, updateCounts);
+        verify(mockConnection, times(2)).prepareStatement(anyString());
+        verify(updateStatement, times(2)).addBatch();
+        verify(updateStatement, times(1)).setString(1, "lost");
+        verify(updateStatement, times(1)).setInt(2, 3);
+        verify(updateStatement, times(1)).close();
+        verify(deleteStatement, times(1)).close();
+    }
+
+    @Test
+    public void testExecute_FlushAtBatchSize() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement("DELETE FROM orders WHERE order_id = ?")).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeBatch()).thenReturn(new int[] { 1, 1 }, new int[] { 1, 1 }, new int[] { 0 });
+
+        BatchExecutor batchExecutor = new BatchExecutor(mockConnection, 2);
+        int[] updateCounts = batchExecutor.execute(Arrays.asList(
+                "DELETE FROM orders WHERE order_id = 1",
+                "DELETE FROM orders WHERE order_id = 2",
+                "DELETE FROM orders WHERE order_id = 3",
+                "DELETE FROM orders WHERE order_id = 4",
+                "DELETE FROM orders WHERE order_id = 5").iterator());
+
+        assertArrayEquals(new int[] { 1, 1, 1, 1, 0 }, updateCounts);
+        verify(mockPreparedStatement, times(3)).executeBatch();
+    }
+
+    @Test
+    public void testExecute_WithStatementCache_NotClosed() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement("DELETE FROM orders WHERE order_id = ?")).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeBatch()).thenReturn(new int[] { 1 });
+
+        BatchExecutor batchExecutor = new BatchExecutor(mockConnection, 10, new StatementCache(10));
+        batchExecutor.execute(Collections.singletonList("DELETE FROM orders WHERE order_id = 1"));
+        batchExecutor.execute(Collections.singletonList("DELETE FROM orders WHERE order_id = 2"));
+
+        verify(mockConnection, times(1)).prepareStatement("DELETE FROM orders WHERE order_id = ?");
+        verify(mockPreparedStatement, never()).close();
+    }
+
+    /**
+     * Statement counting its batch like a driver does, failing once closed.
+     */
+    private static final class BatchingStatement implements InvocationHandler {
+
+        int batch;
+        int lastExecuted;
+        boolean closed;
+
+        static PreparedStatement create(BatchingStatement[] created, int index) {
+            created[index] = new BatchingStatement();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, created[index]);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+            switch (method.getName()) {
+            case "addBatch":
+                batch++;
+                return null;
+            case "clearBatch":
+                batch = 0;
+                return null;
+            case "executeBatch":
+                if (closed) {
+                    throw new SQLException("statement is closed");
+                }
+                lastExecuted = batch;
+                batch = 0;
+                int[] counts = new int[lastExecuted];
+                Arrays.fill(counts, 1);
+                return counts;
+            case "close":
+                closed = true;
+                return null;
+            case "isClosed":
+                return closed;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                return null; // setters
+            }
+        }
+    }
+
+    @Test
+    public void testExecute_WithStatementCache_MoreShapesThanCapacity() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        BatchingStatement[] created = new BatchingStatement[4];
+        int[] preparedCount = new int[1];
+        when(mockConnection.prepareStatement(anyString()))
+                .thenAnswer(invocation -> BatchingStatement.create(created, preparedCount[0]++));
+        StatementCache statementCache = new StatementCache(1);
+
+        BatchExecutor batchExecutor = new BatchExecutor(mockConnection, 10, statementCache);
+        int[] updateCounts = batchExecutor.execute(Arrays.asList(
+                "DELETE FROM a WHERE id = 1",
+                "DELETE FROM b WHERE id = 2",
+                "DELETE FROM c WHERE id = 3",
+                "DELETE FROM a WHERE id = 4"));
+
+        assertArrayEquals(new int[] { 1, 1, 1, 1 }, updateCounts);
+        assertEquals(3, preparedCount[0]);
+        assertEquals(2, created[0].lastExecuted);
+        assertEquals(1, statementCache.size()); // back within the limit once unpinned
+    }
+
+    @Test
+    public void testExecute_WithStatementCache_FailureClearsBatch() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        BatchingStatement[] created = new BatchingStatement[1];
+        when(mockConnection.prepareStatement(anyString())).thenAnswer(invocation -> BatchingStatement.create(created, 0));
+        when(mockConnection.prepareStatement("DELETE FROM b WHERE id = ?")).thenThrow(new SQLException("boom"));
+        StatementCache statementCache = new StatementCache(10);
+        BatchExecutor batchExecutor = new BatchExecutor(mockConnection, 10, statementCache);
+
+        assertThrows(SQLException.class, () -> batchExecutor.execute(Arrays.asList(
+                "DELETE FROM a WHERE id = 1", "DELETE FROM b WHERE id = 2")));
+        assertEquals(0, created[0].batch);
+
+        int[] updateCounts = batchExecutor.execute(Collections.singletonList("DELETE FROM a WHERE id = 3"));
+
+        assertArrayEquals(new int[] { 1 }, updateCounts);
+        assertEquals(1, created[0].lastExecuted); // the row of the failed call is not executed again
+        verify(mockConnection, atLeastOnce()).prepareStatement("DELETE FROM a WHERE id = ?");
+    }
+
+    @Test
+    public void testExecute_Failure_ClosesStatements() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement("DELETE FROM orders WHERE order_id = ?")).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeBatch()).thenThrow(new SQLException("boom"));
+
+        BatchExecutor batchExecutor = new BatchExecutor(mockConnection, 10);
+
+        assertThrows(SQLException.class, () -> batchExecutor.execute(Collections.singletonList("DELETE FROM orders WHERE order_id = 1")));
+        verify(mockPreparedStatement, times(1)).close();
+    }
+}
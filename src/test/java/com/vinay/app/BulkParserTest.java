@@ -0,0 +1,93 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+public class BulkParserTest {
+
+    private static List<String> queries(int count) {
+        List<String> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            queries.add("SELECT * FROM orders WHERE order_id = " + i + " AND status IN ('a', 'b')");
+        }
+        return queries;
+    }
+
+    private static void assertInOrder(List<BulkParser.Result> results, int count) {
+        assertEquals(count, results.size());
+        for (int i = 0; i < count; i++) {
+            assertTrue(results.get(i).isSuccess());
+            assertEquals("SELECT * FROM orders WHERE order_id = ? AND status IN (?, ?)", results.get(i).getParsedQuery().getParameterizedQuery());
+            assertEquals(Arrays.asList(i, "a", "b"), results.get(i).getParsedQuery().getParameters());
+        }
+    }
+
+    @Test
+    public void testParseAll_CommonPool() {
+        assertInOrder(new BulkParser().parseAll(queries(10000)), 10000);
+    }
+
+    @Test
+    public void testParseAll_CustomForkJoinPool() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            assertInOrder(new BulkParser(pool, SQLParser.Engine.LEXER).parseAll(queries(5000)), 5000);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParseAll_ExecutorService() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            try (BulkParser parser = new BulkParser(executor, SQLParser.Engine.REGEX)) {
+                assertInOrder(parser.parseAll(queries(5000).stream()), 5000);
+            }
+            assertFalse(executor.isShutdown()); // not owned by the parser
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParseAll_VirtualThreads() {
+        if (VirtualThreads.isSupported()) {
+            BulkParser parser = BulkParser.virtualThreads(SQLParser.Engine.REGEX);
+            try {
+                assertInOrder(parser.parseAll(queries(5000)), 5000);
+            } finally {
+                parser.close();
+            }
+            assertThrows(RejectedExecutionException.class, () -> parser.parseAll(queries(5000)));
+        } else {
+            assertThrows(UnsupportedOperationException.class, () -> BulkParser.virtualThreads(SQLParser.Engine.REGEX));
+        }
+    }
+
+    @Test
+    public void testParseAll_ErrorCapturedPerQuery() {
+        List<String> queries = Arrays.asList("SELECT * FROM orders WHERE order_id = 1", null, "SELECT * FROM orders WHERE order_id = 3");
+
+        List<BulkParser.Result> results = new BulkParser().parseAll(queries);
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertNull(results.get(1).getParsedQuery());
+        assertTrue(results.get(1).getError() instanceof NullPointerException);
+        assertEquals(Arrays.asList(3), results.get(2).getParsedQuery().getParameters());
+    }
+}
@@ -0,0 +1,405 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.vinay.app.SQLParser.Engine;
+import com.vinay.app.SQLParser.ParsedQuery;
+
+/**
+ * Runs the parser, the caches and the metrics from many threads at once and compares every result
+ * with the one computed on a single thread. Each test prints its throughput from 1 to N threads, so
+ * that contention shows up next to the correctness check.
+ *
+ * -Dstress.iterations and -Dstress.threads raise the load, e.g. for a longer run before a release.
+ */
+public class ConcurrencyStressTest {
+
+    private static final int ITERATIONS = Integer.getInteger("stress.iterations", 2000);
+    private static final int MAX_THREADS = Integer.getInteger("stress.threads",
+            Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+
+    private static final String[] ANSI_QUERIES = {
+        "SELECT * FROM orders WHERE order_id = %d AND status IN ('new', 'paid', 'x%d')",
+        "SELECT o.id FROM orders o JOIN users u ON u.id = o.user_id WHERE u.name = 'O''Brien %d' AND o.total BETWEEN %d.5 AND 1e3",
+        "UPDATE orders SET status = 'done' WHERE order_id = %d OR (note LIKE '%%;%d%%' AND flag = TRUE) AND deleted IS NULL",
+        "SELECT * FROM t WHERE a NOT IN (%d, 2, 3, 4, 5, 6) AND b <> -%d LIMIT 10",
+        "SELECT * FROM t WHERE (a = %d OR b = 'y') AND c IN (SELECT d FROM u WHERE e = %d)",
+    };
+
+    private static final Engine[] ENGINES = Engine.values();
+    private static final InListStrategy[] IN_LISTS = {
+        InListStrategy.EXPAND, new InListStrategy(InListStrategy.Mode.BUCKET, 4), InListStrategy.of(InListStrategy.Mode.ARRAY)
+    };
+
+    /**
+     * One query with the options it is parsed with.
+     */
+    private static final class Case {
+
+        final String query;
+        final Engine engine;
+        final InListStrategy inLists;
+        final SqlDialect dialect;
+        final boolean lazy;
+
+        Case(String query, Engine engine, InListStrategy inLists, SqlDialect dialect, boolean lazy) {
+            this.query = query;
+            this.engine = engine;
+            this.inLists = inLists;
+            this.dialect = dialect;
+            this.lazy = lazy;
+        }
+
+        ParsedQuery parse() {
+            return lazy ? SQLParser.parseLazily(query, engine, inLists)
+                    : SQLParser.parseSQLQuery(query, engine, inLists, dialect);
+        }
+
+        @Override
+        public String toString() {
+            return engine + "/" + inLists.getMode() + (lazy ? "/lazy" : "") + ": " + query;
+        }
+    }
+
+    /**
+     * Work done by one thread in one iteration; returns a description of the mismatch, null if the result is right.
+     */
+    private interface Step {
+        String run(int thread, int iteration) throws Exception;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SQLParser.setMetrics(null);
+    }
+
+    private static List<Case> cases() {
+        List<Case> cases = new ArrayList<>();
+        for (int value = 0; value < 4; value++) {
+            for (String query : ANSI_QUERIES) {
+                String text = String.format(query, value, value + 7);
+                for (Engine engine : ENGINES) {
+                    for (InListStrategy inLists : IN_LISTS) {
+                        cases.add(new Case(text, engine, inLists, SqlDialect.ANSI, false));
+                        cases.add(new Case(text, engine, inLists, SqlDialect.ANSI, true));
+                    }
+                }
+            }
+            for (Engine engine : ENGINES) {
+                cases.add(new Case("SELECT * FROM `users` WHERE name = 'it\\'s " + value + "' AND id = " + value,
+                        engine, InListStrategy.EXPAND, SqlDialect.MYSQL, false));
+                cases.add(new Case("SELECT * FROM users WHERE bio = $$a 'quoted' " + value + "$$ AND id = " + value,
+                        engine, InListStrategy.EXPAND, SqlDialect.POSTGRES, false));
+                cases.add(new Case("SELECT * FROM [users] WHERE name = N'Zoe " + value + "' AND id IN (" + value + ", 9)",
+                        engine, InListStrategy.EXPAND, SqlDialect.SQL_SERVER, false));
+            }
+        }
+        return cases;
+    }
+
+    private static List<ParsedQuery> reference(List<Case> cases) {
+        List<ParsedQuery> expected = new ArrayList<>(cases.size());
+        for (Case c : cases) {
+            ParsedQuery parsedQuery = c.parse();
+            expected.add(new ParsedQuery(parsedQuery.getParameterizedQuery(), parsedQuery.getParameters()));
+        }
+        return expected;
+    }
+
+    private static String compare(Object source, ParsedQuery expected, ParsedQuery actual) {
+        if (!expected.getParameterizedQuery().equals(actual.getParameterizedQuery())) {
+            return source + " gave " + actual.getParameterizedQuery();
+        }
+        if (!expected.getParameters().equals(actual.getParameters())) {
+            return source + " gave " + actual.getParameters();
+        }
+        return null;
+    }
+
+    /**
+     * Starts the threads together and runs the step ITERATIONS times on each.
+     *
+     * @return elapsed nanoseconds
+     */
+    private static long runConcurrently(int threads, Step step, Queue<String> failures) throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch ready = new CountDownLatch(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        String failure;
+                        try {
+                            failure = step.run(thread, i);
+                        } catch (Exception | AssertionError e) {
+                            failure = "thread " + thread + " iteration " + i + " threw " + e;
+                        }
+                        if (failure != null) {
+                            failures.add(failure);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            ready.await();
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the step on 1, 2, 4, ... MAX_THREADS threads and prints the throughput of each run.
+     */
+    private static void runScaling(String name, Step step) throws Exception {
+
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        double single = 0;
+        for (int threads = 1; threads <= MAX_THREADS; threads = threads < MAX_THREADS ? Math.min(threads * 2, MAX_THREADS) : threads + 1) {
+            long nanos = runConcurrently(threads, step, failures);
+            double opsPerSecond = (double) threads * ITERATIONS * TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos);
+            if (threads == 1) {
+                single = opsPerSecond;
+            }
+            System.out.printf("%-28s %3d threads %,12.0f ops/s  x%.2f%n", name, threads, opsPerSecond, opsPerSecond / single);
+        }
+        assertTrue(failures.isEmpty(), failures.size() + " mismatches, first: " + failures.peek());
+    }
+
+    private static int pick(int thread, int iteration, int size) {
+        return (int) ((thread * 7919L + iteration * 31L) % size); // threads walk the cases in different orders
+    }
+
+    @Test
+    public void testParseSQLQuery_MatchesSingleThreaded() throws Exception {
+        List<Case> cases = cases();
+        List<ParsedQuery> expected = reference(cases);
+
+        runScaling("parseSQLQuery", (thread, iteration) -> {
+            int index = pick(thread, iteration, cases.size());
+            return compare(cases.get(index), expected.get(index), cases.get(index).parse());
+        });
+    }
+
+    @Test
+    public void testParseSQLQuery_SharedMetricsAndHeavyHitters() throws Exception {
+        List<Case> cases = cases();
+        cases.removeIf(c -> c.lazy);
+        List<ParsedQuery> expected = reference(cases);
+        DefaultParserMetrics metrics = new DefaultParserMetrics();
+        HeavyHitters heavyHitters = new HeavyHitters(8, Engine.LEXER);
+        SQLParser.setMetrics(metrics);
+
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        runConcurrently(MAX_THREADS, (thread, iteration) -> {
+            int index = pick(thread, iteration, cases.size());
+            heavyHitters.record(cases.get(index).query);
+            return compare(cases.get(index), expected.get(index), cases.get(index).parse());
+        }, failures);
+
+        assertTrue(failures.isEmpty(), failures.size() + " mismatches, first: " + failures.peek());
+        assertEquals((long) MAX_THREADS * ITERATIONS, metrics.getParseCount());
+        assertEquals((long) MAX_THREADS * ITERATIONS, heavyHitters.total());
+    }
+
+    @Test
+    public void testQueryCache_MatchesSingleThreaded() throws Exception {
+        List<String> queries = new ArrayList<>();
+        for (int value = 0; value < 16; value++) {
+            for (String query : ANSI_QUERIES) {
+                queries.add(String.format(query, value, value + 7));
+            }
+            queries.add("SELECT * FROM t WHERE a IN (" + "1, ".repeat(value) + value + ")"); // one shape per length
+        }
+        List<ParsedQuery> expected = new ArrayList<>();
+        for (String query : queries) {
+            expected.add(SQLParser.parseSQLQuery(query, Engine.LEXER));
+        }
+        QueryCache cache = new QueryCache(8, Engine.LEXER, InListStrategy.EXPAND); // fewer entries than shapes
+
+        runScaling("QueryCache.parse", (thread, iteration) -> {
+            int index = pick(thread, iteration, queries.size());
+            return compare(queries.get(index), expected.get(index), cache.parse(queries.get(index)));
+        });
+        assertTrue(cache.size() <= 8);
+        assertTrue(cache.evictionCount() > 0);
+        assertEquals(cache.hitCount() + cache.missCount(), totalIterations());
+    }
+
+    @Test
+    public void testCreatePreparedStatement_SharedStatementCache() throws Exception {
+        List<Case> cases = cases();
+        cases.removeIf(c -> c.inLists != InListStrategy.EXPAND); // arrays need a real Connection
+        List<ParsedQuery> expected = reference(cases);
+        StatementCache statementCache = new StatementCache(4); // fewer statements than shapes
+        Connection[] connections = new Connection[MAX_THREADS];
+        for (int i = 0; i < connections.length; i++) {
+            connections[i] = mock(Connection.class); // one per thread, like a pool hands them out
+            when(connections[i].prepareStatement(anyString()))
+                    .thenAnswer(invocation -> RecordingStatement.create(invocation.getArgument(0)));
+        }
+
+        runScaling("createPreparedStatement", (thread, iteration) -> {
+            int index = pick(thread, iteration, cases.size());
+            ParsedQuery parsedQuery = cases.get(index).parse();
+            PreparedStatement preparedStatement = iteration % 2 == 0
+                    ? SQLParser.createPreparedStatement(connections[thread], parsedQuery, statementCache)
+                    : SQLParser.createPreparedStatement(connections[thread], parsedQuery);
+            return RecordingStatement.of(preparedStatement).compare(cases.get(index), expected.get(index));
+        });
+        statementCache.close();
+    }
+
+    @Test
+    public void testLazyParsedQuery_SharedBetweenThreads() throws Exception {
+        List<Case> cases = cases();
+        cases.removeIf(c -> !c.lazy);
+        List<ParsedQuery> expected = reference(cases);
+        ParsedQuery[] shared = new ParsedQuery[1];
+        int[] current = new int[1];
+        // The barrier action publishes a fresh lazy query to all threads before each round
+        CyclicBarrier barrier = new CyclicBarrier(MAX_THREADS, () -> {
+            current[0] = (current[0] + 1) % cases.size();
+            shared[0] = cases.get(current[0]).parse();
+        });
+
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        runConcurrently(MAX_THREADS, (thread, iteration) -> {
+            barrier.await(1, TimeUnit.MINUTES);
+            ParsedQuery parsedQuery = shared[0];
+            ParsedQuery reference = expected.get(current[0]);
+            String text;
+            List<Object> parameters;
+            switch (thread % 4) {
+            case 0:
+                text = parsedQuery.getParameterizedQuery();
+                parameters = parsedQuery.getParameters();
+                break;
+            case 1:
+                parameters = parsedQuery.getParameterBuffer().asList();
+                text = parsedQuery.appendTo(new StringBuilder()).toString();
+                break;
+            case 2:
+                if (parsedQuery.getParameterCount() != reference.getParameters().size()) {
+                    return "parameter count " + parsedQuery.getParameterCount() + " for " + cases.get(current[0]);
+                }
+                text = parsedQuery.appendTo(new StringBuilder()).toString();
+                parameters = parsedQuery.getParameters();
+                break;
+            default:
+                parameters = parsedQuery.getParameters();
+                text = parsedQuery.getParameterizedQuery();
+            }
+            return compare(cases.get(current[0]), reference, new ParsedQuery(text, parameters));
+        }, failures);
+
+        assertTrue(failures.isEmpty(), failures.size() + " mismatches, first: " + failures.peek());
+    }
+
+    private static long totalIterations() {
+        long total = 0;
+        for (int threads = 1; threads <= MAX_THREADS; threads = threads < MAX_THREADS ? Math.min(threads * 2, MAX_THREADS) : threads + 1) {
+            total += (long) threads * ITERATIONS;
+        }
+        return total;
+    }
+
+    /**
+     * PreparedStatement keeping the values set on it, cheaper than a mock over many thousand calls.
+     */
+    private static final class RecordingStatement implements InvocationHandler {
+
+        private final String sql;
+        private final Map<Integer, Object> values = new HashMap<>();
+        private boolean closed;
+
+        private RecordingStatement(String sql) {
+            this.sql = sql;
+        }
+
+        static PreparedStatement create(String sql) {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, new RecordingStatement(sql));
+        }
+
+        static RecordingStatement of(PreparedStatement preparedStatement) {
+            return (RecordingStatement) Proxy.getInvocationHandler(preparedStatement);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length == 2 && args[0] instanceof Integer) {
+                values.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                return null;
+            }
+            switch (name) {
+            case "clearParameters":
+                values.clear();
+                return null;
+            case "clearBatch":
+                return null;
+            case "close":
+                closed = true;
+                return null;
+            case "isClosed":
+                return closed;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return sql;
+            default:
+                throw new UnsupportedOperationException(name);
+            }
+        }
+
+        String compare(Object source, ParsedQuery expected) {
+            if (closed) {
+                return source + " got a closed statement";
+            }
+            List<Object> bound = new ArrayList<>();
+            for (int i = 1; i <= values.size(); i++) {
+                bound.add(values.get(i));
+            }
+            return ConcurrencyStressTest.compare(source, expected, new ParsedQuery(sql, bound));
+        }
+    }
+}
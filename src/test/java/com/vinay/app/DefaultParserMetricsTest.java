@@ -0,0 +1,147 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DefaultParserMetricsTest {
+
+    private DefaultParserMetrics metrics;
+
+    @BeforeEach
+    public void setUp() {
+        metrics = new DefaultParserMetrics();
+        SQLParser.setMetrics(metrics);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SQLParser.setMetrics(null);
+    }
+
+    @Test
+    public void testSetMetrics_Null_Noop() {
+        SQLParser.setMetrics(null);
+
+        assertSame(ParserMetrics.NOOP, SQLParser.getMetrics());
+        SQLParser.parseSQLQuery("SELECT * FROM orders WHERE order_id = 1");
+        assertEquals(0, metrics.getParseCount());
+    }
+
+    @Test
+    public void testParse_RecordsConditions() {
+        String sqlQuery = "SELECT * FROM orders WHERE status IN ('a', 'b', 'c') AND order_id = 5 "
+                + "AND created BETWEEN 1 AND 2 LIMIT 10";
+
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            metrics.reset();
+            SQLParser.parseSQLQuery(sqlQuery, engine);
+
+            assertEquals(1, metrics.getParseCount(), engine.name());
+            assertEquals(1, metrics.getInConditionCount(), engine.name());
+            assertEquals(1, metrics.getComparisonConditionCount(), engine.name());
+            assertEquals(1, metrics.getBetweenConditionCount(), engine.name());
+            assertEquals(3, metrics.getInListSizeMax(), engine.name());
+            assertEquals(6, metrics.getParameterCountMax(), engine.name());
+            assertEquals(1, metrics.getUnmatchedLiteralCount(), engine.name()); // LIMIT 10
+        }
+    }
+
+    @Test
+    public void testLookups_RecordNoConditions() {
+        String sqlQuery = "SELECT * FROM orders WHERE status IN ('a', 'b') AND order_id = 5";
+
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            QueryFingerprint.fingerprint(sqlQuery, engine);
+        }
+        WhereParser.parsePredicates(sqlQuery);
+
+        assertEquals(0, metrics.getParseCount());
+        assertEquals(0, metrics.getInConditionCount());
+        assertEquals(0, metrics.getComparisonConditionCount());
+
+        DmlParser.parse("UPDATE orders SET status = 'x' WHERE order_id = 5");
+
+        assertEquals(1, metrics.getParseCount());
+        assertEquals(1, metrics.getComparisonConditionCount());
+    }
+
+    @Test
+    public void testQueryCache_RecordsHitsAndMisses() {
+        QueryCache cache = new QueryCache(10);
+
+        cache.parse("SELECT * FROM orders WHERE order_id = 1 LIMIT 5");
+        cache.parse("SELECT * FROM orders WHERE order_id = 2 LIMIT 5");
+
+        assertEquals(1, metrics.getCacheHitCount());
+        assertEquals(1, metrics.getCacheMissCount());
+        assertEquals(2, metrics.getParseCount());
+        assertEquals(2, metrics.getUnmatchedLiteralCount());
+    }
+
+    @Test
+    public void testCreatePreparedStatement_RecordsBind() throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement("SELECT * FROM orders WHERE order_id = ? AND user_name = ?"))
+                .thenReturn(preparedStatement);
+
+        SQLParser.createPreparedStatement(connection,
+                SQLParser.parseSQLQuery("SELECT * FROM orders WHERE order_id = 1 AND user_name = 'a'"));
+
+        assertEquals(1, metrics.getBindCount());
+    }
+
+    @Test
+    public void testRegisterMBean_AttributesReadable() throws Exception {
+        ObjectName name = metrics.registerMBean("com.vinay.app:type=ParserMetrics,name=test");
+        try {
+            SQLParser.parseSQLQuery("SELECT * FROM orders WHERE order_id = 1");
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(name, "ParseCount"));
+            assertEquals(1L, server.getAttribute(name, "ComparisonConditionCount"));
+            assertTrue((Long) server.getAttribute(name, "ParseLatencyMaxNanos") >= 0);
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void testHistogram_Percentiles() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(1000, histogram.count());
+        assertEquals(1000, histogram.max());
+        assertEquals(500.5, histogram.mean(), 0.001);
+        long p50 = histogram.percentile(50);
+        assertTrue(p50 >= 500 && p50 < 500 + 500 / 16 + 1, Long.toString(p50));
+        assertEquals(1000, histogram.percentile(100));
+        assertEquals(1, histogram.percentile(0));
+    }
+
+    @Test
+    public void testHistogram_Buckets() {
+        for (long value : new long[] { 0, 1, 15, 16, 17, 31, 32, 1000, 123456789, Long.MAX_VALUE }) {
+            int bucket = Histogram.bucketOf(value);
+            assertTrue(Histogram.upperBoundOf(bucket) >= value, Long.toString(value));
+            assertTrue(bucket == 0 || Histogram.upperBoundOf(bucket - 1) < value, Long.toString(value));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.vinay.app.DmlParser.RowBatch;
+import com.vinay.app.SQLParser.Engine;
+import com.vinay.app.SQLParser.ParsedQuery;
+
+public class DmlParserTest {
+
+    private static ParsedQuery parse(String query, Engine engine) {
+        return DmlParser.parse(query, engine, InListStrategy.EXPAND, SqlDialect.ANSI);
+    }
+
+    @Test
+    public void testParse_InsertValues() {
+        for (Engine engine : Engine.values()) {
+            ParsedQuery parsedQuery = parse("INSERT INTO orders (id, status, total, note) VALUES (1, 'new', -2.5, NULL)", engine);
+
+            assertEquals("INSERT INTO orders (id, status, total, note) VALUES (?, ?, ?, ?)", parsedQuery.getParameterizedQuery(), engine.name());
+            assertEquals(Arrays.asList(1, "new", -2.5, null), parsedQuery.getParameters(), engine.name());
+            assertEquals("status", parsedQuery.getColumnName(1), engine.name());
+            assertEquals("note", parsedQuery.getColumnName(3), engine.name());
+        }
+    }
+
+    @Test
+    public void testParse_MultiRowInsertKeepsExpressions() {
+        ParsedQuery parsedQuery = DmlParser.parse("INSERT INTO t VALUES (1, 'a', NOW(), DEFAULT), (2, 'b''c', NOW(), x + 1)");
+
+        assertEquals("INSERT INTO t VALUES (?, ?, NOW(), DEFAULT), (?, ?, NOW(), x + 1)", parsedQuery.getParameterizedQuery());
+        assertEquals(Arrays.asList(1, "a", 2, "b'c"), parsedQuery.getParameters());
+        assertNull(parsedQuery.getColumnName(0)); // no column list
+    }
+
+    @Test
+    public void testParse_UpdateSetSameForEveryEngine() {
+        String query = "UPDATE orders SET status = 'shipped', total = total * 2, flag = TRUE, o.note = 'x' WHERE order_id IN (1, 2) AND a = 'b'";
+
+        for (Engine engine : Engine.values()) {
+            ParsedQuery parsedQuery = parse(query, engine);
+
+            assertEquals("UPDATE orders SET status = ?, total = total * 2, flag = ?, o.note = ? WHERE order_id IN (?, ?) AND a = ?",
+                    parsedQuery.getParameterizedQuery(), engine.name());
+            assertEquals(Arrays.asList("shipped", true, "x", 1, 2, "b"), parsedQuery.getParameters(), engine.name());
+            assertEquals("status", parsedQuery.getColumnName(0), engine.name());
+            assertEquals("o.note", parsedQuery.getColumnName(2), engine.name());
+            assertEquals("order_id", parsedQuery.getColumnName(3), engine.name());
+        }
+    }
+
+    @Test
+    public void testParse_UpsertAssignments() {
+        assertEquals("INSERT INTO t (id, n) VALUES (?, ?) ON DUPLICATE KEY UPDATE n = ?, m = VALUES(n)",
+                DmlParser.parse("INSERT INTO t (id, n) VALUES (1, 2) ON DUPLICATE KEY UPDATE n = 3, m = VALUES(n)").getParameterizedQuery());
+        assertEquals("INSERT INTO t (id, n) VALUES (?, ?) ON CONFLICT (id) DO UPDATE SET n = ? RETURNING id",
+                DmlParser.parse("INSERT INTO t (id, n) VALUES (1, 2) ON CONFLICT (id) DO UPDATE SET n = 'x' RETURNING id").getParameterizedQuery());
+        assertEquals("INSERT INTO t SET a = ?, b = ?",
+                DmlParser.parse("INSERT INTO t SET a = 1, b = 'two'").getParameterizedQuery());
+    }
+
+    @Test
+    public void testParse_OtherStatementsUnchanged() {
+        for (String query : Arrays.asList(
+                "SELECT * FROM orders WHERE status = 'new' AND id BETWEEN 1 AND 5",
+                "INSERT INTO archive (id) SELECT id FROM orders WHERE created < '2024-01-01'",
+                "DELETE FROM orders WHERE id = 4")) {
+            assertEquals(SQLParser.parseSQLQuery(query).getParameterizedQuery(), DmlParser.parse(query).getParameterizedQuery());
+            assertEquals(SQLParser.parseSQLQuery(query).getParameters(), DmlParser.parse(query).getParameters());
+        }
+    }
+
+    @Test
+    public void testParse_DialectStrings() {
+        ParsedQuery parsedQuery = DmlParser.parse("INSERT INTO `t` (`a`, b) VALUES ('it\\'s', 2)", Engine.LEXER,
+                InListStrategy.EXPAND, SqlDialect.MYSQL);
+
+        assertEquals("INSERT INTO `t` (`a`, b) VALUES (?, ?)", parsedQuery.getParameterizedQuery());
+        assertEquals(Arrays.asList("it's", 2), parsedQuery.getParameters());
+    }
+
+    @Test
+    public void testParseRows_SplitsUniformRows() throws Exception {
+        RowBatch batch = DmlParser.parseRows(
+                "INSERT INTO t (id, name, created) VALUES (1, 'a', NOW()), (2,'b',NOW()) ,(3, 'c', NOW()) RETURNING id");
+
+        assertEquals("INSERT INTO t (id, name, created) VALUES (?, ?, NOW()) RETURNING id", batch.getParameterizedQuery());
+        List<ParsedQuery> rows = batch.getRows();
+        assertEquals(3, rows.size());
+        assertEquals(Arrays.asList(2, "b"), rows.get(1).getParameters());
+        assertEquals(Arrays.asList(3, "c"), rows.get(2).getParameters());
+        assertEquals(batch.getParameterizedQuery(), rows.get(2).getParameterizedQuery());
+
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        batch.addBatch(preparedStatement);
+        verify(preparedStatement, times(3)).addBatch();
+        verify(preparedStatement, times(1)).setString(2, "c");
+    }
+
+    @Test
+    public void testParseRows_ParametersAroundTheValuesRepeatPerRow() {
+        RowBatch batch = DmlParser.parseRows("INSERT INTO t (id, n) VALUES (1, 2), (3, 4) ON DUPLICATE KEY UPDATE n = 9");
+
+        assertEquals("INSERT INTO t (id, n) VALUES (?, ?) ON DUPLICATE KEY UPDATE n = ?", batch.getParameterizedQuery());
+        assertEquals(Arrays.asList(1, 2, 9), batch.getRows().get(0).getParameters());
+        assertEquals(Arrays.asList(3, 4, 9), batch.getRows().get(1).getParameters());
+    }
+
+    @Test
+    public void testParseRows_DifferentShapesNotSplit() {
+        String query = "INSERT INTO t VALUES (1, 'a'), (2, DEFAULT)";
+        RowBatch batch = DmlParser.parseRows(query);
+
+        assertEquals("INSERT INTO t VALUES (?, ?), (?, DEFAULT)", batch.getParameterizedQuery());
+        assertEquals(Collections.singletonList(batch.getRows().get(0)), batch.getRows());
+        assertEquals(Arrays.asList(1, "a", 2), batch.getRows().get(0).getParameters());
+
+        RowBatch update = DmlParser.parseRows("UPDATE t SET a = 1 WHERE b = 2");
+        assertEquals("UPDATE t SET a = ? WHERE b = ?", update.getParameterizedQuery());
+        assertEquals(1, update.getRows().size());
+    }
+}
@@ -0,0 +1,96 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class ParameterBufferTest {
+
+    @Test
+    public void testAdd_TypedColumns() {
+        ParameterBuffer buffer = new ParameterBuffer(1);
+        buffer.addInt(5);
+        buffer.addString("abc");
+        buffer.addDouble(2.5);
+        buffer.add(BigDecimal.ONE);
+
+        assertEquals(4, buffer.size());
+        assertEquals(ParameterBuffer.Type.INTEGER, buffer.type(0));
+        assertEquals(5, buffer.getInt(0));
+        assertEquals(ParameterBuffer.Type.STRING, buffer.type(1));
+        assertEquals("abc", buffer.getString(1));
+        assertEquals(ParameterBuffer.Type.DOUBLE, buffer.type(2));
+        assertEquals(2.5, buffer.getDouble(2));
+        assertEquals(ParameterBuffer.Type.DECIMAL, buffer.type(3));
+        assertEquals(BigDecimal.ONE, buffer.getDecimal(3));
+        assertEquals(Arrays.asList(5, "abc", 2.5, BigDecimal.ONE), buffer.asList());
+    }
+
+    @Test
+    public void testAddLiteral_SameAsParseValue() {
+        String query = "x = 5 AND y = 'abc' AND z = 5.25 AND w = 123456789 AND v = 1234567890";
+        ParameterBuffer buffer = new ParameterBuffer();
+        buffer.addLiteral(query, 4, 5);
+        buffer.addLiteral(query, 14, 19);
+        buffer.addLiteral(query, 28, 32);
+        buffer.addLiteral(query, 41, 50);
+        buffer.addLiteral(query, 59, 69);
+
+        assertEquals(Arrays.asList(SQLParser.parseValue("5"), SQLParser.parseValue("'abc'"), SQLParser.parseValue("5.25"),
+                SQLParser.parseValue("123456789"), SQLParser.parseValue("1234567890")), buffer.asList());
+    }
+
+    @Test
+    public void testOf_List() {
+        ParameterBuffer buffer = ParameterBuffer.of(Arrays.asList(7, "x"));
+
+        assertEquals(ParameterBuffer.Type.INTEGER, buffer.type(0));
+        assertEquals(ParameterBuffer.Type.STRING, buffer.type(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.type(2));
+    }
+
+    @Test
+    public void testAsList_ReadOnly() {
+        ParameterBuffer buffer = new ParameterBuffer();
+        buffer.addInt(1);
+
+        assertThrows(UnsupportedOperationException.class, () -> buffer.asList().add(2));
+    }
+
+    @Test
+    public void testAddLiteral_Types() {
+        String[] literals = { "2147483647", "2147483648", "-9223372036854775808", "98765432109876543210", "-7",
+                "0.1", "123456789.12345", "3.14159265358979323846", "-2.5e-3", "'it''s'", "''", "NULL", "true", "False", "abc", "5." };
+        ParameterBuffer buffer = new ParameterBuffer();
+        for (String literal : literals) {
+            buffer.addLiteral(literal, 0, literal.length());
+        }
+
+        assertEquals(Arrays.asList(2147483647, 2147483648L, Long.MIN_VALUE, new BigDecimal("98765432109876543210"), -7,
+                0.1, 123456789.12345, new BigDecimal("3.14159265358979323846"), -0.0025, "it's", "", null, true, false, "abc", "5."),
+                buffer.asList());
+        assertEquals(ParameterBuffer.Type.INTEGER, buffer.type(0));
+        assertEquals(ParameterBuffer.Type.LONG, buffer.type(1));
+        assertEquals(ParameterBuffer.Type.DECIMAL, buffer.type(3));
+        assertEquals(ParameterBuffer.Type.DOUBLE, buffer.type(6));
+        assertEquals(ParameterBuffer.Type.DECIMAL, buffer.type(7));
+        assertEquals(ParameterBuffer.Type.NULL, buffer.type(11));
+        assertEquals(ParameterBuffer.Type.BOOLEAN, buffer.type(12));
+        assertEquals(ParameterBuffer.Type.STRING, buffer.type(14));
+    }
+
+    @Test
+    public void testAdd_BoxedTypes() {
+        ParameterBuffer buffer = ParameterBuffer.of(Arrays.asList(5L, true, null));
+
+        assertEquals(ParameterBuffer.Type.LONG, buffer.type(0));
+        assertEquals(5L, buffer.getLong(0));
+        assertEquals(ParameterBuffer.Type.BOOLEAN, buffer.type(1));
+        assertEquals(true, buffer.getBoolean(1));
+        assertEquals(ParameterBuffer.Type.NULL, buffer.type(2));
+    }
+}
@@ -0,0 +1,221 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class QueryCacheTest {
+
+    @Test
+    public void testParse_SameShape_Hit() {
+        QueryCache cache = new QueryCache(100);
+
+        SQLParser.ParsedQuery first = cache.parse("SELECT * FROM orders WHERE order_id = 5 AND user_name = 'abc'");
+        SQLParser.ParsedQuery second = cache.parse("SELECT * FROM orders WHERE order_id = 42 AND user_name = 'xyz'");
+
+        assertEquals("SELECT * FROM orders WHERE order_id = ? AND user_name = ?", first.getParameterizedQuery());
+        assertEquals("SELECT * FROM orders WHERE order_id = ? AND user_name = ?", second.getParameterizedQuery());
+        assertEquals(Arrays.asList(42, "xyz"), second.getParameters());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testParse_Hit_KeepsColumns() {
+        QueryCache cache = new QueryCache(100);
+
+        cache.parse("SELECT * FROM orders o WHERE o.order_id = 5 AND status IN ('a', 'b') AND note = 'x'");
+        SQLParser.ParsedQuery hit = cache.parse("SELECT * FROM orders o WHERE o.order_id = 6 AND status IN ('c', 'd') AND note = 'y'");
+
+        assertEquals(1, cache.hitCount());
+        assertEquals("order_id", hit.getColumnName(0));
+        assertEquals("o", hit.getColumnQualifier(0));
+        assertEquals("status", hit.getColumnName(1));
+        assertEquals("status", hit.getColumnName(2));
+        assertEquals(null, hit.getColumnQualifier(2));
+        assertEquals("note", hit.getColumnName(3));
+        assertEquals(null, hit.getColumnName(4));
+    }
+
+    @Test
+    public void testParse_SameAsParser() {
+        String[] sqlQueries = {
+                "SELECT * FROM orders WHERE status IN ('complete', 'incomplete') AND order_id=5",
+                "SELECT * FROM orders WHERE status IN ('a', 'b') AND order_id=7",
+                "SELECT * FROM orders WHERE status IN ('a', 'b', 'c') AND order_id=7",
+                "SELECT * FROM orders WHERE order_id=7.5",
+                "SELECT * FROM orders WHERE order_id BETWEEN 1 AND 2",
+                "SELECT * FROM orders WHERE order_id BETWEEN 1.5 AND 2",
+                "SELECT name AS 'alias' FROM orders WHERE order_id = 1",
+                "SELECT name AS 'other' FROM orders WHERE order_id = 2",
+                "SELECT * FROM orders WHERE status IN ('a,b', 'c')",
+                "SELECT * FROM orders WHERE status IN ('d', 'e')",
+                "SELECT * FROM orders WHERE 1 = 1",
+                "SELECT * FROM orders WHERE 2 = 1",
+                "SELECT * FROM orders WHERE active = TRUE AND balance > -5 AND note IS NULL",
+                "SELECT * FROM orders WHERE active = FALSE AND balance > -7 AND note IS NULL",
+                "SELECT * FROM orders WHERE order_id = 9007199254740993 AND name = 'O''Brien'",
+                "SELECT * FROM orders WHERE order_id = 12 AND name = 'x'"
+        };
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            QueryCache cache = new QueryCache(100, engine);
+            for (int round = 0; round < 2; round++) {
+                for (String sqlQuery : sqlQueries) {
+                    SQLParser.ParsedQuery expected = SQLParser.parseSQLQuery(sqlQuery, engine);
+                    SQLParser.ParsedQuery actual = cache.parse(sqlQuery);
+
+                    assertEquals(expected.getParameterizedQuery(), actual.getParameterizedQuery(), sqlQuery);
+                    assertEquals(expected.getParameters(), actual.getParameters(), sqlQuery);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testParse_FixedLiteralDiffers_Miss() {
+        QueryCache cache = new QueryCache(100);
+
+        cache.parse("SELECT name AS 'a' FROM orders WHERE order_id = 1");
+        SQLParser.ParsedQuery parsedQuery = cache.parse("SELECT name AS 'b' FROM orders WHERE order_id = 2");
+
+        assertEquals("SELECT name AS 'b' FROM orders WHERE order_id = ?", parsedQuery.getParameterizedQuery());
+        assertEquals(0, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    public void testParse_Eviction() {
+        QueryCache cache = new QueryCache(2);
+
+        cache.parse("SELECT * FROM a WHERE id = 1");
+        cache.parse("SELECT * FROM b WHERE id = 1");
+        cache.parse("SELECT * FROM a WHERE id = 2");
+        cache.parse("SELECT * FROM c WHERE id = 1");	// evicts b, a was used more recently
+        cache.parse("SELECT * FROM a WHERE id = 3");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertEquals(2, cache.hitCount());
+        assertEquals(3, cache.missCount());
+    }
+
+    @Test
+    public void testConstructor_InvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new QueryCache(0));
+    }
+    @Test
+    public void testParse_InListStrategy_SameAsParser() {
+        String[] sqlQueries = {
+                "SELECT * FROM orders WHERE status IN ('a', 'b', 'c') AND order_id = 1",
+                "SELECT * FROM orders WHERE status IN ('d', 'e', 'f') AND order_id = 2",
+                "SELECT * FROM orders WHERE order_id IN (1, 2, 3, 4, 5, 6)",
+                "SELECT * FROM orders WHERE order_id IN (7, 8, 9, 10, 11, 12)"
+        };
+        InListStrategy inLists = new InListStrategy(InListStrategy.Mode.BUCKET, 4);
+        QueryCache cache = new QueryCache(100, SQLParser.Engine.LEXER, inLists);
+
+        for (String sqlQuery : sqlQueries) {
+            SQLParser.ParsedQuery expected = SQLParser.parseSQLQuery(sqlQuery, SQLParser.Engine.LEXER, inLists);
+            SQLParser.ParsedQuery actual = cache.parse(sqlQuery);
+
+            assertEquals(expected.getParameterizedQuery(), actual.getParameterizedQuery(), sqlQuery);
+            assertEquals(expected.getParameters(), actual.getParameters(), sqlQuery);
+        }
+        assertEquals(1, cache.hitCount()); // lists bound as an array are not cached
+    }
+
+    @Test
+    public void testSaveLoad_WarmCache() throws IOException {
+        Path file = Files.createTempFile("query-cache", ".bin");
+        try {
+            QueryCache cache = new QueryCache(100);
+            cache.parse("SELECT * FROM orders WHERE order_id = 5 AND user_name = 'abc' LIMIT 10");
+            cache.parse("SELECT * FROM orders WHERE status IN ('a', 'b') AND note = 'Zoë'");
+            cache.parse("SELECT * FROM orders WHERE status IN (SELECT status FROM s) AND order_id = 1");
+            assertEquals(3, cache.save(file));
+
+            QueryCache warm = new QueryCache(100);
+            assertEquals(3, warm.load(file));
+
+            String sqlQuery = "SELECT * FROM orders WHERE status IN ('c', 'd') AND note = 'Åsa'";
+            SQLParser.ParsedQuery expected = SQLParser.parseSQLQuery(sqlQuery);
+            SQLParser.ParsedQuery actual = warm.parse(sqlQuery);
+            assertEquals(expected.getParameterizedQuery(), actual.getParameterizedQuery());
+            assertEquals(expected.getParameters(), actual.getParameters());
+            assertEquals("note", actual.getColumnName(2)); // columns are saved with the template
+            warm.parse("SELECT * FROM orders WHERE order_id = 6 AND user_name = 'x' LIMIT 10");
+            warm.parse("SELECT * FROM orders WHERE order_id = 6 AND user_name = 'x' LIMIT 20");
+            assertEquals(2, warm.hitCount());
+            assertEquals(1, warm.missCount());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testLoad_CorruptOrMismatched_Ignored() throws IOException {
+        Path file = Files.createTempFile("query-cache", ".bin");
+        try {
+            QueryCache cache = new QueryCache(100);
+            cache.parse("SELECT * FROM orders WHERE order_id = 5");
+            cache.save(file);
+            byte[] saved = Files.readAllBytes(file);
+
+            assertEquals(0, new QueryCache(100, SQLParser.Engine.LEXER).load(file));
+            assertEquals(0, new QueryCache(100, SQLParser.Engine.REGEX, InListStrategy.of(InListStrategy.Mode.BUCKET)).load(file));
+
+            byte[] corrupt = saved.clone();
+            corrupt[corrupt.length - 3] ^= 1;
+            Files.write(file, corrupt);
+            assertEquals(0, new QueryCache(100).load(file));
+
+            Files.write(file, Arrays.copyOf(saved, saved.length - 1));
+            assertEquals(0, new QueryCache(100).load(file));
+
+            byte[] otherVersion = saved.clone();
+            otherVersion[7]++;
+            Files.write(file, otherVersion);
+            assertEquals(0, new QueryCache(100).load(file));
+
+            Files.write(file, new byte[0]);
+            assertEquals(0, new QueryCache(100).load(file));
+
+            Files.write(file, saved);
+            assertEquals(1, new QueryCache(100).load(file));
+        } finally {
+            Files.delete(file);
+        }
+        assertEquals(0, new QueryCache(100).load(file)); // missing
+    }
+
+    @Test
+    public void testPrepareAll() throws Exception {
+        Connection mockConnection = mock(Connection.class);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        QueryCache cache = new QueryCache(100);
+        cache.parse("SELECT * FROM orders WHERE order_id = 5");
+        cache.parse("DELETE FROM orders WHERE order_id = 5");
+
+        try (StatementCache statementCache = new StatementCache(10)) {
+            assertEquals(2, cache.prepareAll(mockConnection, statementCache));
+
+            verify(mockConnection, times(1)).prepareStatement("SELECT * FROM orders WHERE order_id = ?");
+            verify(mockConnection, times(1)).prepareStatement("DELETE FROM orders WHERE order_id = ?");
+            assertEquals(2, statementCache.size());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class QueryFingerprintTest {
+
+    private static long fingerprint(CharSequence query) {
+        return QueryFingerprint.fingerprint(query);
+    }
+
+    @Test
+    public void testFingerprint_IgnoresLiteralsSpacingCaseAndComments() {
+        long expected = fingerprint("SELECT * FROM orders WHERE order_id = 5 AND user_name = 'abc'");
+
+        assertEquals(expected, fingerprint("select *  from ORDERS\n where order_id=-12 and user_name = 'x''y'"));
+        assertEquals(expected, fingerprint("SELECT * /* hint */ FROM orders WHERE order_id = 1.5e3 AND user_name = NULL -- done"));
+    }
+
+    @Test
+    public void testFingerprint_ConditionsInComments() {
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            long where = QueryFingerprint.fingerprint("SELECT * FROM t WHERE b = 2", engine);
+            long order = QueryFingerprint.fingerprint("SELECT * FROM t ORDER b = 2", engine);
+
+            assertEquals(where, QueryFingerprint.fingerprint("SELECT * FROM t -- a = 1\n WHERE b = 2", engine), engine.name());
+            assertEquals(where, QueryFingerprint.fingerprint("SELECT * FROM t /* a = 1 */ WHERE b = 2", engine), engine.name());
+            assertEquals(order, QueryFingerprint.fingerprint("SELECT * FROM t -- a = 1\n ORDER b = 2", engine), engine.name());
+            assertEquals(order, QueryFingerprint.fingerprint("SELECT * FROM t /* a = 1 */ ORDER b = 2", engine), engine.name());
+            assertNotEquals(where, order);
+        }
+    }
+
+    @Test
+    public void testFingerprint_LowerCaseInLists() {
+        long upper = fingerprint("SELECT * FROM t WHERE id IN (1)");
+
+        assertEquals(upper, fingerprint("select * from t where id in (1, 2, 3)"));
+        assertEquals(upper, fingerprint("select * from t where id in (1)"));
+        assertEquals(fingerprint("SELECT * FROM t WHERE id BETWEEN 1 AND 2"), fingerprint("select * from t where id between 3 and 4"));
+    }
+
+    @Test
+    public void testFingerprint_CollapsesInLists() {
+        long one = fingerprint("SELECT * FROM t WHERE id IN (1)");
+
+        assertEquals(one, fingerprint("SELECT * FROM t WHERE id IN (1, 2, 3, 4, 5)"));
+        assertNotEquals(one, fingerprint("SELECT * FROM t WHERE id NOT IN (1, 2)"));
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            assertEquals(QueryFingerprint.fingerprint("SELECT * FROM t WHERE id IN ('a')", engine),
+                    QueryFingerprint.fingerprint("SELECT * FROM t WHERE id IN ('a', 'b')", engine), engine.name());
+        }
+    }
+
+    @Test
+    public void testFingerprint_DifferentShapes() {
+        long base = fingerprint("SELECT * FROM orders WHERE order_id = 5");
+
+        assertNotEquals(base, fingerprint("SELECT * FROM orders WHERE order_id > 5"));
+        assertNotEquals(base, fingerprint("SELECT * FROM orders WHERE user_id = 5"));
+        assertNotEquals(base, fingerprint("SELECT * FROM \"Orders\" WHERE order_id = 5"));
+        assertNotEquals(fingerprint("SELECT a, b FROM t"), fingerprint("SELECT ab FROM t"));
+    }
+
+    @Test
+    public void testFingerprint_Stable() {
+        assertEquals(fingerprint(new StringBuilder("SELECT 1")), fingerprint("SELECT 1"));
+        assertEquals(0xcbf29ce484222325L, QueryFingerprint.fingerprint(""));
+    }
+
+    @Test
+    public void testHeavyHitters_TopShapes() {
+        HeavyHitters heavyHitters = new HeavyHitters(8);
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.record("SELECT * FROM orders WHERE order_id = " + i);
+            if (i % 2 == 0) {
+                heavyHitters.record("UPDATE orders SET status = 'x' WHERE order_id = " + i);
+            }
+            heavyHitters.record("SELECT * FROM noise_" + i); // distinct shapes churning through the table
+        }
+
+        List<HeavyHitters.Entry> top = heavyHitters.top(2);
+
+        assertEquals(250, heavyHitters.total());
+        assertEquals(2, top.size());
+        assertEquals(fingerprint("SELECT * FROM orders WHERE order_id = 1"), top.get(0).getFingerprint());
+        assertEquals("SELECT * FROM orders WHERE order_id = 0", top.get(0).getSample());
+        assertTrue(top.get(0).getCount() >= 100 && top.get(0).getCount() - top.get(0).getError() <= 100);
+        assertEquals(fingerprint("UPDATE orders SET status = 'y' WHERE order_id = 1"), top.get(1).getFingerprint());
+        assertTrue(top.get(1).getCount() >= 50);
+    }
+
+    @Test
+    public void testHeavyHitters_DominantShapeSurvivesNewArrivals() {
+        HeavyHitters heavyHitters = new HeavyHitters(2);
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.record(1L, "A");
+        }
+        heavyHitters.record(2L, "B");
+        heavyHitters.record(3L, "C");
+        heavyHitters.record(4L, "D");
+
+        List<HeavyHitters.Entry> top = heavyHitters.top(2);
+        assertEquals(1L, top.get(0).getFingerprint());
+        assertEquals(100, top.get(0).getCount());
+        assertEquals(0, top.get(0).getError());
+        assertEquals(4L, top.get(1).getFingerprint());
+        assertEquals(3, top.get(1).getCount());
+        assertEquals(2, top.get(1).getError());
+    }
+
+    @Test
+    public void testHeavyHitters_ExactBelowCapacity() {
+        HeavyHitters heavyHitters = new HeavyHitters(10);
+        heavyHitters.record(1L, "a");
+        heavyHitters.record(2L, "b");
+        heavyHitters.record(2L, "b2");
+
+        List<HeavyHitters.Entry> top = heavyHitters.top(5);
+
+        assertEquals(2, top.size());
+        assertEquals(2L, top.get(0).getFingerprint());
+        assertEquals("b", top.get(0).getSample());
+        assertEquals(2, top.get(0).getCount());
+        assertEquals(0, top.get(0).getError());
+
+        heavyHitters.reset();
+        assertEquals(0, heavyHitters.top(5).size());
+        assertThrows(IllegalArgumentException.class, () -> new HeavyHitters(0));
+    }
+}
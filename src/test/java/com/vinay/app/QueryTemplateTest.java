@@ -0,0 +1,124 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class QueryTemplateTest {
+
+    private static final String SAMPLE = "SELECT * FROM orders WHERE order_id = 1 AND user_name = 'x' AND price > 1.5";
+
+    @Test
+    public void testCompile_Slots() {
+        QueryTemplate template = QueryTemplate.compile(SAMPLE);
+
+        assertEquals("SELECT * FROM orders WHERE order_id = ? AND user_name = ? AND price > ?", template.getParameterizedQuery());
+        assertEquals(3, template.getSlots().size());
+        assertEquals(ParameterBuffer.Type.INTEGER, template.getSlots().get(0).getType());
+        assertEquals(ParameterBuffer.Type.STRING, template.getSlots().get(1).getType());
+        assertEquals(ParameterBuffer.Type.DOUBLE, template.getSlots().get(2).getType());
+        assertEquals(2, template.getSlots().get(2).getIndex());
+    }
+
+    @Test
+    public void testBind_SameAsParser() {
+        QueryTemplate template = QueryTemplate.compile(SAMPLE);
+
+        SQLParser.ParsedQuery bound = template.bind(42, "abc", 3);
+        SQLParser.ParsedQuery parsed = SQLParser.parseSQLQuery(
+                "SELECT * FROM orders WHERE order_id = 42 AND user_name = 'abc' AND price > 3.0");
+
+        assertEquals(parsed.getParameterizedQuery(), bound.getParameterizedQuery());
+        assertEquals(parsed.getParameters(), bound.getParameters());
+        assertSame(template.getParameterizedQuery(), bound.getParameterizedQuery());
+    }
+
+    @Test
+    public void testBinder_Fluent() {
+        QueryTemplate template = QueryTemplate.compile(
+                "SELECT * FROM orders WHERE status IN ('a', 'b') AND created BETWEEN 1 AND 2", SQLParser.Engine.LEXER);
+
+        SQLParser.ParsedQuery bound = template.binder().bindString("x").bind("y").bindInt(10).bind(20L).toParsedQuery();
+
+        assertEquals("SELECT * FROM orders WHERE status IN (?, ?) AND created BETWEEN ? AND ?", bound.getParameterizedQuery());
+        assertEquals(Arrays.asList("x", "y", 10, 20), bound.getParameters());
+    }
+
+    @Test
+    public void testBind_Mismatch_Throws() {
+        QueryTemplate template = QueryTemplate.compile(SAMPLE);
+
+        assertThrows(IllegalArgumentException.class, () -> template.bind(1, "a"));
+        assertThrows(IllegalArgumentException.class, () -> template.bind("1", "a", 1.0));
+        assertThrows(IllegalArgumentException.class, () -> template.binder().bindInt(1).bindInt(2));
+        assertThrows(IllegalStateException.class, () -> template.binder().bindInt(1).toParsedQuery());
+        assertThrows(IllegalStateException.class, () -> template.binder().bindInt(1).bindString("a").bindDouble(1).bindInt(2));
+    }
+
+    @Test
+    public void testBind_IntegerSlotTakesWiderNumbers() {
+        QueryTemplate template = QueryTemplate.compile("SELECT * FROM orders WHERE order_id = 1 AND price > 2");
+
+        SQLParser.ParsedQuery bound = template.binder().bindLong(5_000_000_000L).bindDouble(2.5).toParsedQuery();
+        assertEquals(Arrays.asList(5_000_000_000L, 2.5), bound.getParameters());
+        assertEquals(ParameterBuffer.Type.LONG, bound.getParameterBuffer().type(0));
+        assertEquals(ParameterBuffer.Type.DOUBLE, bound.getParameterBuffer().type(1));
+
+        bound = template.bind(6_000_000_000L, new BigDecimal("9.99"));
+        assertEquals(Arrays.asList(6_000_000_000L, new BigDecimal("9.99")), bound.getParameters());
+        assertEquals(ParameterBuffer.Type.DECIMAL, bound.getParameterBuffer().type(1));
+
+        assertThrows(IllegalArgumentException.class, () -> template.binder().bindString("1"));
+        assertThrows(IllegalArgumentException.class, () -> template.binder().bindBoolean(true));
+    }
+
+    @Test
+    public void testBind_AnyNumberToAnyNumericSlot() {
+        QueryTemplate template = QueryTemplate.compile(
+                "SELECT * FROM orders WHERE price = 0.12345678901234567 AND weight = 1.5e3 AND order_id = 1 AND total = 5000000000");
+
+        SQLParser.ParsedQuery typed = template.binder().bindDouble(9.5).bindLong(7).bindDouble(3.0).bindInt(8).toParsedQuery();
+        SQLParser.ParsedQuery boxed = template.bind(9.5d, 7, 3.0d, 8);
+        for (SQLParser.ParsedQuery bound : Arrays.asList(typed, boxed)) {
+            assertEquals(Arrays.asList(new BigDecimal("9.5"), 7.0, 3, 8L), bound.getParameters());
+            assertEquals(ParameterBuffer.Type.DECIMAL, bound.getParameterBuffer().type(0));
+            assertEquals(ParameterBuffer.Type.DOUBLE, bound.getParameterBuffer().type(1));
+            assertEquals(ParameterBuffer.Type.INTEGER, bound.getParameterBuffer().type(2));
+            assertEquals(ParameterBuffer.Type.LONG, bound.getParameterBuffer().type(3));
+        }
+
+        SQLParser.ParsedQuery decimals = template.bind(0.1f, new BigDecimal("2.25"), new BigDecimal("4.00"), BigInteger.TEN);
+        assertEquals(Arrays.asList(new BigDecimal("0.1"), 2.25, 4, 10L), decimals.getParameters());
+
+        assertThrows(IllegalArgumentException.class, () -> template.binder().bindDouble(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> template.bind("1", 1, 1, 1));
+    }
+
+    @Test
+    public void testBinder_Prepare() throws Exception {
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement("SELECT * FROM orders WHERE order_id = ? AND user_name = ? AND price > ?"))
+                .thenReturn(mockPreparedStatement);
+
+        PreparedStatement statement = QueryTemplate.compile(SAMPLE).binder()
+                .bindInt(7).bindString("xyz").bindDouble(2.5).prepare(mockConnection);
+
+        assertSame(mockPreparedStatement, statement);
+        verify(mockPreparedStatement, times(1)).setInt(1, 7);
+        verify(mockPreparedStatement, times(1)).setString(2, "xyz");
+        verify(mockPreparedStatement, times(1)).setDouble(3, 2.5);
+    }
+}
@@ -0,0 +1,85 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.vinay.app.SQLLexer.Token;
+
+public class SQLLexerTest {
+
+    private static List<String> tokens(String sql) {
+        List<String> tokens = new ArrayList<>();
+        SQLLexer lexer = new SQLLexer(sql);
+        for (Token token = lexer.next(); token != Token.END; token = lexer.next()) {
+            tokens.add(token + ":" + lexer.text());
+        }
+        return tokens;
+    }
+
+    @Test
+    public void testNext_Predicate() {
+        assertEquals(Arrays.asList("WORD:order_id", "OPERATOR:>=", "NUMBER:5.25", "WORD:AND", "WORD:name", "OPERATOR:!=", "STRING:'abc'"),
+                tokens("order_id>=5.25 AND name != 'abc'"));
+    }
+
+    @Test
+    public void testNext_WordsAndNumbers() {
+        assertEquals(Arrays.asList("WORD:col5", "OPERATOR:=", "NUMBER:5", "OTHER:.", "WORD:x"),
+                tokens("col5 = 5 .x"));
+        assertEquals(Arrays.asList("WORD:5abc", "OPERATOR:<>", "NUMBER:12"), tokens("5abc<>12"));
+    }
+
+    @Test
+    public void testNext_QuotesAndComments() {
+        assertEquals(Arrays.asList("STRING:'it''s'", "QUOTED_IDENTIFIER:\"a b\"", "LEFT_PAREN:(", "COMMA:,", "RIGHT_PAREN:)"),
+                tokens("'it''s' -- comment\n \"a b\" /* x = 1 */ (,)"));
+    }
+
+    @Test
+    public void testIsKeyword_CaseInsensitive() {
+        SQLLexer lexer = new SQLLexer("between Betweens");
+        lexer.next();
+        assertTrue(lexer.isKeyword("BETWEEN"));
+        lexer.next();
+        assertFalse(lexer.isKeyword("BETWEEN"));
+    }
+
+    @Test
+    public void testReset() {
+        SQLLexer lexer = new SQLLexer("a = 1");
+        lexer.next();
+        int mark = lexer.end();
+        lexer.next();
+        lexer.next();
+        lexer.reset(mark);
+        assertEquals(Token.OPERATOR, lexer.next());
+        assertEquals(2, lexer.start());
+    }
+
+    @Test
+    public void testNext_Exponent() {
+        assertEquals(Arrays.asList("NUMBER:1.5e3", "NUMBER:2E-7", "WORD:1e5x", "NUMBER:3", "WORD:e"),
+                tokens("1.5e3 2E-7 1e5x 3 e"));
+    }
+
+    @Test
+    public void testNextValue_NegativeNumbersAndKeywords() {
+        SQLLexer lexer = new SQLLexer("-42 - 5 null TRUE abc");
+        assertTrue(lexer.nextValue());
+        assertEquals("-42", lexer.text());
+        assertFalse(lexer.nextValue());
+        assertEquals("-", lexer.text());
+        assertTrue(lexer.nextValue());
+        assertTrue(lexer.nextValue());
+        assertEquals(Token.WORD, lexer.token());
+        assertTrue(lexer.nextValue());
+        assertFalse(lexer.nextValue());
+    }
+}
@@ -1,15 +1,21 @@
 package com.vinay.app;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.Arrays;
 import java.util.List;
 
@@ -341,4 +347,303 @@ public class SQLParserTest {
         assertEquals(mockPreparedStatement, stmt);
     }
     
+    @Test
+    public void testParseSQLQuery_LexerEngine_SameAsRegex() {
+        String[] sqlQueries = {
+                "SELECT * FROM orders WHERE order_id=5",
+                "SELECT * FROM orders WHERE order_id != 'abc'",
+                "SELECT * FROM orders WHERE status IN (212.45,3434,'zzz')",
+                "SELECT * FROM orders WHERE req_time >= '12/01/2022 08:00:00' AND zzz > 5.2 AND req_count < 5",
+                "SELECT * FROM orders WHERE req_date BETWEEN '11/01/2022 08:00:00' AND '10/01/2022 08:00:00'",
+                "UPDATE EMPLOYEE SET PHONENO='4657' WHERE EMPNO='000010'",
+                "SELECT *\n FROM   order\n WHERE  order_id = 5\n       AND status IN ( 'complete', 'incomplete' )\n       AND bit != 8 ",
+                "select * from orders where status in ('a', 'b') and created between 1 and 2 and kind not in (3)",
+                "SELECT * FROM orders WHERE order_id <> 5",
+                "SELECT * FROM orders -- a = 1\n WHERE b = 2",
+                "SELECT * FROM orders /* a = 1 */ WHERE b = 2",
+                "SELECT * FROM orders WHERE status IN ('x,y', 'z') AND note IN ('a)b')",
+                "SELECT * FROM orders WHERE status IN (kind, 'z') AND order_id IN (SELECT id FROM o WHERE c = 1)",
+                "SELECT * FROM orders WHERE order_id = 5abc AND code IN (1, 2,)"
+        };
+        for (String sqlQuery : sqlQueries) {
+            SQLParser.ParsedQuery expected = SQLParser.parseSQLQuery(sqlQuery, SQLParser.Engine.REGEX);
+            SQLParser.ParsedQuery actual = SQLParser.parseSQLQuery(sqlQuery, SQLParser.Engine.LEXER);
+
+            assertEquals(expected.getParameterizedQuery(), actual.getParameterizedQuery());
+            assertEquals(expected.getParameters(), actual.getParameters());
+        }
+    }
+
+    @Test
+    public void testParseSQLQuery_LexerEngine_DiffersFromRegex() {
+        String inString = "SELECT * FROM orders WHERE f('a = 1') = x";
+        assertEquals(Arrays.asList(1), SQLParser.parseSQLQuery(inString, SQLParser.Engine.REGEX).getParameters());
+        assertEquals(Arrays.asList(), SQLParser.parseSQLQuery(inString, SQLParser.Engine.LEXER).getParameters());
+
+        String commentInside = "SELECT * FROM orders WHERE a /* x */ = 1";
+        assertEquals(Arrays.asList(), SQLParser.parseSQLQuery(commentInside, SQLParser.Engine.REGEX).getParameters());
+        assertEquals(Arrays.asList(1), SQLParser.parseSQLQuery(commentInside, SQLParser.Engine.LEXER).getParameters());
+    }
+
+    @Test
+    public void testParseSQLQuery_LexerEngine_ComplexQuery_Join() {
+        String sqlQuery = "SELECT CONCAT(C.CUSTOMER_FNAME, \" \", C.CUSTOMER_LNAME) AS 'CUSTOMER_FULL_NAME'\n"
+        		+ " FROM online_customer C INNER JOIN ORDER_HEADER OH ON C.CUSTOMER_ID = OH.CUSTOMER_ID\n"
+        		+ " WHERE OH.ORDER_ID > 10060 AND OH.ORDER_STATUS = 'Shipped'\n"
+        		+ " HAVING TOTAL_QUANTITY > 15";
+        SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery(sqlQuery, SQLParser.Engine.LEXER);
+
+        assertEquals("SELECT CONCAT(C.CUSTOMER_FNAME, \" \", C.CUSTOMER_LNAME) AS 'CUSTOMER_FULL_NAME'\n"
+        		+ " FROM online_customer C INNER JOIN ORDER_HEADER OH ON C.CUSTOMER_ID = OH.CUSTOMER_ID\n"
+        		+ " WHERE OH.ORDER_ID > ? AND OH.ORDER_STATUS = ?\n"
+        		+ " HAVING TOTAL_QUANTITY > ?", parsedQuery.getParameterizedQuery());
+        assertEquals(Arrays.asList(10060, "Shipped", 15), parsedQuery.getParameters());
+    }
+
+    @Test
+    public void testParseSQLQuery_LexerEngine_INClause_SubQuery() {
+        String sqlQuery = "SELECT * FROM orders WHERE customer_id IN (SELECT id FROM customers WHERE region = 'EU')";
+        SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery(sqlQuery, SQLParser.Engine.LEXER);
+
+        assertEquals("SELECT * FROM orders WHERE customer_id IN (SELECT id FROM customers WHERE region = ?)", parsedQuery.getParameterizedQuery());
+        assertEquals(Arrays.asList("EU"), parsedQuery.getParameters());
+    }
+
+    @Test
+    public void testParseSQLQuery_LexerEngine_OperatorInsideString() {
+        String sqlQuery = "SELECT * FROM notes WHERE body = 'a = 5' AND id = 7";
+        SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery(sqlQuery, SQLParser.Engine.LEXER);
+
+        assertEquals("SELECT * FROM notes WHERE body = ? AND id = ?", parsedQuery.getParameterizedQuery());
+        assertEquals(Arrays.asList("a = 5", 7), parsedQuery.getParameters());
+    }
+    
+    @Test
+    public void testParseSQLQuery_ValueAlsoInColumnName() {
+        String sqlQuery = "SELECT * FROM orders WHERE col5 = 5 AND abc_id = 'abc'";
+        SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery(sqlQuery);
+
+        assertEquals("SELECT * FROM orders WHERE col5 = ? AND abc_id = ?", parsedQuery.getParameterizedQuery());
+        assertEquals(Arrays.asList(5, "abc"), parsedQuery.getParameters());
+    }
+
+    @Test
+    public void testParseSQLQuery_Between_ExtraWhitespace() {
+        String sqlQuery = "SELECT * FROM orders WHERE order_id BETWEEN 10\n   AND  20";
+        SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery(sqlQuery);
+
+        assertEquals("SELECT * FROM orders WHERE order_id BETWEEN ?\n   AND  ?", parsedQuery.getParameterizedQuery());
+        assertEquals(Arrays.asList(10, 20), parsedQuery.getParameters());
+    }
+
+    @Test
+    public void testParseSQLQuery_INClause_Large() {
+        StringBuilder sqlQuery = new StringBuilder("SELECT * FROM orders WHERE order_id IN (");
+        StringBuilder expectedQuery = new StringBuilder("SELECT * FROM orders WHERE order_id IN (");
+        for (int i = 0; i < 10000; i++) {
+            sqlQuery.append(i == 0 ? "" : ",").append(i);
+            expectedQuery.append(i == 0 ? "?" : ", ?");
+        }
+        sqlQuery.append(") AND status = 1");
+        expectedQuery.append(") AND status = ?");
+
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery(sqlQuery.toString(), engine);
+
+            assertEquals(expectedQuery.toString(), parsedQuery.getParameterizedQuery());
+            assertEquals(10001, parsedQuery.getParameters().size());
+            assertEquals(9999, parsedQuery.getParameters().get(9999));
+        }
+    }
+    
+    @Test
+    public void testCreatePreparedStatement_TypedSetters() throws SQLException {
+    	
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+
+        SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery("SELECT * FROM orders WHERE order_id = 5 AND user_name = 'abc' AND temp > 3.2");
+        PreparedStatement stmt = SQLParser.createPreparedStatement(mockConnection, parsedQuery);
+
+        verify(mockPreparedStatement, times(1)).setInt(1, 5);
+        verify(mockPreparedStatement, times(1)).setString(2, "abc");
+        verify(mockPreparedStatement, times(1)).setDouble(3, 3.2);
+        assertEquals(mockPreparedStatement, stmt);
+    }
+
+    @Test
+    public void testCreatePreparedStatement_ListParameters() throws SQLException {
+    	
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+
+        SQLParser.ParsedQuery parsedQuery = new SQLParser.ParsedQuery("SELECT * FROM orders WHERE order_id = ? AND user_name = ?", Arrays.asList(7, "xyz"));
+        SQLParser.createPreparedStatement(mockConnection, parsedQuery);
+
+        verify(mockPreparedStatement, times(1)).setInt(1, 7);
+        verify(mockPreparedStatement, times(1)).setString(2, "xyz");
+    }
+    
+    @Test
+    public void testParseSQLQuery_InListBucket() {
+        String sqlQuery = "SELECT * FROM orders WHERE status IN ('a', 'b', 'c') AND order_id IN (1, 2, 3, 4, 5)";
+
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery(sqlQuery, engine,
+                    InListStrategy.of(InListStrategy.Mode.BUCKET));
+
+            assertEquals("SELECT * FROM orders WHERE status IN (?, ?, ?, ?) AND order_id IN (?, ?, ?, ?, ?, ?, ?, ?)",
+                    parsedQuery.getParameterizedQuery(), engine.name());
+            assertEquals(Arrays.asList("a", "b", "c", "c", 1, 2, 3, 4, 5, 5, 5, 5), parsedQuery.getParameters(), engine.name());
+        }
+    }
+
+    @Test
+    public void testParseSQLQuery_InListArray() {
+        String sqlQuery = "SELECT * FROM orders WHERE order_id IN (1, 2, 3) AND status NOT IN ('a', 'b') AND price = 5";
+
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery(sqlQuery, engine,
+                    InListStrategy.of(InListStrategy.Mode.ARRAY));
+
+            assertEquals("SELECT * FROM orders WHERE order_id = ANY(?) AND status <> ALL(?) AND price = ?",
+                    parsedQuery.getParameterizedQuery(), engine.name());
+            assertEquals(Arrays.asList(new ArrayParameter("integer", new Object[] { 1, 2, 3 }),
+                    new ArrayParameter("varchar", new Object[] { "a", "b" }), 5), parsedQuery.getParameters(), engine.name());
+        }
+    }
+
+    @Test
+    public void testParseSQLQuery_InListThreshold() {
+        String sqlQuery = "SELECT * FROM orders WHERE order_id IN (1, 2, 3) OR price IN (1.5, 2)";
+        InListStrategy inLists = new InListStrategy(InListStrategy.Mode.BUCKET, 2);
+
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery(sqlQuery, engine, inLists);
+
+            assertEquals("SELECT * FROM orders WHERE order_id = ANY(?) OR price IN (?, ?)",
+                    parsedQuery.getParameterizedQuery(), engine.name());
+            assertEquals(Arrays.asList(new ArrayParameter("integer", new Object[] { 1, 2, 3 }), 1.5, 2),
+                    parsedQuery.getParameters(), engine.name());
+        }
+    }
+
+    @Test
+    public void testCreatePreparedStatement_ArrayParameter() throws SQLException {
+
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        Array mockArray = mock(Array.class);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.createArrayOf(anyString(), any())).thenReturn(mockArray);
+
+        SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery("SELECT * FROM orders WHERE order_id IN (1.5, 2) AND status = 'x'",
+                SQLParser.Engine.LEXER, InListStrategy.of(InListStrategy.Mode.ARRAY));
+        SQLParser.createPreparedStatement(mockConnection, parsedQuery);
+
+        assertEquals(new ArrayParameter("numeric", new Object[] { new BigDecimal("1.5"), new BigDecimal("2") }),
+                parsedQuery.getParameters().get(0));
+        verify(mockConnection, times(1)).createArrayOf(anyString(), any());
+        verify(mockPreparedStatement, times(1)).setArray(1, mockArray);
+        verify(mockPreparedStatement, times(1)).setString(2, "x");
+    }
+
+    @Test
+    public void testParseSQLQuery_ArrayParameter_WholeAndFractionalNumbers() {
+        InListStrategy arrays = InListStrategy.of(InListStrategy.Mode.ARRAY);
+
+        SQLParser.ParsedQuery mixed = SQLParser.parseSQLQuery("SELECT * FROM t WHERE id IN (9007199254740993, 1.5)",
+                SQLParser.Engine.LEXER, arrays);
+        SQLParser.ParsedQuery doubles = SQLParser.parseSQLQuery("SELECT * FROM t WHERE id IN (2.5, 1.5, NULL)",
+                SQLParser.Engine.LEXER, arrays);
+
+        assertEquals(new ArrayParameter("numeric", new Object[] { new BigDecimal("9007199254740993"), new BigDecimal("1.5") }),
+                mixed.getParameters().get(0));
+        assertEquals(new ArrayParameter("float8", new Object[] { 2.5, 1.5, null }), doubles.getParameters().get(0));
+    }
+
+    @Test
+    public void testParseSQLQuery_WideValues() {
+        String sqlQuery = "SELECT * FROM orders WHERE order_id = 9007199254740993 AND balance >= -12.5 AND total = 12345678901234567.89 "
+                + "AND ratio < 1.5e-3 AND deleted = FALSE AND note != NULL AND name = 'O''Brien' AND qty BETWEEN -5 AND 5 "
+                + "AND code IN (-1, 4294967296)";
+
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery(sqlQuery, engine);
+
+            assertEquals("SELECT * FROM orders WHERE order_id = ? AND balance >= ? AND total = ? "
+                    + "AND ratio < ? AND deleted = ? AND note != ? AND name = ? AND qty BETWEEN ? AND ? "
+                    + "AND code IN (?, ?)", parsedQuery.getParameterizedQuery(), engine.name());
+            assertEquals(Arrays.asList(9007199254740993L, -12.5, new BigDecimal("12345678901234567.89"), 0.0015, false, null,
+                    "O'Brien", -5, 5, -1, 4294967296L), parsedQuery.getParameters(), engine.name());
+        }
+    }
+
+    @Test
+    public void testParseValue_WideValues() {
+        assertEquals(3000000000L, SQLParser.parseValue("3000000000"));
+        assertEquals(-5, SQLParser.parseValue("-5"));
+        assertEquals(Boolean.TRUE, SQLParser.parseValue("TRUE"));
+        assertEquals(null, SQLParser.parseValue("NULL"));
+        assertEquals("a'b", SQLParser.parseValue("'a''b'"));
+    }
+
+    @Test
+    public void testCreatePreparedStatement_WideTypedSetters() throws SQLException {
+
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+
+        SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery("SELECT * FROM orders WHERE order_id = 9007199254740993 "
+                + "AND total = 0.12345678901234567 AND active = TRUE AND note = NULL");
+        SQLParser.createPreparedStatement(mockConnection, parsedQuery);
+
+        verify(mockPreparedStatement, times(1)).setLong(1, 9007199254740993L);
+        verify(mockPreparedStatement, times(1)).setBigDecimal(2, new BigDecimal("0.12345678901234567"));
+        verify(mockPreparedStatement, times(1)).setBoolean(3, true);
+        verify(mockPreparedStatement, times(1)).setNull(4, Types.NULL);
+    }
+
+    @Test
+    public void testParseLazily_SameAsParseSQLQuery() throws IOException {
+        String sqlQuery = "SELECT * FROM orders WHERE order_id = 5 AND status IN ('a', 'b') AND price BETWEEN 1.5 AND 2";
+        SQLParser.ParsedQuery eager = SQLParser.parseSQLQuery(sqlQuery);
+
+        SQLParser.ParsedQuery lazy = SQLParser.parseLazily(new StringBuilder(sqlQuery));
+
+        assertEquals(5, lazy.getParameterCount());
+        assertEquals("-> " + eager.getParameterizedQuery(), lazy.appendTo(new StringBuilder("-> ")).toString());
+        assertEquals(eager.getParameters(), lazy.getParameters());
+        assertEquals(eager.getParameterizedQuery(), lazy.getParameterizedQuery());
+        assertEquals(eager.getParameterizedQuery(), lazy.appendTo(new StringWriter()).toString());
+    }
+
+    @Test
+    public void testParseLazily_ColumnsSurviveBufferReuse() {
+        StringBuilder buffer = new StringBuilder("SELECT * FROM orders o WHERE o.order_id = 5 AND status = 'a'");
+        SQLParser.ParsedQuery lazy = SQLParser.parseLazily(buffer);
+        lazy.getParameterizedQuery();
+        lazy.getParameters();
+
+        buffer.setLength(0);
+        buffer.append("DELETE FROM x");
+
+        assertEquals("order_id", lazy.getColumnName(0));
+        assertEquals("o", lazy.getColumnQualifier(0));
+        assertEquals("status", lazy.getColumnName(1));
+    }
+
+    @Test
+    public void testParseLazily_ArrayCountsAsOneParameter() {
+        SQLParser.ParsedQuery lazy = SQLParser.parseLazily("SELECT * FROM t WHERE id IN (1, 2, 3) AND a = 'x'",
+                SQLParser.Engine.LEXER, InListStrategy.of(InListStrategy.Mode.ARRAY));
+
+        assertEquals(2, lazy.getParameterCount());
+        assertEquals(2, lazy.getParameterBuffer().size());
+        assertEquals("SELECT * FROM t WHERE id = ANY(?) AND a = ?", lazy.getParameterizedQuery());
+    }
 }
@@ -0,0 +1,115 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class SQLScriptParserTest {
+
+    private static final String SCRIPT = "UPDATE orders SET status = 'a;b' WHERE order_id = 1;\n"
+            + "-- comment; not a separator\n"
+            + "DELETE FROM orders /* ; */ WHERE note = 'it''s; here' AND \"odd;name\" = 2 ;\n"
+            + "\n"
+            + "SELECT * FROM orders WHERE amount > 2.5";
+
+    @Test
+    public void testParse_Reader() throws IOException {
+        List<SQLParser.ParsedQuery> parsedQueries = new ArrayList<>();
+        long count = new SQLScriptParser(SQLParser.Engine.LEXER).parse(new StringReader(SCRIPT + ";\n-- trailing comment\n"), parsedQueries::add);
+
+        assertEquals(3, count);
+        assertEquals("UPDATE orders SET status = ? WHERE order_id = ?", parsedQueries.get(0).getParameterizedQuery());
+        assertEquals(Arrays.asList("a;b", 1), parsedQueries.get(0).getParameters());
+        assertEquals("-- comment; not a separator\nDELETE FROM orders /* ; */ WHERE note = ? AND \"odd;name\" = 2",
+                parsedQueries.get(1).getParameterizedQuery());
+        assertEquals("SELECT * FROM orders WHERE amount > ?", parsedQueries.get(2).getParameterizedQuery());
+        assertEquals(Arrays.asList(2.5), parsedQueries.get(2).getParameters());
+    }
+
+    @Test
+    public void testParse_MappedFile_SmallWindows() throws IOException {
+        String script = "UPDATE customers SET name = 'Zoë Ålander' WHERE id = 7;" + SCRIPT;
+        Path file = Files.createTempFile("script", ".sql");
+        try {
+            Files.write(file, script.getBytes(StandardCharsets.UTF_8));
+
+            List<SQLParser.ParsedQuery> expected = new ArrayList<>();
+            new SQLScriptParser().parse(new StringReader(script), expected::add);
+
+            for (long window : new long[] { 1, 3, 7, 1 << 20 }) {
+                List<SQLParser.ParsedQuery> parsedQueries = new ArrayList<>();
+                new SQLScriptParser(SQLParser.Engine.REGEX, window).parse(file, StandardCharsets.UTF_8, parsedQueries::add);
+
+                assertEquals(expected.size(), parsedQueries.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).getParameterizedQuery(), parsedQueries.get(i).getParameterizedQuery());
+                    assertEquals(expected.get(i).getParameters(), parsedQueries.get(i).getParameters());
+                }
+                assertEquals(Arrays.asList("Zoë Ålander", 7), parsedQueries.get(0).getParameters());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testParse_PostgresDollarQuotedBodies() throws IOException {
+        String script = "CREATE FUNCTION f() RETURNS int AS $$ SELECT 1; SELECT 2; $$ LANGUAGE sql;\n"
+                + "DO $body$ BEGIN PERFORM 'x;'; END $body$;\n"
+                + "SELECT $1, price FROM t WHERE id = 1 AND note = E'it\\'s; x'";
+        List<SQLParser.ParsedQuery> parsedQueries = new ArrayList<>();
+
+        assertEquals(3, new SQLScriptParser(SQLParser.Engine.LEXER, SqlDialect.POSTGRES).parse(new StringReader(script),
+                parsedQueries::add));
+        assertEquals("CREATE FUNCTION f() RETURNS int AS $$ SELECT 1; SELECT 2; $$ LANGUAGE sql",
+                parsedQueries.get(0).getParameterizedQuery());
+        assertEquals("DO $body$ BEGIN PERFORM 'x;'; END $body$", parsedQueries.get(1).getParameterizedQuery());
+        assertEquals(Arrays.asList(1, "it's; x"), parsedQueries.get(2).getParameters());
+
+        assertEquals(7, new SQLScriptParser(SQLParser.Engine.LEXER).parse(new StringReader(script), parsedQuery -> { })); // ANSI cuts them
+    }
+
+    @Test
+    public void testParse_MySqlBackslashEscapes_SmallWindows() throws IOException {
+        String script = "UPDATE t SET note = 'it\\'s; x' WHERE id = 1; # comment; not a separator\n"
+                + "DELETE FROM `odd;name` WHERE a = 'b\\\\';\n"
+                + "SELECT 1";
+        Path file = Files.createTempFile("script", ".sql");
+        try {
+            Files.write(file, script.getBytes(StandardCharsets.UTF_8));
+
+            for (long window : new long[] { 1, 3, 1 << 20 }) {
+                List<SQLParser.ParsedQuery> parsedQueries = new ArrayList<>();
+                new SQLScriptParser(SQLParser.Engine.LEXER, SqlDialect.MYSQL, window).parse(file, StandardCharsets.UTF_8,
+                        parsedQueries::add);
+
+                assertEquals(3, parsedQueries.size());
+                assertEquals(Arrays.asList("it's; x", 1), parsedQueries.get(0).getParameters());
+                assertEquals("# comment; not a separator\nDELETE FROM `odd;name` WHERE a = ?",
+                        parsedQueries.get(1).getParameterizedQuery());
+                assertEquals(Arrays.asList("b\\"), parsedQueries.get(1).getParameters());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testParse_EmptyFile() throws IOException {
+        Path file = Files.createTempFile("script", ".sql");
+        try {
+            assertEquals(0, new SQLScriptParser().parse(file, StandardCharsets.UTF_8, parsedQuery -> { }));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class SchemaAwareBinderTest {
+
+    private Connection mockConnection;
+    private DatabaseMetaData mockMetaData;
+    private PreparedStatement mockPreparedStatement;
+
+    private void mockOrdersTable() throws SQLException {
+        mockConnection = mock(Connection.class);
+        mockMetaData = mock(DatabaseMetaData.class);
+        mockPreparedStatement = mock(PreparedStatement.class);
+        when(mockConnection.getMetaData()).thenReturn(mockMetaData);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockMetaData.getColumns(isNull(), isNull(), eq("orders"), isNull())).thenAnswer(invocation -> ordersColumns());
+    }
+
+    private static ResultSet ordersColumns() throws SQLException {
+        ResultSet columns = mock(ResultSet.class);
+        when(columns.next()).thenReturn(true, true, true, true, true, false);
+        when(columns.getString("TABLE_NAME")).thenReturn("orders");
+        when(columns.getString("COLUMN_NAME")).thenReturn("order_id", "user_name", "total", "created", "active");
+        when(columns.getInt("DATA_TYPE")).thenReturn(Types.BIGINT, Types.VARCHAR, Types.NUMERIC, Types.TIMESTAMP, Types.BOOLEAN);
+        return columns;
+    }
+
+    @Test
+    public void testGetColumnName_AllEngines() {
+        String query = "SELECT * FROM orders WHERE order_id = 5 AND status IN ('a', 'b') AND total BETWEEN 1 AND 2 "
+                + "AND kind NOT IN (1, 2)";
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery(query, engine);
+
+            assertEquals("order_id", parsedQuery.getColumnName(0), engine.name());
+            assertEquals("status", parsedQuery.getColumnName(2), engine.name());
+            assertEquals("total", parsedQuery.getColumnName(4), engine.name());
+            assertEquals(engine == SQLParser.Engine.TREE ? "kind" : null, parsedQuery.getColumnName(5), engine.name());
+        }
+        SQLParser.ParsedQuery arrays = SQLParser.parseSQLQuery("SELECT * FROM t WHERE a IN (1, 2, 3) AND b = 4",
+                SQLParser.Engine.LEXER, InListStrategy.of(InListStrategy.Mode.ARRAY));
+        assertEquals("b", arrays.getColumnName(1));
+        assertNull(new SQLParser.ParsedQuery("SELECT ?", Arrays.asList((Object) 1)).getColumnName(0));
+    }
+
+    @Test
+    public void testTablesOf() {
+        SchemaAwareBinder.Tables tables = SchemaAwareBinder.tablesOf(
+                "SELECT * FROM orders o JOIN \"shop\".items AS i ON o.id = i.order_id WHERE o.id = ?");
+        assertEquals(Arrays.asList("orders", "shop.items"), tables.names);
+        assertEquals(Arrays.asList("shop.items"), tables.of("I"));
+        assertEquals(Arrays.asList("orders", "shop.items"), tables.of("x"));
+        assertEquals(Arrays.asList("orders", "shop.items"), tables.of(null));
+        assertEquals(Arrays.asList("orders"), SchemaAwareBinder.tablesOf("UPDATE orders SET a = ? WHERE b = ?").names);
+        assertEquals(Arrays.asList("orders"), SchemaAwareBinder.tablesOf("UPDATE orders SET a = ? WHERE b = ?").of("orders"));
+    }
+
+    @Test
+    public void testTablesOf_SkipsFromInFunctions() {
+        SchemaAwareBinder.Tables tables = SchemaAwareBinder.tablesOf("SELECT EXTRACT(YEAR FROM o.created), "
+                + "SUBSTRING(u.name FROM 1 FOR 3) FROM orders o, users u WHERE o.user_id IN (SELECT id FROM admins) AND u.id = ?");
+
+        assertEquals(Arrays.asList("orders", "users", "admins"), tables.names);
+        assertEquals(Arrays.asList("users"), tables.of("u"));
+    }
+
+    @Test
+    public void testCreatePreparedStatement_ResolvesAliasesInJoin() throws SQLException {
+        mockOrdersTable();
+        ResultSet usersColumns = mock(ResultSet.class);
+        when(usersColumns.next()).thenReturn(true, true, false);
+        when(usersColumns.getString("TABLE_NAME")).thenReturn("users");
+        when(usersColumns.getString("COLUMN_NAME")).thenReturn("user_name", "order_id");
+        when(usersColumns.getInt("DATA_TYPE")).thenReturn(Types.INTEGER, Types.VARCHAR);
+        when(mockMetaData.getColumns(isNull(), isNull(), eq("users"), isNull())).thenReturn(usersColumns);
+        SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery("SELECT * FROM orders o JOIN users AS u "
+                + "ON u.user_name = o.user_name WHERE u.user_name = '7' AND o.user_name = 8 AND u.order_id = 9 AND order_id = '10'");
+
+        new SchemaAwareBinder(Duration.ofMinutes(5)).createPreparedStatement(mockConnection, parsedQuery);
+
+        verify(mockPreparedStatement, times(1)).setInt(1, 7);      // users.user_name is an INTEGER
+        verify(mockPreparedStatement, times(1)).setString(2, "8"); // orders.user_name is a VARCHAR
+        verify(mockPreparedStatement, times(1)).setString(3, "9"); // users.order_id is a VARCHAR
+        verify(mockPreparedStatement, times(1)).setLong(4, 10L);   // unqualified, first table having it
+    }
+
+    @Test
+    public void testCreatePreparedStatement_BindsWithColumnTypes() throws SQLException {
+        mockOrdersTable();
+        SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery("SELECT * FROM orders WHERE order_id = '42' "
+                + "AND user_name = 7 AND total > 1.5 AND created >= '2024-01-01 00:00:00' AND active = 1 AND note = 'x' "
+                + "AND user_name = NULL");
+
+        new SchemaAwareBinder(Duration.ofMinutes(5)).createPreparedStatement(mockConnection, parsedQuery);
+
+        verify(mockPreparedStatement, times(1)).setLong(1, 42L);
+        verify(mockPreparedStatement, times(1)).setString(2, "7");
+        verify(mockPreparedStatement, times(1)).setBigDecimal(3, new BigDecimal("1.5"));
+        verify(mockPreparedStatement, times(1)).setObject(4, "2024-01-01 00:00:00", Types.TIMESTAMP);
+        verify(mockPreparedStatement, times(1)).setBoolean(5, true);
+        verify(mockPreparedStatement, times(1)).setString(6, "x"); // unknown column, bound by its literal type
+        verify(mockPreparedStatement, times(1)).setNull(7, Types.VARCHAR);
+    }
+
+    @Test
+    public void testCreatePreparedStatement_QueryCacheHit() throws SQLException {
+        mockOrdersTable();
+        QueryCache cache = new QueryCache(100);
+        SchemaAwareBinder binder = new SchemaAwareBinder(Duration.ofMinutes(5));
+
+        cache.parse("SELECT * FROM orders o WHERE o.order_id = '41' AND o.user_name = 6");
+        SQLParser.ParsedQuery hit = cache.parse("SELECT * FROM orders o WHERE o.order_id = '42' AND o.user_name = 7");
+        binder.createPreparedStatement(mockConnection, hit);
+
+        assertEquals(1, cache.hitCount());
+        verify(mockPreparedStatement, times(1)).setLong(1, 42L);
+        verify(mockPreparedStatement, times(1)).setString(2, "7");
+    }
+
+    @Test
+    public void testCreatePreparedStatement_FallsBackWhenValueDoesNotConvert() throws SQLException {
+        mockOrdersTable();
+        SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery("SELECT * FROM orders WHERE order_id = 'abc' AND order_id < 2.5");
+
+        new SchemaAwareBinder(Duration.ofMinutes(5)).createPreparedStatement(mockConnection, parsedQuery);
+
+        verify(mockPreparedStatement, times(1)).setString(1, "abc");
+        verify(mockPreparedStatement, times(1)).setDouble(2, 2.5);
+        verify(mockPreparedStatement, never()).setLong(anyInt(), anyLong());
+    }
+
+    @Test
+    public void testColumnTypes_CachedUntilExpired() throws SQLException {
+        mockOrdersTable();
+        AtomicLong now = new AtomicLong();
+        SchemaAwareBinder binder = new SchemaAwareBinder(Duration.ofSeconds(10), now::get);
+        SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery("SELECT * FROM orders WHERE order_id = 1");
+
+        binder.createPreparedStatement(mockConnection, parsedQuery);
+        binder.createPreparedStatement(mockConnection, parsedQuery);
+        verify(mockMetaData, times(1)).getColumns(isNull(), isNull(), eq("orders"), isNull());
+
+        now.set(Duration.ofSeconds(11).toNanos());
+        binder.createPreparedStatement(mockConnection, parsedQuery);
+        verify(mockMetaData, times(2)).getColumns(isNull(), isNull(), eq("orders"), isNull());
+
+        binder.invalidate();
+        binder.createPreparedStatement(mockConnection, parsedQuery);
+        verify(mockMetaData, times(3)).getColumns(isNull(), isNull(), eq("orders"), isNull());
+    }
+}
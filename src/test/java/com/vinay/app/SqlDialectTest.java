@@ -0,0 +1,117 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.vinay.app.SQLLexer.Token;
+
+public class SqlDialectTest {
+
+    private static SQLParser.ParsedQuery parse(String query, SQLParser.Engine engine, SqlDialect dialect) {
+        return SQLParser.parseSQLQuery(query, engine, InListStrategy.EXPAND, dialect);
+    }
+
+    @Test
+    public void testLexer_MySQL() {
+        SQLLexer lexer = new SQLLexer("`order id` = 'it\\'s' # comment\n AND", SqlDialect.MYSQL);
+
+        assertEquals(Token.QUOTED_IDENTIFIER, lexer.next());
+        assertEquals("`order id`", lexer.text());
+        assertEquals(Token.OPERATOR, lexer.next());
+        assertEquals(Token.STRING, lexer.next());
+        assertEquals("'it\\'s'", lexer.text());
+        assertEquals(Token.WORD, lexer.next());
+        assertEquals("AND", lexer.text());
+        assertEquals(Token.END, lexer.next());
+    }
+
+    @Test
+    public void testLexer_Postgres() {
+        SQLLexer lexer = new SQLLexer("$$it's$$ $tag$a $$ b$tag$ E'\\'' e $1", SqlDialect.POSTGRES);
+
+        assertEquals(Token.STRING, lexer.next());
+        assertEquals("$$it's$$", lexer.text());
+        assertEquals(Token.STRING, lexer.next());
+        assertEquals("$tag$a $$ b$tag$", lexer.text());
+        assertEquals(Token.STRING, lexer.next());
+        assertEquals("E'\\''", lexer.text());
+        assertEquals(Token.WORD, lexer.next());
+        assertEquals(Token.OTHER, lexer.next());
+        assertEquals(Token.NUMBER, lexer.next());
+    }
+
+    @Test
+    public void testLexer_SqlServer() {
+        SQLLexer lexer = new SQLLexer("[order]]s] = N'x'", SqlDialect.SQL_SERVER);
+
+        assertEquals(Token.QUOTED_IDENTIFIER, lexer.next());
+        assertEquals("[order]]s]", lexer.text());
+        assertEquals(Token.OPERATOR, lexer.next());
+        assertEquals(Token.STRING, lexer.next());
+        assertEquals("N'x'", lexer.text());
+    }
+
+    @Test
+    public void testLexer_AnsiUnchanged() {
+        SQLLexer lexer = new SQLLexer("N'x' `a` # $$");
+
+        assertEquals(Token.WORD, lexer.next());
+        assertEquals(Token.STRING, lexer.next());
+        assertEquals(Token.OTHER, lexer.next());
+    }
+
+    @Test
+    public void testParse_MySQLBackslashEscapes_AllEngines() {
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            SQLParser.ParsedQuery parsedQuery = parse("SELECT * FROM t WHERE name = 'O\\'Brien\\n' AND code = N'x' AND id = 5",
+                    engine, SqlDialect.MYSQL);
+
+            assertEquals("SELECT * FROM t WHERE name = ? AND code = ? AND id = ?", parsedQuery.getParameterizedQuery(), engine.name());
+            assertEquals(Arrays.asList("O'Brien\n", "x", 5), parsedQuery.getParameters(), engine.name());
+        }
+    }
+
+    @Test
+    public void testParse_PostgresStrings_AllEngines() {
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            SQLParser.ParsedQuery parsedQuery = parse("SELECT * FROM t WHERE body = $$it's$$ AND tag = E'a\\tb' AND n::int = 1",
+                    engine, SqlDialect.POSTGRES);
+
+            assertEquals("SELECT * FROM t WHERE body = ? AND tag = ? AND n::int = ?", parsedQuery.getParameterizedQuery(), engine.name());
+            assertEquals(Arrays.asList("it's", "a\tb", 1), parsedQuery.getParameters(), engine.name());
+        }
+    }
+
+    @Test
+    public void testParse_SqlServerNationalStrings() {
+        for (SQLParser.Engine engine : SQLParser.Engine.values()) {
+            SQLParser.ParsedQuery parsedQuery = parse("SELECT * FROM [dbo].[t] WHERE name = N'Zoe' AND id IN (1, 2)",
+                    engine, SqlDialect.SQL_SERVER);
+
+            assertEquals("SELECT * FROM [dbo].[t] WHERE name = ? AND id IN (?, ?)", parsedQuery.getParameterizedQuery(), engine.name());
+            assertEquals(Arrays.asList("Zoe", 1, 2), parsedQuery.getParameters(), engine.name());
+        }
+    }
+
+    @Test
+    public void testParse_MissedInAnsi() {
+        // Without the dialect the escaped quote ends the string early and the query is cut wrongly
+        SQLParser.ParsedQuery parsedQuery = parse("SELECT * FROM t WHERE a = 'x\\' AND b = 2", SQLParser.Engine.LEXER, SqlDialect.ANSI);
+
+        assertEquals(Arrays.asList("x\\", 2), parsedQuery.getParameters());
+    }
+
+    @Test
+    public void testOf_CustomDialect() {
+        SqlDialect dialect = SqlDialect.of("custom", SqlDialect.Feature.HASH_COMMENTS, SqlDialect.Feature.BACKTICK_IDENTIFIERS);
+
+        assertTrue(dialect.has(SqlDialect.Feature.HASH_COMMENTS));
+        assertEquals("custom", dialect.toString());
+        assertEquals("SELECT * FROM `t` WHERE a = ? # b = 1",
+                parse("SELECT * FROM `t` WHERE a = 1 # b = 1", SQLParser.Engine.LEXER, dialect).getParameterizedQuery().trim());
+    }
+}
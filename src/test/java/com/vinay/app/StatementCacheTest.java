@@ -0,0 +1,202 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class StatementCacheTest {
+
+    @Test
+    public void testPrepare_SameQuery_Reused() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement("SELECT * FROM orders WHERE order_id = ?")).thenReturn(mockPreparedStatement);
+
+        StatementCache statementCache = new StatementCache(10);
+        SQLParser.ParsedQuery first = SQLParser.parseSQLQuery("SELECT * FROM orders WHERE order_id = 5");
+        SQLParser.ParsedQuery second = SQLParser.parseSQLQuery("SELECT * FROM orders WHERE order_id = 6");
+
+        assertSame(mockPreparedStatement, SQLParser.createPreparedStatement(mockConnection, first, statementCache));
+        assertSame(mockPreparedStatement, SQLParser.createPreparedStatement(mockConnection, second, statementCache));
+
+        verify(mockConnection, times(1)).prepareStatement("SELECT * FROM orders WHERE order_id = ?");
+        verify(mockPreparedStatement, times(1)).clearParameters();
+        verify(mockPreparedStatement, times(1)).clearBatch();
+        verify(mockPreparedStatement, times(1)).setInt(1, 5);
+        verify(mockPreparedStatement, times(1)).setInt(1, 6);
+        assertEquals(1, statementCache.hitCount());
+        assertEquals(1, statementCache.missCount());
+    }
+
+    @Test
+    public void testPrepare_PerConnection() throws SQLException {
+        Connection mockConnection1 = mock(Connection.class);
+        Connection mockConnection2 = mock(Connection.class);
+        PreparedStatement mockPreparedStatement1 = mock(PreparedStatement.class);
+        PreparedStatement mockPreparedStatement2 = mock(PreparedStatement.class);
+        when(mockConnection1.prepareStatement("q")).thenReturn(mockPreparedStatement1);
+        when(mockConnection2.prepareStatement("q")).thenReturn(mockPreparedStatement2);
+
+        StatementCache statementCache = new StatementCache(10);
+
+        assertSame(mockPreparedStatement1, statementCache.prepare(mockConnection1, "q"));
+        assertSame(mockPreparedStatement2, statementCache.prepare(mockConnection2, "q"));
+        assertEquals(2, statementCache.size());
+    }
+
+    @Test
+    public void testPrepare_Eviction_ClosesStatement() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockPreparedStatementA = mock(PreparedStatement.class);
+        PreparedStatement mockPreparedStatementB = mock(PreparedStatement.class);
+        PreparedStatement mockPreparedStatementC = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement("a")).thenReturn(mockPreparedStatementA);
+        when(mockConnection.prepareStatement("b")).thenReturn(mockPreparedStatementB);
+        when(mockConnection.prepareStatement("c")).thenReturn(mockPreparedStatementC);
+
+        StatementCache statementCache = new StatementCache(2);
+        statementCache.prepare(mockConnection, "a");
+        statementCache.prepare(mockConnection, "b");
+        statementCache.prepare(mockConnection, "a");
+        statementCache.prepare(mockConnection, "c");
+
+        verify(mockPreparedStatementB, times(1)).close();
+        verify(mockPreparedStatementA, never()).close();
+        assertEquals(1, statementCache.evictionCount());
+        assertEquals(2, statementCache.size());
+    }
+
+    @Test
+    public void testPreparePinned_EvictedCloseFails_StillPinned() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockPreparedStatementA = mock(PreparedStatement.class);
+        PreparedStatement mockPreparedStatementB = mock(PreparedStatement.class);
+        PreparedStatement mockPreparedStatementC = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement("a")).thenReturn(mockPreparedStatementA);
+        when(mockConnection.prepareStatement("b")).thenReturn(mockPreparedStatementB);
+        when(mockConnection.prepareStatement("c")).thenReturn(mockPreparedStatementC);
+        doThrow(new SQLException("close failed")).when(mockPreparedStatementA).close();
+
+        StatementCache statementCache = new StatementCache(1);
+        statementCache.prepare(mockConnection, "a");
+
+        assertSame(mockPreparedStatementB, statementCache.preparePinned(mockConnection, "b"));
+        assertEquals(1, statementCache.closeFailureCount());
+        statementCache.prepare(mockConnection, "c"); // b is pinned and c is handed out: both stay
+        verify(mockPreparedStatementC, never()).close();
+        assertEquals(2, statementCache.size());
+
+        statementCache.unpin(mockConnection, mockPreparedStatementB);
+        verify(mockPreparedStatementB, times(1)).close();
+        assertEquals(1, statementCache.size());
+    }
+
+    @Test
+    public void testPrepare_ClosedStatement_PreparedAgain() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement closedStatement = mock(PreparedStatement.class);
+        PreparedStatement freshStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement("q")).thenReturn(closedStatement, freshStatement);
+        when(closedStatement.isClosed()).thenReturn(true);
+
+        StatementCache statementCache = new StatementCache(10);
+        statementCache.prepare(mockConnection, "q");
+
+        assertSame(freshStatement, statementCache.prepare(mockConnection, "q"));
+        assertEquals(2, statementCache.missCount());
+    }
+
+    @Test
+    public void testRelease_ClosesStatements() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement("q")).thenReturn(mockPreparedStatement);
+
+        StatementCache statementCache = new StatementCache(10);
+        statementCache.prepare(mockConnection, "q");
+        statementCache.release(mockConnection);
+
+        verify(mockPreparedStatement, times(1)).close();
+        assertEquals(0, statementCache.size());
+    }
+
+    @Test
+    public void testPrepare_ClosedConnection_Dropped() throws SQLException {
+        Connection closedConnection = mock(Connection.class);
+        Connection openConnection = mock(Connection.class);
+        when(closedConnection.prepareStatement("q")).thenReturn(mock(PreparedStatement.class));
+        when(openConnection.prepareStatement("q")).thenReturn(mock(PreparedStatement.class));
+
+        StatementCache statementCache = new StatementCache(10);
+        statementCache.prepare(closedConnection, "q");
+        when(closedConnection.isClosed()).thenReturn(true);
+        statementCache.prepare(openConnection, "q");
+
+        assertEquals(1, statementCache.size());
+    }
+
+    @Test
+    public void testPrepare_ClosedConnections_CheckedOutsideLock() throws Exception {
+        StatementCache statementCache = new StatementCache(10);
+        Connection slowConnection = mock(Connection.class);
+        when(slowConnection.prepareStatement("q")).thenReturn(mock(PreparedStatement.class));
+        statementCache.prepare(slowConnection, "q");
+        Connection failingConnection = mock(Connection.class);
+        when(failingConnection.prepareStatement("q")).thenReturn(mock(PreparedStatement.class));
+        statementCache.prepare(failingConnection, "q");
+
+        AtomicInteger sizeSeen = new AtomicInteger(-1);
+        when(slowConnection.isClosed()).thenAnswer(invocation -> {
+            Thread other = new Thread(() -> sizeSeen.set(statementCache.size())); // takes the cache lock
+            other.start();
+            other.join(5000);
+            return true;
+        });
+        when(failingConnection.isClosed()).thenThrow(new SQLException("connection check failed"));
+        Connection newConnection = mock(Connection.class);
+        when(newConnection.prepareStatement("q")).thenReturn(mock(PreparedStatement.class));
+        statementCache.prepare(newConnection, "q");
+
+        assertEquals(2, sizeSeen.get());
+        assertEquals(2, statementCache.size()); // the failing connection is kept, the closed one dropped
+    }
+
+    @Test
+    public void testPrepareStatement_WithCache() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockPreparedStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement("SELECT * FROM orders WHERE order_id = ?")).thenReturn(mockPreparedStatement);
+
+        SQLParser sqlParser = new SQLParser(new StatementCache(10));
+        PreparedStatement first = sqlParser.prepareStatement(mockConnection, SQLParser.parseSQLQuery("SELECT * FROM orders WHERE order_id = 5"));
+        PreparedStatement second = sqlParser.prepareStatement(mockConnection, SQLParser.parseSQLQuery("SELECT * FROM orders WHERE order_id = 6"));
+
+        assertSame(first, second);
+        verify(mockConnection, times(1)).prepareStatement("SELECT * FROM orders WHERE order_id = ?");
+        verify(mockPreparedStatement, times(1)).setObject(1, 6);
+    }
+
+    @Test
+    public void testPrepareStatement_WithoutCache() throws SQLException {
+        Connection mockConnection = mock(Connection.class);
+        when(mockConnection.prepareStatement("q")).thenReturn(mock(PreparedStatement.class), mock(PreparedStatement.class));
+
+        SQLParser sqlParser = new SQLParser();
+        SQLParser.ParsedQuery parsedQuery = SQLParser.parseSQLQuery("q");
+
+        assertNotSame(sqlParser.prepareStatement(mockConnection, parsedQuery), sqlParser.prepareStatement(mockConnection, parsedQuery));
+    }
+}
@@ -0,0 +1,194 @@
+package com.vinay.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.vinay.app.Predicate.Kind;
+
+public class WhereParserTest {
+
+    private static SQLParser.ParsedQuery parse(String query) {
+        return SQLParser.parseSQLQuery(query, SQLParser.Engine.TREE);
+    }
+
+    @Test
+    public void testParsePredicates_Tree() {
+        String query = "SELECT * FROM orders WHERE (status = 'open' OR status = 'new') AND NOT price BETWEEN 1 AND 5 AND id IN (1, 2)";
+
+        List<Predicate> clauses = WhereParser.parsePredicates(query);
+
+        assertEquals(1, clauses.size());
+        Predicate root = clauses.get(0);
+        assertEquals(Kind.AND, root.getKind());
+        assertEquals(3, root.getChildren().size());
+        assertEquals(6, root.getParameterCount());
+
+        Predicate or = root.getChildren().get(0);
+        assertEquals(Kind.OR, or.getKind());
+        assertEquals("status = 'open'", or.getChildren().get(0).getText());
+        assertEquals(Kind.COMPARISON, or.getChildren().get(1).getKind());
+        assertEquals(1, or.getChildren().get(1).getFirstParameter());
+
+        Predicate not = root.getChildren().get(1);
+        assertEquals(Kind.NOT, not.getKind());
+        assertEquals(Kind.BETWEEN, not.getChildren().get(0).getKind());
+        assertEquals("price BETWEEN 1 AND 5", not.getChildren().get(0).getText());
+
+        Predicate in = root.getChildren().get(2);
+        assertEquals(Kind.IN, in.getKind());
+        assertEquals(4, in.getFirstParameter());
+        assertEquals(2, in.getParameterCount());
+    }
+
+    @Test
+    public void testParsePredicates_NegatedForms() {
+        List<Predicate> clauses = WhereParser.parsePredicates(
+                "SELECT * FROM t WHERE a NOT IN (1) AND b NOT LIKE 'x%' AND c IS NOT NULL AND d NOT BETWEEN 1 AND 2");
+
+        List<Predicate> children = clauses.get(0).getChildren();
+        assertEquals(Arrays.asList(Kind.IN, Kind.LIKE, Kind.IS, Kind.BETWEEN),
+                Arrays.asList(children.get(0).getKind(), children.get(1).getKind(), children.get(2).getKind(), children.get(3).getKind()));
+        for (Predicate child : children) {
+            assertTrue(child.isNegated(), child.toString());
+        }
+        assertEquals("c IS NOT NULL", children.get(2).getText());
+        assertEquals(0, children.get(2).getParameterCount());
+    }
+
+    @Test
+    public void testParsePredicates_ClausesInOrder() {
+        List<Predicate> clauses = WhereParser.parsePredicates("SELECT a.id FROM a JOIN b ON a.id = b.id AND b.kind = 2 "
+                + "WHERE a.x IN (SELECT y FROM c WHERE c.z > 3) GROUP BY a.id HAVING count(*) > 1");
+
+        assertEquals(4, clauses.size());
+        assertEquals("a.id = b.id AND b.kind = 2", clauses.get(0).getText());
+        assertEquals(Kind.IN, clauses.get(1).getKind());
+        assertEquals("c.z > 3", clauses.get(2).getText());
+        assertEquals("count(*) > 1", clauses.get(3).getText());
+    }
+
+    @Test
+    public void testTree_LikeAndIsNull() {
+        SQLParser.ParsedQuery result = parse("SELECT * FROM users WHERE name LIKE 'a!%%' ESCAPE '!' AND deleted IS NULL AND active = TRUE");
+
+        assertEquals("SELECT * FROM users WHERE name LIKE ? ESCAPE ? AND deleted IS NULL AND active = ?", result.getParameterizedQuery());
+        assertEquals(Arrays.asList("a!%%", "!", true), result.getParameters());
+    }
+
+    @Test
+    public void testTree_FunctionsArithmeticAndCase() {
+        SQLParser.ParsedQuery result = parse("SELECT * FROM t WHERE lower(name) = 'bob' AND price * 1.5 > -3 "
+                + "AND CASE WHEN kind = 'a' THEN 1 ELSE 2 END = 1 AND coalesce(x, 0) <> 7");
+
+        assertEquals("SELECT * FROM t WHERE lower(name) = ? AND price * ? > ? "
+                + "AND CASE WHEN kind = ? THEN ? ELSE ? END = ? AND coalesce(x, ?) <> ?", result.getParameterizedQuery());
+        assertEquals(Arrays.asList("bob", 1.5, -3, "a", 1, 2, 1, 0, 7), result.getParameters());
+    }
+
+    @Test
+    public void testTree_SubqueryAndExists() {
+        SQLParser.ParsedQuery result = parse("SELECT * FROM a WHERE EXISTS (SELECT 1 FROM b WHERE b.id = a.id AND b.n = 5) "
+                + "AND a.m IN (SELECT m FROM c WHERE c.k = 'x')");
+
+        assertEquals("SELECT * FROM a WHERE EXISTS (SELECT 1 FROM b WHERE b.id = a.id AND b.n = ?) "
+                + "AND a.m IN (SELECT m FROM c WHERE c.k = ?)", result.getParameterizedQuery());
+        assertEquals(Arrays.asList(5, "x"), result.getParameters());
+    }
+
+    @Test
+    public void testTree_TypedLiteralsAndCastsKept() {
+        SQLParser.ParsedQuery result = parse("SELECT * FROM t WHERE created > DATE '2024-01-01' AND age::int = 30 "
+                + "AND tags[1] = 'a' AND d < now() - INTERVAL '1 day'");
+
+        assertEquals("SELECT * FROM t WHERE created > DATE '2024-01-01' AND age::int = ? "
+                + "AND tags[?] = ? AND d < now() - INTERVAL '1 day'", result.getParameterizedQuery());
+        assertEquals(Arrays.asList(30, 1, "a"), result.getParameters());
+    }
+
+    @Test
+    public void testTree_TypeModifiersKept() {
+        SQLParser.ParsedQuery result = parse("SELECT * FROM t WHERE CAST(x AS VARCHAR(10)) = 'a' AND price::numeric(10,2) > 5 "
+                + "AND CAST(y AS DOUBLE PRECISION) < 1.5 AND ids::int[] = z AND CAST(w AS public.money(2)) = 3");
+
+        assertEquals("SELECT * FROM t WHERE CAST(x AS VARCHAR(10)) = ? AND price::numeric(10,2) > ? "
+                + "AND CAST(y AS DOUBLE PRECISION) < ? AND ids::int[] = z AND CAST(w AS public.money(2)) = ?",
+                result.getParameterizedQuery());
+        assertEquals(Arrays.asList("a", 5, 1.5, 3), result.getParameters());
+    }
+
+    @Test
+    public void testTree_SubstringPositionsKept() {
+        SQLParser.ParsedQuery result = parse("SELECT * FROM t WHERE SUBSTRING(name FROM 1 FOR 3) = 'abc' "
+                + "AND EXTRACT(YEAR FROM created) = 2024");
+
+        assertEquals("SELECT * FROM t WHERE SUBSTRING(name FROM 1 FOR 3) = ? AND EXTRACT(YEAR FROM created) = ?",
+                result.getParameterizedQuery());
+        assertEquals(Arrays.asList("abc", 2024), result.getParameters());
+    }
+
+    @Test
+    public void testTree_OnlyClausesParameterized() {
+        SQLParser.ParsedQuery result = parse("UPDATE t SET a = 1 WHERE id = 2 ORDER BY id LIMIT 10");
+
+        assertEquals("UPDATE t SET a = 1 WHERE id = ? ORDER BY id LIMIT 10", result.getParameterizedQuery());
+        assertEquals(Arrays.asList(2), result.getParameters());
+    }
+
+    @Test
+    public void testTree_InListStrategy() {
+        String query = "SELECT * FROM t WHERE id IN (1, 2, 3) AND name NOT IN ('a', 'b')";
+
+        SQLParser.ParsedQuery result = SQLParser.parseSQLQuery(query, SQLParser.Engine.TREE,
+                new InListStrategy(InListStrategy.Mode.ARRAY, 0));
+
+        assertEquals("SELECT * FROM t WHERE id = ANY(?) AND name <> ALL(?)", result.getParameterizedQuery());
+        assertEquals(2, result.getParameters().size());
+    }
+
+    @Test
+    public void testTree_InListOfExpressions() {
+        SQLParser.ParsedQuery result = parse("SELECT * FROM t WHERE id IN (1, abs(-2), 3 + 4)");
+
+        assertEquals("SELECT * FROM t WHERE id IN (?, abs(?), ? + ?)", result.getParameterizedQuery());
+        assertEquals(Arrays.asList(1, -2, 3, 4), result.getParameters());
+    }
+
+    @Test
+    public void testTree_SameAsLexerOnSimpleConditions() {
+        String query = "SELECT * FROM orders WHERE order_id=5 AND user_name='abc' AND status IN ('complete', 'incomplete') "
+                + "AND req_date BETWEEN '11/01/2022' AND '10/01/2022' AND temp > 3.2 AND bit != 8";
+
+        SQLParser.ParsedQuery lexer = SQLParser.parseSQLQuery(query, SQLParser.Engine.LEXER);
+        SQLParser.ParsedQuery tree = parse(query);
+
+        assertEquals(lexer.getParameterizedQuery(), tree.getParameterizedQuery());
+        assertEquals(lexer.getParameters(), tree.getParameters());
+    }
+
+    @Test
+    public void testTree_MalformedInputDoesNotFail() {
+        String[] queries = {
+                "SELECT * FROM t WHERE",
+                "SELECT * FROM t WHERE (a = 1",
+                "SELECT * FROM t WHERE a = 1)) AND b = 2",
+                "SELECT * FROM t WHERE a = = 1 AND",
+                "SELECT * FROM t WHERE a IN (1, 2",
+                "SELECT * FROM t WHERE CASE WHEN",
+                "SELECT * FROM t WHERE tags[1",
+                "WHERE NOT NOT NOT",
+                ""
+        };
+        for (String query : queries) {
+            SQLParser.ParsedQuery result = parse(query);
+            assertFalse(result.getParameterizedQuery().isEmpty() && !query.isEmpty(), query);
+            WhereParser.parsePredicates(query);
+        }
+        assertEquals("SELECT * FROM t WHERE a = ? @ b = ?", parse("SELECT * FROM t WHERE a = 1 @ b = 2").getParameterizedQuery());
+    }
+}